@@ -0,0 +1,371 @@
+package bptree;
+
+import java.io.IOException;
+
+/**
+ * The {@code AggregateBPlusTree} class implements B+-trees in which each {@code NonLeafNode} caches, for each of its
+ * children, an aggregate (e.g., sum, minimum, maximum or count) of the pointers in the subtree under that child. The
+ * aggregate of the pointers whose keys are in a range can then be computed by visiting only the two paths to the
+ * boundaries of the range.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ * @param <A>
+ *            the type of aggregates
+ */
+public class AggregateBPlusTree<K extends Comparable<K>, P, A> extends InMemoryBPlusTree<K, P> {
+
+	/**
+	 * An {@code Aggregator} defines a monoid over aggregates: an identity and an associative combining operation,
+	 * together with a means of turning a pointer into an aggregate.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 *
+	 * @param <P>
+	 *            the type of pointers
+	 * @param <A>
+	 *            the type of aggregates
+	 */
+	public interface Aggregator<P, A> {
+
+		/**
+		 * Returns the aggregate of no pointers.
+		 * 
+		 * @return the aggregate of no pointers
+		 */
+		A identity();
+
+		/**
+		 * Returns the aggregate of the specified pointer alone.
+		 * 
+		 * @param p
+		 *            a pointer
+		 * @return the aggregate of the specified pointer alone
+		 */
+		A lift(P p);
+
+		/**
+		 * Combines the specified aggregates.
+		 * 
+		 * @param a
+		 *            the aggregate of the pointers with the smaller keys
+		 * @param b
+		 *            the aggregate of the pointers with the larger keys
+		 * @return the combined aggregate
+		 */
+		A combine(A a, A b);
+
+	}
+
+	/**
+	 * Returns an {@code Aggregator} that counts pointers.
+	 * 
+	 * @return an {@code Aggregator} that counts pointers
+	 */
+	public static <P> Aggregator<P, Long> count() {
+		return new Aggregator<P, Long>() {
+
+			@Override
+			public Long identity() {
+				return 0L;
+			}
+
+			@Override
+			public Long lift(P p) {
+				return 1L;
+			}
+
+			@Override
+			public Long combine(Long a, Long b) {
+				return a + b;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns an {@code Aggregator} that sums numeric pointers.
+	 * 
+	 * @return an {@code Aggregator} that sums numeric pointers
+	 */
+	public static <P extends Number> Aggregator<P, Double> sum() {
+		return new Aggregator<P, Double>() {
+
+			@Override
+			public Double identity() {
+				return 0.0;
+			}
+
+			@Override
+			public Double lift(P p) {
+				return p.doubleValue();
+			}
+
+			@Override
+			public Double combine(Double a, Double b) {
+				return a + b;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns an {@code Aggregator} that finds the smallest pointer ({@code null} if no pointers).
+	 * 
+	 * @return an {@code Aggregator} that finds the smallest pointer
+	 */
+	public static <P extends Comparable<P>> Aggregator<P, P> min() {
+		return new Aggregator<P, P>() {
+
+			@Override
+			public P identity() {
+				return null;
+			}
+
+			@Override
+			public P lift(P p) {
+				return p;
+			}
+
+			@Override
+			public P combine(P a, P b) {
+				return a == null ? b : b == null || a.compareTo(b) <= 0 ? a : b;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns an {@code Aggregator} that finds the largest pointer ({@code null} if no pointers).
+	 * 
+	 * @return an {@code Aggregator} that finds the largest pointer
+	 */
+	public static <P extends Comparable<P>> Aggregator<P, P> max() {
+		return new Aggregator<P, P>() {
+
+			@Override
+			public P identity() {
+				return null;
+			}
+
+			@Override
+			public P lift(P p) {
+				return p;
+			}
+
+			@Override
+			public P combine(P a, P b) {
+				return a == null ? b : b == null || a.compareTo(b) >= 0 ? a : b;
+			}
+
+		};
+	}
+
+	/**
+	 * The {@code Aggregator} of this {@code AggregateBPlusTree}.
+	 */
+	protected Aggregator<P, A> aggregator;
+
+	/**
+	 * Constructs an {@code AggregateBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code AggregateBPlusTree} can have
+	 * @param aggregator
+	 *            the {@code Aggregator} of the {@code AggregateBPlusTree}
+	 */
+	public AggregateBPlusTree(int degree, Aggregator<P, A> aggregator) {
+		this(degree, degree, aggregator);
+	}
+
+	/**
+	 * Constructs an {@code AggregateBPlusTree} whose {@code LeafNode}s and {@code NonLeafNode}s have different
+	 * degrees.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code NonLeafNode} of this {@code AggregateBPlusTree} can
+	 *            have
+	 * @param leafDegree
+	 *            the maximum number of pointers (including the pointer to the next {@code LeafNode}) that each
+	 *            {@code LeafNode} of this {@code AggregateBPlusTree} can have
+	 * @param aggregator
+	 *            the {@code Aggregator} of the {@code AggregateBPlusTree}
+	 */
+	public AggregateBPlusTree(int degree, int leafDegree, Aggregator<P, A> aggregator) {
+		super(degree, leafDegree);
+		this.aggregator = aggregator;
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code AggregateBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code AggregateBPlusTree} is attempted to be inserted again
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		super.insert(k, p);
+		refreshPath(k);
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code AggregateBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code AggregateBPlusTree} is attempted to be deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void delete(K k) throws InvalidDeletionException, IOException {
+		super.delete(k);
+		refreshPath(k);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code AggregateBPlusTree}, replacing the pointer currently
+	 * associated with the key if any.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void upsert(K k, P p) throws IOException {
+		super.upsert(k, p);
+		refreshPath(k);
+	}
+
+	/**
+	 * Refreshes the aggregates on the path to the specified key after a batch message has changed the key.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param kind
+	 *            {@code INSERT} if the key has been inserted, {@code UPSERT} if its pointer has been replaced, and
+	 *            {@code DELETE} if it has been deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void applied(K k, MessageBuffer.Kind kind) throws IOException {
+		super.applied(k, kind);
+		refreshPath(k);
+	}
+
+	/**
+	 * Returns the aggregate of all of the pointers in this {@code AggregateBPlusTree}.
+	 * 
+	 * @return the aggregate of all of the pointers in this {@code AggregateBPlusTree}
+	 */
+	public A aggregate() {
+		return root == null ? aggregator.identity() : aggregate(root);
+	}
+
+	/**
+	 * Returns the aggregate of the pointers in this {@code AggregateBPlusTree} whose keys are between the specified
+	 * keys.
+	 * 
+	 * @param from
+	 *            the smallest key, inclusive; {@code null} if unbounded
+	 * @param to
+	 *            the largest key, inclusive; {@code null} if unbounded
+	 * @return the aggregate of the pointers whose keys are between the specified keys
+	 */
+	public A aggregate(K from, K to) {
+		if (root == null || from != null && to != null && from.compareTo(to) > 0)
+			return aggregator.identity();
+		return aggregate(root, from, to);
+	}
+
+	/**
+	 * Returns the aggregate of the pointers in the subtree rooted at the specified {@code Node} whose keys are between
+	 * the specified keys. Below the {@code Node} where the paths to the two keys diverge, each recursive call has only
+	 * one bound and thus follows a single path, using the cached aggregates of the children in between.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @param from
+	 *            the smallest key, inclusive; {@code null} if unbounded
+	 * @param to
+	 *            the largest key, inclusive; {@code null} if unbounded
+	 * @return the aggregate of the pointers in the subtree whose keys are between the specified keys
+	 */
+	@SuppressWarnings("unchecked")
+	protected A aggregate(Node<K> n, K from, K to) {
+		if (n instanceof LeafNode) {
+			A a = aggregator.identity();
+			for (int i = 0; i < n.keyCount(); i++)
+				if ((from == null || n.key(i).compareTo(from) >= 0) && (to == null || n.key(i).compareTo(to) <= 0))
+					a = aggregator.combine(a, aggregator.lift(n.pointer(i)));
+			return a;
+		}
+		AggregateNonLeafNode<K> nl = (AggregateNonLeafNode<K>) n;
+		int i = from == null ? 0 : nl.childIndex(from);
+		int j = to == null ? nl.keyCount() : nl.childIndex(to);
+		if (i == j)
+			return aggregate(nl.pointer(i), from, to);
+		A a = aggregate(nl.pointer(i), from, null);
+		for (int c = i + 1; c < j; c++)
+			a = aggregator.combine(a, (A) nl.aggregates[c]);
+		return aggregator.combine(a, aggregate(nl.pointer(j), null, to));
+	}
+
+	/**
+	 * Refreshes the aggregate that the specified {@code NonLeafNode} caches for the specified child.
+	 * 
+	 * @param node
+	 *            a {@code NonLeafNode}
+	 * @param i
+	 *            the index of the child
+	 */
+	@Override
+	protected void refresh(NonLeafNode<K> node, int i) {
+		((AggregateNonLeafNode<K>) node).aggregates[i] = aggregate(node.pointer(i));
+	}
+
+	/**
+	 * Creates an empty {@code AggregateNonLeafNode}.
+	 * 
+	 * @return an empty {@code AggregateNonLeafNode}
+	 */
+	@Override
+	protected NonLeafNode<K> createNonLeafNode() {
+		return new AggregateNonLeafNode<K>(degree);
+	}
+
+	/**
+	 * Returns the aggregate of all of the pointers in the subtree rooted at the specified {@code Node}.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @return the aggregate of all of the pointers in the subtree rooted at the specified {@code Node}
+	 */
+	@SuppressWarnings("unchecked")
+	protected A aggregate(Node<K> n) {
+		A a = aggregator.identity();
+		if (n instanceof LeafNode)
+			for (int i = 0; i < n.keyCount(); i++)
+				a = aggregator.combine(a, aggregator.lift(n.pointer(i)));
+		else
+			for (int i = 0; i <= n.keyCount(); i++)
+				a = aggregator.combine(a, (A) ((AggregateNonLeafNode<K>) n).aggregates[i]);
+		return a;
+	}
+
+}
@@ -0,0 +1,46 @@
+package bptree;
+
+import java.util.Arrays;
+
+/**
+ * The {@code AggregateNonLeafNode} class implements {@code NonLeafNode}s that cache the aggregate of the subtree under
+ * each of their children (see {@code AggregateBPlusTree}).
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ */
+public class AggregateNonLeafNode<K extends Comparable<K>> extends NonLeafNode<K> {
+
+	/**
+	 * An automatically generated serial version UID.
+	 */
+	private static final long serialVersionUID = 4598284759677933895L;
+
+	/**
+	 * The aggregate of the subtree under each child of this {@code AggregateNonLeafNode}.
+	 */
+	protected Object[] aggregates;
+
+	/**
+	 * Constructs an {@code AggregateNonLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code AggregateNonLeafNode}
+	 */
+	public AggregateNonLeafNode(int degree) {
+		super(degree);
+		aggregates = new Object[degree];
+	}
+
+	/**
+	 * Clears this {@code AggregateNonLeafNode}, discarding its aggregates.
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		Arrays.fill(aggregates, null);
+	}
+
+}
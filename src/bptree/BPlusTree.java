@@ -1,6 +1,12 @@
 package bptree;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 
 /**
  * The {@code BPlusTree} class implements B+-trees.
@@ -55,10 +61,16 @@ public abstract class BPlusTree<K extends Comparable<K>, P> {
 	}
 
 	/**
-	 * The maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have.
+	 * The maximum number of pointers that each {@code NonLeafNode} of this {@code BPlusTree} can have.
 	 */
 	protected int degree;
 
+	/**
+	 * The maximum number of pointers (including the pointer to the next {@code LeafNode}) that each {@code LeafNode}
+	 * of this {@code BPlusTree} can have.
+	 */
+	protected int leafDegree;
+
 	/**
 	 * Constructs a {@code BPlusTree}.
 	 * 
@@ -66,18 +78,41 @@ public abstract class BPlusTree<K extends Comparable<K>, P> {
 	 *            the maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have
 	 */
 	public BPlusTree(int degree) {
+		this(degree, degree);
+	}
+
+	/**
+	 * Constructs a {@code BPlusTree} whose {@code LeafNode}s and {@code NonLeafNode}s have different degrees.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code NonLeafNode} of this {@code BPlusTree} can have
+	 * @param leafDegree
+	 *            the maximum number of pointers (including the pointer to the next {@code LeafNode}) that each
+	 *            {@code LeafNode} of this {@code BPlusTree} can have
+	 */
+	public BPlusTree(int degree, int leafDegree) {
 		this.degree = degree;
+		this.leafDegree = leafDegree;
 	}
 
 	/**
-	 * Returns the degree of this {@code BPlusTree}.
+	 * Returns the degree of the {@code NonLeafNode}s of this {@code BPlusTree}.
 	 * 
-	 * @return the degree of this {@code BPlusTree}
+	 * @return the degree of the {@code NonLeafNode}s of this {@code BPlusTree}
 	 */
 	public int degree() {
 		return degree;
 	}
 
+	/**
+	 * Returns the degree of the {@code LeafNode}s of this {@code BPlusTree}.
+	 * 
+	 * @return the degree of the {@code LeafNode}s of this {@code BPlusTree}
+	 */
+	public int leafDegree() {
+		return leafDegree;
+	}
+
 	/**
 	 * Returns the root {@code Node} of this {@code BPlusTree}.
 	 * 
@@ -100,6 +135,30 @@ public abstract class BPlusTree<K extends Comparable<K>, P> {
 	 */
 	public abstract Node<K> child(NonLeafNode<K> node, int i) throws IOException;
 
+	/**
+	 * Returns the {@code LeafNode} that succeeds the specified {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @return the {@code LeafNode} that succeeds the specified {@code LeafNode}; {@code null} if no such
+	 *         {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public abstract LeafNode<K, P> successor(LeafNode<K, P> node) throws IOException;
+
+	/**
+	 * Returns the {@code LeafNode} that precedes the specified {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @return the {@code LeafNode} that precedes the specified {@code LeafNode}; {@code null} if no such
+	 *         {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public abstract LeafNode<K, P> predecessor(LeafNode<K, P> node) throws IOException;
+
 	/**
 	 * Inserts the specified key and pointer into this {@code BPlusTree}.
 	 * 
@@ -127,4 +186,312 @@ public abstract class BPlusTree<K extends Comparable<K>, P> {
 	 */
 	public abstract void delete(K k) throws InvalidDeletionException, IOException;
 
+	/**
+	 * Returns the pointer associated with the specified key.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the key is not in this {@code BPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public P search(K k) throws IOException {
+		LeafNode<K, P> l = findLeaf(k);
+		if (l == null)
+			return null;
+		int i = l.indexOf(k);
+		return i < 0 ? null : l.pointer(i);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code BPlusTree}, replacing the pointer currently associated
+	 * with the key if any.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void upsert(K k, P p) throws IOException {
+		try {
+			insert(k, p);
+		} catch (InvalidInsertionException e) { // if the key is already in this tree
+			try {
+				delete(k);
+				insert(k, p);
+			} catch (InvalidDeletionException | InvalidInsertionException ex) {
+				throw new IllegalStateException(ex); // cannot happen
+			}
+		}
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the keys and pointers in this {@code BPlusTree} whose keys are between the
+	 * specified keys, in ascending key order.
+	 * 
+	 * @param from
+	 *            the smallest key to return, inclusive; {@code null} if unbounded
+	 * @param to
+	 *            the largest key to return, inclusive; {@code null} if unbounded
+	 * @return an {@code Iterator} over the keys and pointers whose keys are between the specified keys, in ascending
+	 *         key order
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public Iterator<Map.Entry<K, P>> scan(K from, K to) throws IOException {
+		return scan(from, true, to, true, false);
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the keys and pointers in this {@code BPlusTree} whose keys are between the
+	 * specified keys, in descending key order.
+	 * 
+	 * @param from
+	 *            the largest key to return, inclusive; {@code null} if unbounded
+	 * @param to
+	 *            the smallest key to return, inclusive; {@code null} if unbounded
+	 * @return an {@code Iterator} over the keys and pointers whose keys are between the specified keys, in descending
+	 *         key order
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public Iterator<Map.Entry<K, P>> descendingScan(K from, K to) throws IOException {
+		return scan(from, true, to, true, true);
+	}
+
+	/**
+	 * Returns an {@code Iterator} over all of the keys and pointers in this {@code BPlusTree}, in descending key order.
+	 * 
+	 * @return an {@code Iterator} over all of the keys and pointers in this {@code BPlusTree}, in descending key order
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public Iterator<Map.Entry<K, P>> descendingIterator() throws IOException {
+		return descendingScan(null, null);
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the keys and pointers in the specified {@code BPlusTree} whose keys start with
+	 * the specified prefix, in ascending key order. Only one descent from the root is made to the first
+	 * {@code LeafNode} that may contain such a key, and the iteration stops at the first key that is not smaller than
+	 * the smallest {@code String} larger than all of the keys starting with the prefix.
+	 * 
+	 * @param <P>
+	 *            the type of pointers
+	 * @param tree
+	 *            a {@code BPlusTree} with {@code String} keys
+	 * @param prefix
+	 *            a prefix
+	 * @return an {@code Iterator} over the keys and pointers whose keys start with the specified prefix
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static <P> Iterator<Map.Entry<String, P>> prefixScan(BPlusTree<String, P> tree, String prefix)
+			throws IOException {
+		int n = prefix.length();
+		while (n > 0 && prefix.charAt(n - 1) == Character.MAX_VALUE)
+			n--; // such a char cannot be incremented, so the prefix without it bounds the keys
+		String end = n == 0 ? null : prefix.substring(0, n - 1) + (char) (prefix.charAt(n - 1) + 1);
+		return tree.scan(prefix.isEmpty() ? null : prefix, true, end, false, false);
+	}
+
+	/**
+	 * Returns a {@code NavigableMap} view of this {@code BPlusTree}. Changes made through the view are made to this
+	 * {@code BPlusTree} and vice versa.
+	 * 
+	 * @return a {@code NavigableMap} view of this {@code BPlusTree}
+	 */
+	public NavigableMap<K, P> asMap() {
+		return new BPlusTreeMap<K, P>(this);
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the keys and pointers in this {@code BPlusTree} whose keys are between the
+	 * specified keys. Only one descent from the root is made; the {@code LeafNode}s are then visited through their
+	 * successors (or predecessors if descending).
+	 * 
+	 * @param from
+	 *            the key to start from; {@code null} if unbounded
+	 * @param fromInclusive
+	 *            {@code true} if the key to start from is to be returned
+	 * @param to
+	 *            the key to stop at; {@code null} if unbounded
+	 * @param toInclusive
+	 *            {@code true} if the key to stop at is to be returned
+	 * @param descending
+	 *            {@code true} if the keys are to be returned in descending order
+	 * @return an {@code Iterator} over the keys and pointers whose keys are between the specified keys
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected Iterator<Map.Entry<K, P>> scan(K from, boolean fromInclusive, K to, boolean toInclusive,
+			boolean descending) throws IOException {
+		if (from == null) {
+			LeafNode<K, P> l = descending ? lastLeaf() : firstLeaf();
+			return new Cursor(l, l == null || !descending ? 0 : l.keyCount() - 1, to, toInclusive, descending);
+		}
+		LeafNode<K, P> l = findLeaf(from);
+		if (l == null)
+			return new Cursor(null, 0, to, toInclusive, descending);
+		int i = l.findIndexL(from) + 1; // the index of the first key >= from
+		if (i < l.keyCount() && l.key(i).compareTo(from) == 0 && (descending == fromInclusive))
+			i++; // the index of the first key > from
+		return new Cursor(l, descending ? i - 1 : i, to, toInclusive, descending);
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that must be responsible for the specified key.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the {@code LeafNode} that must be responsible for the specified key; {@code null} if this
+	 *         {@code BPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, P> findLeaf(K k) throws IOException {
+		Node<K> n = root();
+		while (n instanceof NonLeafNode)
+			n = child((NonLeafNode<K>) n, ((NonLeafNode<K>) n).childIndex(k));
+		return (LeafNode<K, P>) n;
+	}
+
+	/**
+	 * Returns the first {@code LeafNode} of this {@code BPlusTree}.
+	 * 
+	 * @return the first {@code LeafNode} of this {@code BPlusTree}; {@code null} if this {@code BPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, P> firstLeaf() throws IOException {
+		Node<K> n = root();
+		while (n instanceof NonLeafNode)
+			n = child((NonLeafNode<K>) n, 0);
+		return (LeafNode<K, P>) n;
+	}
+
+	/**
+	 * Returns the last {@code LeafNode} of this {@code BPlusTree}.
+	 * 
+	 * @return the last {@code LeafNode} of this {@code BPlusTree}; {@code null} if this {@code BPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, P> lastLeaf() throws IOException {
+		Node<K> n = root();
+		while (n instanceof NonLeafNode)
+			n = child((NonLeafNode<K>) n, n.keyCount());
+		return (LeafNode<K, P>) n;
+	}
+
+	/**
+	 * A {@code Cursor} walks the chain of {@code LeafNode}s of a {@code BPlusTree} in either direction.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	protected class Cursor implements Iterator<Map.Entry<K, P>> {
+
+		/**
+		 * The current {@code LeafNode}; {@code null} if this {@code Cursor} has no more entries.
+		 */
+		LeafNode<K, P> leaf;
+
+		/**
+		 * The index of the next entry in the current {@code LeafNode}.
+		 */
+		int index;
+
+		/**
+		 * The key at which this {@code Cursor} stops; {@code null} if unbounded.
+		 */
+		K bound;
+
+		/**
+		 * A flag indicating whether or not the key at which this {@code Cursor} stops is to be returned.
+		 */
+		boolean inclusive;
+
+		/**
+		 * A flag indicating whether or not this {@code Cursor} moves toward smaller keys.
+		 */
+		boolean descending;
+
+		/**
+		 * Constructs a {@code Cursor}.
+		 * 
+		 * @param leaf
+		 *            the {@code LeafNode} to start from
+		 * @param index
+		 *            the index of the first entry to return (may be out of the range of the {@code LeafNode})
+		 * @param bound
+		 *            the key at which the {@code Cursor} stops; {@code null} if unbounded
+		 * @param inclusive
+		 *            {@code true} if the key at which the {@code Cursor} stops is to be returned
+		 * @param descending
+		 *            {@code true} if the {@code Cursor} moves toward smaller keys
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		protected Cursor(LeafNode<K, P> leaf, int index, K bound, boolean inclusive, boolean descending)
+				throws IOException {
+			this.leaf = leaf;
+			this.index = index;
+			this.bound = bound;
+			this.inclusive = inclusive;
+			this.descending = descending;
+			settle();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return leaf != null;
+		}
+
+		@Override
+		public Map.Entry<K, P> next() {
+			if (leaf == null)
+				throw new NoSuchElementException();
+			Map.Entry<K, P> e = new AbstractMap.SimpleImmutableEntry<K, P>(leaf.key(index), leaf.pointer(index));
+			index += descending ? -1 : 1;
+			try {
+				settle();
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return e;
+		}
+
+		/**
+		 * Moves this {@code Cursor} to the next {@code LeafNode} if the current {@code LeafNode} has been exhausted and
+		 * then stops this {@code Cursor} if the next key is beyond the bound.
+		 * 
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		void settle() throws IOException {
+			if (descending)
+				while (leaf != null && index < 0) {
+					leaf = predecessor(leaf);
+					if (leaf != null)
+						index = leaf.keyCount() - 1;
+				}
+			else
+				while (leaf != null && index >= leaf.keyCount()) {
+					leaf = successor(leaf);
+					index = 0;
+				}
+			if (leaf != null && bound != null) {
+				int c = leaf.key(index).compareTo(bound);
+				if (descending ? c < 0 || c == 0 && !inclusive : c > 0 || c == 0 && !inclusive)
+					leaf = null;
+			}
+		}
+
+	}
+
 }
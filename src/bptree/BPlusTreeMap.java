@@ -0,0 +1,905 @@
+package bptree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * The {@code BPlusTreeMap} class presents a {@code BPlusTree} as a {@code NavigableMap}. Each navigation method (e.g.,
+ * {@link #floorKey(Object)}) makes one descent from the root {@code Node} of the {@code BPlusTree} and then walks the
+ * chain of {@code LeafNode}s. The views returned by {@link #subMap(Object, boolean, Object, boolean)},
+ * {@link #headMap(Object, boolean)}, {@link #tailMap(Object, boolean)}, and {@link #descendingMap()} only record
+ * their bounds and direction, so they are created in constant time and always reflect the current contents of the
+ * {@code BPlusTree}. {@link #size()} counts the entries by walking the {@code LeafNode}s. I/O errors are rethrown as
+ * {@code UncheckedIOException}s. Since a {@code BPlusTree} returns {@code null} for keys that it does not contain,
+ * {@code null} pointers are indistinguishable from missing keys in {@link #get(Object)}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class BPlusTreeMap<K extends Comparable<K>, P> extends AbstractMap<K, P> implements NavigableMap<K, P> {
+
+	/**
+	 * The underlying {@code BPlusTree}.
+	 */
+	protected BPlusTree<K, P> tree;
+
+	/**
+	 * The smallest key in this {@code BPlusTreeMap}; {@code null} if unbounded.
+	 */
+	protected K low;
+
+	/**
+	 * A flag indicating whether or not the smallest key is included in this {@code BPlusTreeMap}.
+	 */
+	protected boolean lowInclusive;
+
+	/**
+	 * The largest key in this {@code BPlusTreeMap}; {@code null} if unbounded.
+	 */
+	protected K high;
+
+	/**
+	 * A flag indicating whether or not the largest key is included in this {@code BPlusTreeMap}.
+	 */
+	protected boolean highInclusive;
+
+	/**
+	 * A flag indicating whether or not this {@code BPlusTreeMap} is ordered by descending keys.
+	 */
+	protected boolean descending;
+
+	/**
+	 * Constructs a {@code BPlusTreeMap} that contains all of the keys and pointers of the specified {@code BPlusTree}.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 */
+	public BPlusTreeMap(BPlusTree<K, P> tree) {
+		this(tree, null, true, null, true, false);
+	}
+
+	/**
+	 * Constructs a {@code BPlusTreeMap} that contains the keys and pointers of the specified {@code BPlusTree} in the
+	 * specified range.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param low
+	 *            the smallest key; {@code null} if unbounded
+	 * @param lowInclusive
+	 *            {@code true} if the smallest key is included
+	 * @param high
+	 *            the largest key; {@code null} if unbounded
+	 * @param highInclusive
+	 *            {@code true} if the largest key is included
+	 * @param descending
+	 *            {@code true} if the {@code BPlusTreeMap} is ordered by descending keys
+	 */
+	protected BPlusTreeMap(BPlusTree<K, P> tree, K low, boolean lowInclusive, K high, boolean highInclusive,
+			boolean descending) {
+		this.tree = tree;
+		this.low = low;
+		this.lowInclusive = lowInclusive;
+		this.high = high;
+		this.highInclusive = highInclusive;
+		this.descending = descending;
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the pointer associated with the specified key; {@code null} if no such key
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public P get(Object key) {
+		K k = (K) key;
+		if (!inRange(k))
+			return null;
+		try {
+			return tree.search(k);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Determines whether or not this {@code BPlusTreeMap} contains the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return {@code true} if this {@code BPlusTreeMap} contains the specified key; {@code false} otherwise
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean containsKey(Object key) {
+		K k = (K) key;
+		Map.Entry<K, P> e = ceiling(k, true);
+		return e != null && e.getKey().compareTo(k) == 0;
+	}
+
+	/**
+	 * Associates the specified pointer with the specified key in the underlying {@code BPlusTree}.
+	 * 
+	 * @param key
+	 *            a key
+	 * @param pointer
+	 *            a pointer
+	 * @return the pointer previously associated with the specified key; {@code null} if no such key
+	 */
+	@Override
+	public P put(K key, P pointer) {
+		if (!inRange(key))
+			throw new IllegalArgumentException("key out of range: " + key);
+		try {
+			P p = tree.search(key);
+			tree.upsert(key, pointer);
+			return p;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Removes the specified key and its pointer from the underlying {@code BPlusTree}.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the pointer previously associated with the specified key; {@code null} if no such key
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public P remove(Object key) {
+		K k = (K) key;
+		if (!inRange(k))
+			return null;
+		try {
+			P p = tree.search(k);
+			tree.delete(k);
+			return p;
+		} catch (BPlusTree.InvalidDeletionException e) {
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the number of keys in this {@code BPlusTreeMap}, counting them by walking the {@code LeafNode}s.
+	 * 
+	 * @return the number of keys in this {@code BPlusTreeMap}
+	 */
+	@Override
+	public int size() {
+		int size = 0;
+		for (Iterator<Map.Entry<K, P>> i = iterator(); i.hasNext(); i.next())
+			size++;
+		return size;
+	}
+
+	/**
+	 * Determines whether or not this {@code BPlusTreeMap} is empty.
+	 * 
+	 * @return {@code true} if this {@code BPlusTreeMap} is empty; {@code false} otherwise
+	 */
+	@Override
+	public boolean isEmpty() {
+		return firstEntry() == null;
+	}
+
+	/**
+	 * Returns a {@code Set} view of the entries of this {@code BPlusTreeMap}.
+	 * 
+	 * @return a {@code Set} view of the entries of this {@code BPlusTreeMap}
+	 */
+	@Override
+	public Set<Map.Entry<K, P>> entrySet() {
+		return new AbstractSet<Map.Entry<K, P>>() {
+
+			@Override
+			public Iterator<Map.Entry<K, P>> iterator() {
+				return BPlusTreeMap.this.iterator();
+			}
+
+			@Override
+			public int size() {
+				return BPlusTreeMap.this.size();
+			}
+
+			@Override
+			public boolean isEmpty() {
+				return BPlusTreeMap.this.isEmpty();
+			}
+
+		};
+	}
+
+	/**
+	 * Returns a {@code NavigableSet} view of the keys of this {@code BPlusTreeMap}.
+	 * 
+	 * @return a {@code NavigableSet} view of the keys of this {@code BPlusTreeMap}
+	 */
+	@Override
+	public NavigableSet<K> keySet() {
+		return navigableKeySet();
+	}
+
+	/**
+	 * Returns a {@code NavigableSet} view of the keys of this {@code BPlusTreeMap}.
+	 * 
+	 * @return a {@code NavigableSet} view of the keys of this {@code BPlusTreeMap}
+	 */
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		return new KeySet<K>(this);
+	}
+
+	/**
+	 * Returns a {@code NavigableSet} view of the keys of this {@code BPlusTreeMap} in the reverse order.
+	 * 
+	 * @return a {@code NavigableSet} view of the keys of this {@code BPlusTreeMap} in the reverse order
+	 */
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+
+	/**
+	 * Returns the {@code Comparator} that orders the keys of this {@code BPlusTreeMap}.
+	 * 
+	 * @return {@code null} if the keys are in their natural order; the reverse of the natural order otherwise
+	 */
+	@Override
+	public Comparator<? super K> comparator() {
+		return descending ? Collections.reverseOrder() : null;
+	}
+
+	/**
+	 * Returns the first key of this {@code BPlusTreeMap}.
+	 * 
+	 * @return the first key of this {@code BPlusTreeMap}
+	 * @throws NoSuchElementException
+	 *             if this {@code BPlusTreeMap} is empty
+	 */
+	@Override
+	public K firstKey() {
+		return key(firstEntry());
+	}
+
+	/**
+	 * Returns the last key of this {@code BPlusTreeMap}.
+	 * 
+	 * @return the last key of this {@code BPlusTreeMap}
+	 * @throws NoSuchElementException
+	 *             if this {@code BPlusTreeMap} is empty
+	 */
+	@Override
+	public K lastKey() {
+		return key(lastEntry());
+	}
+
+	/**
+	 * Returns the first entry of this {@code BPlusTreeMap}.
+	 * 
+	 * @return the first entry of this {@code BPlusTreeMap}; {@code null} if this {@code BPlusTreeMap} is empty
+	 */
+	@Override
+	public Map.Entry<K, P> firstEntry() {
+		return descending ? floor(null, true) : ceiling(null, true);
+	}
+
+	/**
+	 * Returns the last entry of this {@code BPlusTreeMap}.
+	 * 
+	 * @return the last entry of this {@code BPlusTreeMap}; {@code null} if this {@code BPlusTreeMap} is empty
+	 */
+	@Override
+	public Map.Entry<K, P> lastEntry() {
+		return descending ? ceiling(null, true) : floor(null, true);
+	}
+
+	/**
+	 * Removes and returns the first entry of this {@code BPlusTreeMap}.
+	 * 
+	 * @return the first entry of this {@code BPlusTreeMap}; {@code null} if this {@code BPlusTreeMap} is empty
+	 */
+	@Override
+	public Map.Entry<K, P> pollFirstEntry() {
+		return poll(firstEntry());
+	}
+
+	/**
+	 * Removes and returns the last entry of this {@code BPlusTreeMap}.
+	 * 
+	 * @return the last entry of this {@code BPlusTreeMap}; {@code null} if this {@code BPlusTreeMap} is empty
+	 */
+	@Override
+	public Map.Entry<K, P> pollLastEntry() {
+		return poll(lastEntry());
+	}
+
+	/**
+	 * Returns the entry with the greatest key strictly less than the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the entry with the greatest key strictly less than the specified key; {@code null} if no such entry
+	 */
+	@Override
+	public Map.Entry<K, P> lowerEntry(K key) {
+		return descending ? ceiling(key, false) : floor(key, false);
+	}
+
+	/**
+	 * Returns the greatest key strictly less than the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the greatest key strictly less than the specified key; {@code null} if no such key
+	 */
+	@Override
+	public K lowerKey(K key) {
+		return keyOrNull(lowerEntry(key));
+	}
+
+	/**
+	 * Returns the entry with the greatest key less than or equal to the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the entry with the greatest key less than or equal to the specified key; {@code null} if no such entry
+	 */
+	@Override
+	public Map.Entry<K, P> floorEntry(K key) {
+		return descending ? ceiling(key, true) : floor(key, true);
+	}
+
+	/**
+	 * Returns the greatest key less than or equal to the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the greatest key less than or equal to the specified key; {@code null} if no such key
+	 */
+	@Override
+	public K floorKey(K key) {
+		return keyOrNull(floorEntry(key));
+	}
+
+	/**
+	 * Returns the entry with the least key greater than or equal to the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the entry with the least key greater than or equal to the specified key; {@code null} if no such entry
+	 */
+	@Override
+	public Map.Entry<K, P> ceilingEntry(K key) {
+		return descending ? floor(key, true) : ceiling(key, true);
+	}
+
+	/**
+	 * Returns the least key greater than or equal to the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the least key greater than or equal to the specified key; {@code null} if no such key
+	 */
+	@Override
+	public K ceilingKey(K key) {
+		return keyOrNull(ceilingEntry(key));
+	}
+
+	/**
+	 * Returns the entry with the least key strictly greater than the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the entry with the least key strictly greater than the specified key; {@code null} if no such entry
+	 */
+	@Override
+	public Map.Entry<K, P> higherEntry(K key) {
+		return descending ? floor(key, false) : ceiling(key, false);
+	}
+
+	/**
+	 * Returns the least key strictly greater than the specified key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the least key strictly greater than the specified key; {@code null} if no such key
+	 */
+	@Override
+	public K higherKey(K key) {
+		return keyOrNull(higherEntry(key));
+	}
+
+	/**
+	 * Returns a view of this {@code BPlusTreeMap} in the reverse order.
+	 * 
+	 * @return a view of this {@code BPlusTreeMap} in the reverse order
+	 */
+	@Override
+	public NavigableMap<K, P> descendingMap() {
+		return new BPlusTreeMap<K, P>(tree, low, lowInclusive, high, highInclusive, !descending);
+	}
+
+	/**
+	 * Returns a view of the portion of this {@code BPlusTreeMap} between the specified keys.
+	 * 
+	 * @param fromKey
+	 *            the key at which the view begins
+	 * @param fromInclusive
+	 *            {@code true} if the key at which the view begins is included
+	 * @param toKey
+	 *            the key at which the view ends
+	 * @param toInclusive
+	 *            {@code true} if the key at which the view ends is included
+	 * @return a view of the portion of this {@code BPlusTreeMap} between the specified keys
+	 */
+	@Override
+	public NavigableMap<K, P> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		if (fromKey == null || toKey == null)
+			throw new NullPointerException();
+		if (descending ? fromKey.compareTo(toKey) < 0 : fromKey.compareTo(toKey) > 0)
+			throw new IllegalArgumentException("fromKey > toKey");
+		return descending ? view(toKey, toInclusive, fromKey, fromInclusive)
+				: view(fromKey, fromInclusive, toKey, toInclusive);
+	}
+
+	/**
+	 * Returns a view of the portion of this {@code BPlusTreeMap} before the specified key.
+	 * 
+	 * @param toKey
+	 *            the key at which the view ends
+	 * @param inclusive
+	 *            {@code true} if the specified key is included
+	 * @return a view of the portion of this {@code BPlusTreeMap} before the specified key
+	 */
+	@Override
+	public NavigableMap<K, P> headMap(K toKey, boolean inclusive) {
+		if (toKey == null)
+			throw new NullPointerException();
+		return descending ? view(toKey, inclusive, null, true) : view(null, true, toKey, inclusive);
+	}
+
+	/**
+	 * Returns a view of the portion of this {@code BPlusTreeMap} from the specified key onward.
+	 * 
+	 * @param fromKey
+	 *            the key at which the view begins
+	 * @param inclusive
+	 *            {@code true} if the specified key is included
+	 * @return a view of the portion of this {@code BPlusTreeMap} from the specified key onward
+	 */
+	@Override
+	public NavigableMap<K, P> tailMap(K fromKey, boolean inclusive) {
+		if (fromKey == null)
+			throw new NullPointerException();
+		return descending ? view(null, true, fromKey, inclusive) : view(fromKey, inclusive, null, true);
+	}
+
+	/**
+	 * Returns a view of the portion of this {@code BPlusTreeMap} from the specified key, inclusive, to the other
+	 * specified key, exclusive.
+	 * 
+	 * @param fromKey
+	 *            the key at which the view begins
+	 * @param toKey
+	 *            the key at which the view ends
+	 * @return a view of the portion of this {@code BPlusTreeMap} between the specified keys
+	 */
+	@Override
+	public SortedMap<K, P> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	/**
+	 * Returns a view of the portion of this {@code BPlusTreeMap} before the specified key, exclusive.
+	 * 
+	 * @param toKey
+	 *            the key at which the view ends
+	 * @return a view of the portion of this {@code BPlusTreeMap} before the specified key
+	 */
+	@Override
+	public SortedMap<K, P> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	/**
+	 * Returns a view of the portion of this {@code BPlusTreeMap} from the specified key, inclusive, onward.
+	 * 
+	 * @param fromKey
+	 *            the key at which the view begins
+	 * @return a view of the portion of this {@code BPlusTreeMap} from the specified key onward
+	 */
+	@Override
+	public SortedMap<K, P> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the entries of this {@code BPlusTreeMap} in the order of this
+	 * {@code BPlusTreeMap}. The {@code Iterator} supports {@code remove} by deleting the last returned key from the
+	 * underlying {@code BPlusTree} and then resuming after that key with a new descent.
+	 * 
+	 * @return an {@code Iterator} over the entries of this {@code BPlusTreeMap}
+	 */
+	protected Iterator<Map.Entry<K, P>> iterator() {
+		return new Iterator<Map.Entry<K, P>>() {
+
+			Iterator<Map.Entry<K, P>> i = scan(null, true, descending);
+
+			K last;
+
+			@Override
+			public boolean hasNext() {
+				return i.hasNext();
+			}
+
+			@Override
+			public Map.Entry<K, P> next() {
+				Map.Entry<K, P> e = i.next();
+				last = e.getKey();
+				return e;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null)
+					throw new IllegalStateException();
+				try {
+					tree.delete(last);
+				} catch (BPlusTree.InvalidDeletionException e) {
+					throw new IllegalStateException(e);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				i = scan(last, false, descending); // the LeafNodes may have been restructured by the deletion
+				last = null;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the entries of this {@code BPlusTreeMap} in the specified direction, starting
+	 * from the specified key (or the bound of this {@code BPlusTreeMap} if the key is beyond the bound).
+	 * 
+	 * @param from
+	 *            the key to start from; {@code null} to start from the first key in the specified direction
+	 * @param inclusive
+	 *            {@code true} if the key to start from is to be returned
+	 * @param descending
+	 *            {@code true} if the entries are to be returned in descending key order
+	 * @return an {@code Iterator} over the entries of this {@code BPlusTreeMap} starting from the specified key
+	 */
+	protected Iterator<Map.Entry<K, P>> scan(K from, boolean inclusive, boolean descending) {
+		K bound = descending ? high : low;
+		if (bound != null) {
+			int c = from == null ? 1 : descending ? from.compareTo(bound) : bound.compareTo(from);
+			if (c > 0) { // if the key to start from is beyond the bound
+				from = bound;
+				inclusive = descending ? highInclusive : lowInclusive;
+			} else if (c == 0)
+				inclusive &= descending ? highInclusive : lowInclusive;
+		}
+		try {
+			return descending ? tree.scan(from, inclusive, low, lowInclusive, true)
+					: tree.scan(from, inclusive, high, highInclusive, false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the entry with the smallest key larger than (or equal to) the specified key in this
+	 * {@code BPlusTreeMap}, regardless of the order of this {@code BPlusTreeMap}.
+	 * 
+	 * @param key
+	 *            a key; {@code null} for the smallest key in this {@code BPlusTreeMap}
+	 * @param inclusive
+	 *            {@code true} if an entry with the specified key may be returned
+	 * @return the entry with the smallest key larger than (or equal to) the specified key; {@code null} if no such
+	 *         entry
+	 */
+	protected Map.Entry<K, P> ceiling(K key, boolean inclusive) {
+		Iterator<Map.Entry<K, P>> i = scan(key, inclusive, false);
+		return i.hasNext() ? i.next() : null;
+	}
+
+	/**
+	 * Returns the entry with the largest key smaller than (or equal to) the specified key in this
+	 * {@code BPlusTreeMap}, regardless of the order of this {@code BPlusTreeMap}.
+	 * 
+	 * @param key
+	 *            a key; {@code null} for the largest key in this {@code BPlusTreeMap}
+	 * @param inclusive
+	 *            {@code true} if an entry with the specified key may be returned
+	 * @return the entry with the largest key smaller than (or equal to) the specified key; {@code null} if no such
+	 *         entry
+	 */
+	protected Map.Entry<K, P> floor(K key, boolean inclusive) {
+		Iterator<Map.Entry<K, P>> i = scan(key, inclusive, true);
+		return i.hasNext() ? i.next() : null;
+	}
+
+	/**
+	 * Returns a view of this {@code BPlusTreeMap} narrowed down to the specified range, which must be within the range
+	 * of this {@code BPlusTreeMap}.
+	 * 
+	 * @param low
+	 *            the smallest key; {@code null} if not narrowed down
+	 * @param lowInclusive
+	 *            {@code true} if the smallest key is included
+	 * @param high
+	 *            the largest key; {@code null} if not narrowed down
+	 * @param highInclusive
+	 *            {@code true} if the largest key is included
+	 * @return a view of this {@code BPlusTreeMap} narrowed down to the specified range
+	 */
+	protected BPlusTreeMap<K, P> view(K low, boolean lowInclusive, K high, boolean highInclusive) {
+		if (low == null) {
+			low = this.low;
+			lowInclusive = this.lowInclusive;
+		} else if (!inRange(low, !lowInclusive))
+			throw new IllegalArgumentException("key out of range: " + low);
+		if (high == null) {
+			high = this.high;
+			highInclusive = this.highInclusive;
+		} else if (!inRange(high, !highInclusive))
+			throw new IllegalArgumentException("key out of range: " + high);
+		return new BPlusTreeMap<K, P>(tree, low, lowInclusive, high, highInclusive, descending);
+	}
+
+	/**
+	 * Determines whether or not the specified key is within the range of this {@code BPlusTreeMap}.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return {@code true} if the specified key is within the range of this {@code BPlusTreeMap}; {@code false}
+	 *         otherwise
+	 */
+	protected boolean inRange(K k) {
+		return inRange(k, false);
+	}
+
+	/**
+	 * Determines whether or not the specified key is within the range of this {@code BPlusTreeMap}.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param closed
+	 *            {@code true} if the bounds of this {@code BPlusTreeMap} are regarded as inclusive
+	 * @return {@code true} if the specified key is within the range of this {@code BPlusTreeMap}; {@code false}
+	 *         otherwise
+	 */
+	protected boolean inRange(K k, boolean closed) {
+		if (low != null) {
+			int c = k.compareTo(low);
+			if (c < 0 || c == 0 && !lowInclusive && !closed)
+				return false;
+		}
+		if (high != null) {
+			int c = k.compareTo(high);
+			if (c > 0 || c == 0 && !highInclusive && !closed)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the key of the specified entry from the underlying {@code BPlusTree}.
+	 * 
+	 * @param e
+	 *            an entry; {@code null} if no such entry
+	 * @return the specified entry
+	 */
+	protected Map.Entry<K, P> poll(Map.Entry<K, P> e) {
+		if (e != null)
+			remove(e.getKey());
+		return e;
+	}
+
+	/**
+	 * Returns the key of the specified entry.
+	 * 
+	 * @param e
+	 *            an entry; {@code null} if no such entry
+	 * @return the key of the specified entry
+	 * @throws NoSuchElementException
+	 *             if the specified entry is {@code null}
+	 */
+	protected static <K> K key(Map.Entry<K, ?> e) {
+		if (e == null)
+			throw new NoSuchElementException();
+		return e.getKey();
+	}
+
+	/**
+	 * Returns the key of the specified entry.
+	 * 
+	 * @param e
+	 *            an entry; {@code null} if no such entry
+	 * @return the key of the specified entry; {@code null} if the specified entry is {@code null}
+	 */
+	protected static <K> K keyOrNull(Map.Entry<K, ?> e) {
+		return e == null ? null : e.getKey();
+	}
+
+	/**
+	 * The {@code KeySet} class presents the keys of a {@code NavigableMap} as a {@code NavigableSet}.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 * @param <K>
+	 *            the type of keys
+	 */
+	protected static class KeySet<K> extends AbstractSet<K> implements NavigableSet<K> {
+
+		/**
+		 * The {@code NavigableMap} whose keys this {@code KeySet} presents.
+		 */
+		protected NavigableMap<K, ?> map;
+
+		/**
+		 * Constructs a {@code KeySet}.
+		 * 
+		 * @param map
+		 *            the {@code NavigableMap} whose keys the {@code KeySet} presents
+		 */
+		protected KeySet(NavigableMap<K, ?> map) {
+			this.map = map;
+		}
+
+		@Override
+		public Iterator<K> iterator() {
+			Iterator<? extends Map.Entry<K, ?>> i = map.entrySet().iterator();
+			return new Iterator<K>() {
+
+				@Override
+				public boolean hasNext() {
+					return i.hasNext();
+				}
+
+				@Override
+				public K next() {
+					return i.next().getKey();
+				}
+
+				@Override
+				public void remove() {
+					i.remove();
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return map.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return map.containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			boolean found = map.containsKey(o);
+			map.remove(o);
+			return found;
+		}
+
+		@Override
+		public Comparator<? super K> comparator() {
+			return map.comparator();
+		}
+
+		@Override
+		public K first() {
+			return map.firstKey();
+		}
+
+		@Override
+		public K last() {
+			return map.lastKey();
+		}
+
+		@Override
+		public K lower(K k) {
+			return map.lowerKey(k);
+		}
+
+		@Override
+		public K floor(K k) {
+			return map.floorKey(k);
+		}
+
+		@Override
+		public K ceiling(K k) {
+			return map.ceilingKey(k);
+		}
+
+		@Override
+		public K higher(K k) {
+			return map.higherKey(k);
+		}
+
+		@Override
+		public K pollFirst() {
+			return keyOrNull(map.pollFirstEntry());
+		}
+
+		@Override
+		public K pollLast() {
+			return keyOrNull(map.pollLastEntry());
+		}
+
+		@Override
+		public NavigableSet<K> descendingSet() {
+			return new KeySet<K>(map.descendingMap());
+		}
+
+		@Override
+		public Iterator<K> descendingIterator() {
+			return descendingSet().iterator();
+		}
+
+		@Override
+		public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+			return new KeySet<K>(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+		}
+
+		@Override
+		public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+			return new KeySet<K>(map.headMap(toElement, inclusive));
+		}
+
+		@Override
+		public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+			return new KeySet<K>(map.tailMap(fromElement, inclusive));
+		}
+
+		@Override
+		public SortedSet<K> subSet(K fromElement, K toElement) {
+			return subSet(fromElement, true, toElement, false);
+		}
+
+		@Override
+		public SortedSet<K> headSet(K toElement) {
+			return headSet(toElement, false);
+		}
+
+		@Override
+		public SortedSet<K> tailSet(K fromElement) {
+			return tailSet(fromElement, true);
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+package bptree;
+
+/**
+ * The {@code BinaryKeySearch} class locates search keys in {@code Node}s using binary search.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BinaryKeySearch implements KeySearch {
+
+	/**
+	 * Returns the number of keys in the specified {@code Node} that are smaller than the specified key.
+	 * 
+	 * @param node
+	 *            a {@code Node}
+	 * @param key
+	 *            a search key
+	 * @return the number of keys in the specified {@code Node} that are smaller than the specified key
+	 */
+	@Override
+	public <K extends Comparable<K>> int lowerBound(Node<K> node, K key) {
+		int lo = 0, hi = node.keyCount;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (node.key(mid).compareTo(key) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the number of keys in the specified {@code Node} that are smaller than or equal to the specified key.
+	 * 
+	 * @param node
+	 *            a {@code Node}
+	 * @param key
+	 *            a search key
+	 * @return the number of keys in the specified {@code Node} that are smaller than or equal to the specified key
+	 */
+	@Override
+	public <K extends Comparable<K>> int upperBound(Node<K> node, K key) {
+		int lo = 0, hi = node.keyCount;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (node.key(mid).compareTo(key) <= 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+}
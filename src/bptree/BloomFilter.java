@@ -0,0 +1,129 @@
+package bptree;
+
+/**
+ * The {@code BloomFilter} class implements Bloom filters that answer whether a key may have been added. A key that
+ * has been added is always reported as possibly present, and a key that has not been added is reported as possibly
+ * present with about the false positive rate given at construction as long as at most the given number of keys have
+ * been added. Keys cannot be removed; a {@code BloomFilter} is rebuilt instead once too many of its keys are stale.
+ * The positions of each key are derived from its {@code hashCode} by double hashing.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BloomFilter {
+
+	/**
+	 * The bits of this {@code BloomFilter}.
+	 */
+	protected long[] bits;
+
+	/**
+	 * The number of bits of this {@code BloomFilter}.
+	 */
+	protected long bitCount;
+
+	/**
+	 * The number of bits set for each key.
+	 */
+	protected int hashes;
+
+	/**
+	 * The number of keys for which this {@code BloomFilter} achieves its false positive rate.
+	 */
+	protected int capacity;
+
+	/**
+	 * The number of keys added to this {@code BloomFilter}.
+	 */
+	protected int count;
+
+	/**
+	 * Constructs a {@code BloomFilter}.
+	 * 
+	 * @param capacity
+	 *            the number of keys for which the {@code BloomFilter} is to achieve the false positive rate
+	 * @param falsePositiveRate
+	 *            the fraction of the keys not added that may be reported as possibly present (between 0 and 1,
+	 *            exclusive)
+	 */
+	public BloomFilter(int capacity, double falsePositiveRate) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity: " + capacity);
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+			throw new IllegalArgumentException("false positive rate: " + falsePositiveRate);
+		double ln2 = Math.log(2);
+		long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+		bits = new long[(int) Math.max(1, (m + 63) >>> 6)];
+		bitCount = bits.length * 64L;
+		hashes = Math.max(1, (int) Math.round((double) m / capacity * ln2));
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Returns the number of keys for which this {@code BloomFilter} achieves its false positive rate.
+	 * 
+	 * @return the number of keys for which this {@code BloomFilter} achieves its false positive rate
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of keys added to this {@code BloomFilter}.
+	 * 
+	 * @return the number of keys added to this {@code BloomFilter}
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Adds the specified key to this {@code BloomFilter}.
+	 * 
+	 * @param k
+	 *            a key
+	 */
+	public void add(Object k) {
+		long h = hash(k);
+		long h1 = h >>> 32, h2 = (h & 0xFFFFFFFFL) | 1;
+		for (int i = 0; i < hashes; i++) {
+			long b = Math.floorMod(h1 + i * h2, bitCount);
+			bits[(int) (b >>> 6)] |= 1L << b;
+		}
+		count++;
+	}
+
+	/**
+	 * Determines whether or not the specified key may have been added to this {@code BloomFilter}.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return {@code false} if the specified key has definitely not been added to this {@code BloomFilter};
+	 *         {@code true} otherwise
+	 */
+	public boolean mightContain(Object k) {
+		long h = hash(k);
+		long h1 = h >>> 32, h2 = (h & 0xFFFFFFFFL) | 1;
+		for (int i = 0; i < hashes; i++) {
+			long b = Math.floorMod(h1 + i * h2, bitCount);
+			if ((bits[(int) (b >>> 6)] & 1L << b) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a 64-bit hash of the specified key, whose upper and lower halves serve as the two hashes of double
+	 * hashing.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return a 64-bit hash of the specified key
+	 */
+	protected static long hash(Object k) {
+		long h = k.hashCode() * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 29;
+		h *= 0xBF58476D1CE4E5B9L;
+		return h ^ (h >>> 32);
+	}
+
+}
@@ -0,0 +1,690 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code BufferedBPlusTree} class implements write-optimized B+-trees (B<sup>&epsilon;</sup>-trees) in which each
+ * {@code NonLeafNode} holds a bounded buffer of pending insert, upsert, and delete messages. Updates are added to the
+ * buffer of the root {@code Node} and, whenever a buffer becomes full, the messages destined for the child that
+ * receives the most messages, which form a contiguous range since each buffer keeps its messages sorted by key (see
+ * {@code MessageBuffer}), are flushed in bulk to that child while the other messages stay buffered. Messages destined
+ * for {@code LeafNode}s are applied in ascending key order one {@code LeafNode} at a time, so that each
+ * {@code LeafNode} is located once per batch and the cost of each structural change is amortized over many updates.
+ * Inserts and deletes are blind and thus do not fully honor the contract of {@code BPlusTree}: an insert of a key
+ * already in the tree or a delete of a key not in the tree is rejected with an exception only if the newest message for
+ * the key is in the buffer of the root {@code Node} (or the root {@code Node} is a {@code LeafNode}) or, for a delete,
+ * the {@code BloomFilter} rules the key out; otherwise, the message is silently discarded when it reaches the
+ * {@code LeafNode} responsible for the key. Point queries consult the buffers on the way down and range scans apply all
+ * pending messages first. If enabled (see {@link #setBloomFilter(boolean, double)}), the {@code BloomFilter} also
+ * covers the keys of the pending insert and upsert messages, so that searches for and deletes of the keys that it rules
+ * out are answered right away.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class BufferedBPlusTree<K extends Comparable<K>, P> extends InMemoryBPlusTree<K, P> {
+
+	/**
+	 * The maximum number of messages that each {@code NonLeafNode} of this {@code BufferedBPlusTree} buffers.
+	 */
+	protected int bufferCapacity;
+
+	/**
+	 * The messages taken from a former root {@code Node} while the tree shrank to a single {@code LeafNode};
+	 * {@code null} if no such messages.
+	 */
+	protected MessageBuffer<K> orphans;
+
+	/**
+	 * Constructs a {@code BufferedBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code BufferedBPlusTree} can have
+	 * @param bufferCapacity
+	 *            the maximum number of messages that each {@code NonLeafNode} of this {@code BufferedBPlusTree} can
+	 *            buffer
+	 */
+	public BufferedBPlusTree(int degree, int bufferCapacity) {
+		this(degree, degree, bufferCapacity);
+	}
+
+	/**
+	 * Constructs a {@code BufferedBPlusTree} whose {@code LeafNode}s and {@code NonLeafNode}s have different degrees.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code NonLeafNode} of this {@code BufferedBPlusTree} can
+	 *            have
+	 * @param leafDegree
+	 *            the maximum number of pointers (including the pointer to the next {@code LeafNode}) that each
+	 *            {@code LeafNode} of this {@code BufferedBPlusTree} can have
+	 * @param bufferCapacity
+	 *            the maximum number of messages that each {@code NonLeafNode} of this {@code BufferedBPlusTree} can
+	 *            buffer
+	 */
+	public BufferedBPlusTree(int degree, int leafDegree, int bufferCapacity) {
+		super(degree, leafDegree);
+		if (bufferCapacity < 1)
+			throw new IllegalArgumentException("buffer capacity: " + bufferCapacity);
+		this.bufferCapacity = bufferCapacity;
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code BufferedBPlusTree} unless the key is already in this
+	 * {@code BufferedBPlusTree}. Unlike {@link BPlusTree#insert(Comparable, Object)}, this method is blind: the key is
+	 * not looked up in the {@code LeafNode}s, so an insert of a key already in this {@code BufferedBPlusTree} may
+	 * return normally, in which case the insert message is silently discarded when it reaches its {@code LeafNode} and
+	 * the current pointer for the key is kept.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             only if the key is already in this {@code BufferedBPlusTree} and this is evident from the newest
+	 *             message for the key in the buffer of the root {@code Node} (or from the root {@code LeafNode})
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		if (!(root instanceof NonLeafNode)) { // a root LeafNode is checked right away
+			super.insert(k, p);
+			return;
+		}
+		if (filter == null || filter.mightContain(k)) { // otherwise, the key is definitely new
+			MessageBuffer<K> b = ((BufferedNonLeafNode<K>) root).messages;
+			int i = b == null ? -1 : b.indexOf(k);
+			if (i >= 0 && b.kind(i) != MessageBuffer.Kind.DELETE) // no duplicate keys are allowed in the tree
+				throw new InvalidInsertionException("key: " + k);
+		}
+		enqueue(k, MessageBuffer.Kind.INSERT, p);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code BufferedBPlusTree}, replacing the pointer currently
+	 * associated with the key if any.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void upsert(K k, P p) throws IOException {
+		if (!(root instanceof NonLeafNode))
+			super.upsert(k, p);
+		else
+			enqueue(k, MessageBuffer.Kind.UPSERT, p);
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code BufferedBPlusTree} if the key is in
+	 * this {@code BufferedBPlusTree}. Unlike {@link BPlusTree#delete(Comparable)}, this method is blind: the key is not
+	 * looked up in the {@code LeafNode}s, so a delete of a key not in this {@code BufferedBPlusTree} may return
+	 * normally, in which case the delete message is silently discarded when it reaches its {@code LeafNode}.
+	 * 
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             only if the key is not in this {@code BufferedBPlusTree} and this is evident from the
+	 *             {@code BloomFilter}, from the newest message for the key in the buffer of the root {@code Node}, or
+	 *             from the root {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void delete(K k) throws InvalidDeletionException, IOException {
+		if (!(root instanceof NonLeafNode)) { // a root LeafNode is checked right away
+			super.delete(k);
+			return;
+		}
+		if (filter != null && !filter.mightContain(k)) // neither in the LeafNodes nor in a pending insert or upsert
+			throw new InvalidDeletionException("key: " + k);
+		MessageBuffer<K> b = ((BufferedNonLeafNode<K>) root).messages;
+		int i = b == null ? -1 : b.indexOf(k);
+		if (i >= 0 && b.kind(i) == MessageBuffer.Kind.DELETE)
+			throw new InvalidDeletionException("key: " + k);
+		enqueue(k, MessageBuffer.Kind.DELETE, null);
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key, taking into account the pending messages. The buffers
+	 * and the {@code LeafNode} are consulted in a single descent from the root {@code Node}.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the key is not in this
+	 *         {@code BufferedBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public P search(K k) throws IOException {
+		if (filter != null && !filter.mightContain(k))
+			return null;
+		P inserted = null; // the pointer of the oldest insert message seen so far
+		Node<K> n = root;
+		for (; n instanceof NonLeafNode; n = ((NonLeafNode<K>) n).child(k)) {
+			MessageBuffer<K> b = ((BufferedNonLeafNode<K>) n).messages;
+			int i = b == null ? -1 : b.indexOf(k);
+			if (i < 0)
+				continue;
+			if (b.kind(i) == MessageBuffer.Kind.INSERT) // takes effect only if the key is not in the subtree below
+				inserted = b.pointer(i);
+			else
+				return b.kind(i) == MessageBuffer.Kind.DELETE ? inserted : b.<P>pointer(i);
+		}
+		if (n == null)
+			return inserted;
+		LeafNode<K, P> l = (LeafNode<K, P>) n;
+		int i = l.indexOf(k);
+		return i < 0 ? inserted : l.pointer(i);
+	}
+
+	/**
+	 * Determines whether or not this {@code BufferedBPlusTree} contains the specified key, taking into account the
+	 * pending messages.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return {@code true} if this {@code BufferedBPlusTree} contains the specified key; {@code false} otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean contains(K k) {
+		if (filter != null && !filter.mightContain(k))
+			return false;
+		Node<K> n = root;
+		for (; n instanceof NonLeafNode; n = ((NonLeafNode<K>) n).child(k)) {
+			MessageBuffer<K> b = ((BufferedNonLeafNode<K>) n).messages;
+			int i = b == null ? -1 : b.indexOf(k);
+			if (i >= 0) // the newest message on the path decides
+				return b.kind(i) != MessageBuffer.Kind.DELETE;
+		}
+		return n != null && ((LeafNode<K, P>) n).contains(k);
+	}
+
+	/**
+	 * Returns the number of messages pending in the buffers of this {@code BufferedBPlusTree}.
+	 * 
+	 * @return the number of messages pending in the buffers of this {@code BufferedBPlusTree}
+	 */
+	public int pendingMessages() {
+		return pendingMessages(root);
+	}
+
+	/**
+	 * Applies all of the pending messages to the {@code LeafNode}s of this {@code BufferedBPlusTree}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void flush() throws IOException {
+		List<MessageBuffer<K>> levels = new ArrayList<MessageBuffer<K>>();
+		collect(root, 0, levels);
+		for (int i = levels.size() - 1; i >= 0; i--) // messages in deeper buffers are older
+			apply(levels.get(i));
+	}
+
+	/**
+	 * Applies the specified batch of messages after all of the pending messages, which are older.
+	 * 
+	 * @param messages
+	 *            messages in ascending key order
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void update(MessageBuffer<K> messages) throws IOException {
+		flush();
+		super.update(messages);
+	}
+
+	/**
+	 * Applies all of the pending messages and then rebalances the {@code LeafNode}s that have fallen below the minimum
+	 * occupancy due to relaxed deletions, including those caused by the pending delete messages.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void rebalance() throws IOException {
+		flush();
+		super.rebalance();
+	}
+
+	/**
+	 * Performs a step of the ongoing compaction pass. If the step has shrunk the tree to a single {@code LeafNode},
+	 * the messages taken from the former root {@code Node} are applied.
+	 * 
+	 * @param fillFactor
+	 *            the fraction of the capacity of each {@code Node} up to which the compaction pass fills the
+	 *            {@code Node}
+	 * @return {@code false} if the compaction pass has no more {@code Node}s to repack; {@code true} otherwise
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code BufferedBPlusTree} is attempted to be deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected boolean compact(double fillFactor) throws InvalidDeletionException, IOException {
+		boolean more = super.compact(fillFactor);
+		while (orphans != null) {
+			MessageBuffer<K> messages = orphans;
+			orphans = null;
+			apply(messages);
+		}
+		return more;
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the keys and pointers in the specified range after applying all of the pending
+	 * messages.
+	 * 
+	 * @param from
+	 *            the key at which the scan begins; {@code null} if unbounded
+	 * @param fromInclusive
+	 *            {@code true} if the key at which the scan begins is to be included
+	 * @param to
+	 *            the key at which the scan ends; {@code null} if unbounded
+	 * @param toInclusive
+	 *            {@code true} if the key at which the scan ends is to be included
+	 * @param descending
+	 *            {@code true} if the keys are to be visited in descending order
+	 * @return an {@code Iterator} over the keys and pointers in the specified range
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected Iterator<Map.Entry<K, P>> scan(K from, boolean fromInclusive, K to, boolean toInclusive,
+			boolean descending) throws IOException {
+		flush();
+		return super.scan(from, fromInclusive, to, toInclusive, descending);
+	}
+
+	/**
+	 * Adds the specified message for the specified key to the buffer of the root {@code NonLeafNode}, flushing the
+	 * buffer if it becomes full. The key of an insert or upsert message is added to the {@code BloomFilter} right
+	 * away. The {@code BloomFilter} is rebuilt for the deletions only here, after the flushes, since a rebuild while
+	 * flushed messages are being applied would miss the keys of those messages.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param kind
+	 *            the kind of the message
+	 * @param p
+	 *            the pointer carried by the message
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void enqueue(K k, MessageBuffer.Kind kind, P p) throws IOException {
+		if (filter != null && kind != MessageBuffer.Kind.DELETE)
+			addToFilter(k);
+		BufferedNonLeafNode<K> r = (BufferedNonLeafNode<K>) root;
+		messages(r).put(k, kind, p);
+		while (r.messages != null && r.messages.size() >= bufferCapacity)
+			flush(r);
+		if (filter != null && filterDeletions > filter.count() / 2) // if too many keys in the filter are stale
+			setBloomFilter(true, filterRate);
+	}
+
+	/**
+	 * Is invoked after the message for the specified key has changed a {@code LeafNode}. Only counts a deletion for
+	 * the {@code BloomFilter}, which {@link #enqueue(Comparable, MessageBuffer.Kind, Object)} rebuilds if necessary,
+	 * since other messages may be in flight.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param kind
+	 *            {@code INSERT} if the key has been inserted, {@code UPSERT} if its pointer has been replaced, and
+	 *            {@code DELETE} if it has been deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void applied(K k, MessageBuffer.Kind kind) throws IOException {
+		if (filter != null && kind == MessageBuffer.Kind.DELETE)
+			filterDeletions++;
+		else
+			super.applied(k, kind);
+	}
+
+	/**
+	 * Collects the keys that the {@code BloomFilter} must cover, i.e., the keys in the {@code LeafNode}s and the keys
+	 * of the pending insert and upsert messages.
+	 * 
+	 * @param keys
+	 *            the list to which the keys are added
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void collectKeys(ArrayList<K> keys) throws IOException {
+		super.collectKeys(keys);
+		collectKeys(root, keys);
+		if (orphans != null)
+			collectKeys(orphans, keys);
+	}
+
+	/**
+	 * Collects the keys of the pending insert and upsert messages in the subtree under the specified {@code Node}.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @param keys
+	 *            the list to which the keys are added
+	 */
+	protected void collectKeys(Node<K> n, ArrayList<K> keys) {
+		if (!(n instanceof NonLeafNode))
+			return;
+		BufferedNonLeafNode<K> node = (BufferedNonLeafNode<K>) n;
+		if (node.messages != null)
+			collectKeys(node.messages, keys);
+		for (int i = 0; i <= node.keyCount(); i++)
+			collectKeys(node.<Node<K>>pointer(i), keys);
+	}
+
+	/**
+	 * Collects the keys of the insert and upsert messages in the specified {@code MessageBuffer}.
+	 * 
+	 * @param messages
+	 *            a {@code MessageBuffer}
+	 * @param keys
+	 *            the list to which the keys are added
+	 */
+	protected void collectKeys(MessageBuffer<K> messages, ArrayList<K> keys) {
+		for (int i = 0; i < messages.size(); i++)
+			if (messages.kind(i) != MessageBuffer.Kind.DELETE)
+				keys.add(messages.key(i));
+	}
+
+	/**
+	 * Flushes, from the buffer of the specified {@code NonLeafNode}, the messages destined for the child that receives
+	 * the most messages, leaving the other messages buffered. Since the buffer is sorted by key, these messages form a
+	 * contiguous range that is found by splitting the buffer at the keys of the {@code NonLeafNode}. If the child is a
+	 * {@code NonLeafNode}, the range is merged into its buffer (which is in turn flushed until it is no longer full);
+	 * otherwise, the messages are applied to the {@code LeafNode}s.
+	 * 
+	 * @param node
+	 *            a {@code NonLeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void flush(BufferedNonLeafNode<K> node) throws IOException {
+		MessageBuffer<K> messages = node.messages;
+		int c = 0, low = 0, high = 0;
+		for (int i = 0, from = 0; i <= node.keyCount(); i++) {
+			int to = i < node.keyCount() ? messages.lowerBound(node.key(i), from, messages.size()) : messages.size();
+			if (to - from > high - low) {
+				c = i;
+				low = from;
+				high = to;
+			}
+			from = to;
+		}
+		if (node.pointer(c) instanceof NonLeafNode) {
+			BufferedNonLeafNode<K> n = node.pointer(c);
+			messages(n).putAll(messages, low, high); // messages from the parent are newer than those in the child
+			messages.remove(low, high);
+			while (n.messages != null && n.messages.size() >= bufferCapacity)
+				flush(n);
+			return;
+		}
+		MessageBuffer<K> batch = new MessageBuffer<K>();
+		batch.putAll(messages, low, high);
+		messages.remove(low, high); // structural changes below must not see the messages being flushed
+		apply(batch);
+		while (orphans != null) { // messages from a former root are newer than those just applied
+			MessageBuffer<K> o = orphans;
+			orphans = null;
+			apply(o);
+		}
+	}
+
+	/**
+	 * Splits the specified full {@code NonLeafNode} and moves the messages destined for the second half to the
+	 * buffer of the new {@code NonLeafNode}.
+	 * 
+	 * @param p
+	 *            a full {@code NonLeafNode}
+	 * @param k
+	 *            a key
+	 * @param np
+	 *            a {@code Node}
+	 * @param n
+	 *            the child of {@code p} after which the key and {@code np} are inserted
+	 * @param pp
+	 *            an empty {@code NonLeafNode} to which the second half is moved
+	 * @return the middle key, which separates {@code p} and {@code pp}
+	 */
+	@Override
+	protected K split(NonLeafNode<K> p, K k, Node<K> np, Node<K> n, NonLeafNode<K> pp) {
+		K middle = super.split(p, k, np, n, pp);
+		move(p, middle, null, pp);
+		return middle;
+	}
+
+	/**
+	 * Merges the specified {@code NonLeafNode}s together with their buffers.
+	 * 
+	 * @param np
+	 *            a {@code NonLeafNode}
+	 * @param kp
+	 *            a key
+	 * @param n
+	 *            a {@code NonLeafNode}
+	 */
+	@Override
+	protected void merge(NonLeafNode<K> np, K kp, NonLeafNode<K> n) {
+		super.merge(np, kp, n);
+		move(n, null, null, np);
+	}
+
+	/**
+	 * Moves pointers and the keys between them from the first specified {@code NonLeafNode} to the second specified
+	 * {@code NonLeafNode} (see {@link #redistributionCount(Node, Node)}) together with the messages destined for
+	 * the subtrees under the moved pointers.
+	 * 
+	 * @param np
+	 *            a {@code NonLeafNode} from which keys and pointers are removed
+	 * @param kp
+	 *            the key between the specified {@code NonLeafNode}s
+	 * @param n
+	 *            a {@code NonLeafNode} to which keys and pointers are added
+	 * @param parent
+	 *            a {@code NonLeafNode} that is the parent of the specified {@code NonLeafNode}s.
+	 */
+	@Override
+	protected void redistributeRightNonLeaf(NonLeafNode<K> np, K kp, NonLeafNode<K> n, NonLeafNode<K> parent) {
+		super.redistributeRightNonLeaf(np, kp, n, parent);
+		move(np, parent.key(parent.indexOf(np)), null, n);
+	}
+
+	/**
+	 * Moves pointers and the keys between them from the second specified {@code NonLeafNode} to the first specified
+	 * {@code NonLeafNode} (see {@link #redistributionCount(Node, Node)}) together with the messages destined for
+	 * the subtrees under the moved pointers.
+	 * 
+	 * @param n
+	 *            a {@code NonLeafNode} to which keys and pointers are added
+	 * @param kp
+	 *            the key between the specified {@code NonLeafNode}s
+	 * @param np
+	 *            a {@code NonLeafNode} from which keys and pointers are removed
+	 * @param parent
+	 *            a {@code NonLeafNode} that is the parent of the specified {@code NonLeafNode}s.
+	 */
+	@Override
+	protected void redistributeLeftNonLeaf(NonLeafNode<K> n, K kp, NonLeafNode<K> np, NonLeafNode<K> parent) {
+		super.redistributeLeftNonLeaf(n, kp, np, parent);
+		move(np, null, parent.key(parent.indexOf(n)), n);
+	}
+
+	/**
+	 * Moves the messages for the keys in the specified range from the buffer of the first specified
+	 * {@code NonLeafNode} to the buffer of the second specified {@code NonLeafNode}, whose subtree has received the
+	 * keys in that range from a compaction step.
+	 * 
+	 * @param from
+	 *            the {@code NonLeafNode} from whose subtree the keys have been moved
+	 * @param to
+	 *            the {@code NonLeafNode} to whose subtree the keys have been moved
+	 * @param low
+	 *            the lower end of the range, inclusive
+	 * @param high
+	 *            the upper end of the range, exclusive
+	 */
+	@Override
+	protected void moved(NonLeafNode<K> from, NonLeafNode<K> to, K low, K high) {
+		move(from, low, high, to);
+	}
+
+	/**
+	 * Saves the specified {@code Node} as the new root {@code Node}. If the current root {@code Node} is being
+	 * replaced by its only child, the messages in its buffer are handed over to that child.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected void setRoot(Node<K> n) throws IOException {
+		if (root instanceof NonLeafNode && root.keyCount() == 0 && root.pointer(0) == n) {
+			BufferedNonLeafNode<K> r = (BufferedNonLeafNode<K>) root;
+			if (r.messages != null && !r.messages.isEmpty()) {
+				if (n instanceof NonLeafNode)
+					move(r, null, null, (NonLeafNode<K>) n);
+				else { // the messages are applied once the current operation completes
+					if (orphans == null)
+						orphans = new MessageBuffer<K>();
+					move(r, null, null, orphans);
+				}
+			}
+		}
+		super.setRoot(n);
+	}
+
+	/**
+	 * Moves the messages for the keys in the specified range from the buffer of the first specified
+	 * {@code NonLeafNode} to the buffer of the second specified {@code NonLeafNode}. The moved messages must be newer
+	 * than those in the buffer of the second {@code NonLeafNode}.
+	 * 
+	 * @param from
+	 *            a {@code NonLeafNode} from which messages are removed
+	 * @param low
+	 *            the lower end of the range, inclusive; {@code null} if unbounded
+	 * @param high
+	 *            the upper end of the range, exclusive; {@code null} if unbounded
+	 * @param to
+	 *            a {@code NonLeafNode} to which messages are added
+	 */
+	protected void move(NonLeafNode<K> from, K low, K high, NonLeafNode<K> to) {
+		MessageBuffer<K> b = ((BufferedNonLeafNode<K>) from).messages;
+		if (b != null && !b.isEmpty())
+			move(from, low, high, messages(to));
+	}
+
+	/**
+	 * Moves the messages for the keys in the specified range from the buffer of the specified {@code NonLeafNode} to
+	 * the specified buffer. The moved messages must be newer than those in the buffer.
+	 * 
+	 * @param from
+	 *            a {@code NonLeafNode} from which messages are removed
+	 * @param low
+	 *            the lower end of the range, inclusive; {@code null} if unbounded
+	 * @param high
+	 *            the upper end of the range, exclusive; {@code null} if unbounded
+	 * @param buffer
+	 *            a buffer
+	 */
+	protected void move(NonLeafNode<K> from, K low, K high, MessageBuffer<K> buffer) {
+		MessageBuffer<K> b = ((BufferedNonLeafNode<K>) from).messages;
+		if (b == null)
+			return;
+		int i = low == null ? 0 : b.lowerBound(low), j = b.lowerBound(high);
+		if (i < j) {
+			buffer.putAll(b, i, j);
+			b.remove(i, j);
+		}
+	}
+
+	/**
+	 * Returns the buffer of the specified {@code NonLeafNode}, creating it if necessary.
+	 * 
+	 * @param node
+	 *            a {@code NonLeafNode}
+	 * @return the buffer of the specified {@code NonLeafNode}
+	 */
+	protected MessageBuffer<K> messages(NonLeafNode<K> node) {
+		BufferedNonLeafNode<K> n = (BufferedNonLeafNode<K>) node;
+		if (n.messages == null)
+			n.messages = new MessageBuffer<K>();
+		return n.messages;
+	}
+
+	/**
+	 * Creates an empty {@code BufferedNonLeafNode}.
+	 * 
+	 * @return an empty {@code BufferedNonLeafNode}
+	 */
+	@Override
+	protected NonLeafNode<K> createNonLeafNode() {
+		return new BufferedNonLeafNode<K>(degree);
+	}
+
+	/**
+	 * Removes the messages from the buffers in the subtree under the specified {@code Node} and collects them level
+	 * by level.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @param level
+	 *            the level of the {@code Node}
+	 * @param levels
+	 *            a {@code List} to which the messages at each level are added
+	 */
+	protected void collect(Node<K> n, int level, List<MessageBuffer<K>> levels) {
+		if (!(n instanceof NonLeafNode))
+			return;
+		BufferedNonLeafNode<K> node = (BufferedNonLeafNode<K>) n;
+		if (levels.size() == level)
+			levels.add(new MessageBuffer<K>());
+		if (node.messages != null) { // the NonLeafNodes at each level are visited in ascending key order
+			levels.get(level).putAll(node.messages, 0, node.messages.size());
+			node.messages = null;
+		}
+		for (int i = 0; i <= node.keyCount(); i++)
+			collect(node.pointer(i), level + 1, levels);
+	}
+
+	/**
+	 * Returns the number of messages pending in the buffers in the subtree under the specified {@code Node}.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @return the number of messages pending in the buffers in the subtree under the specified {@code Node}
+	 */
+	protected int pendingMessages(Node<K> n) {
+		if (!(n instanceof NonLeafNode))
+			return 0;
+		BufferedNonLeafNode<K> node = (BufferedNonLeafNode<K>) n;
+		int count = node.messages == null ? 0 : node.messages.size();
+		for (int i = 0; i <= node.keyCount(); i++)
+			count += pendingMessages(node.pointer(i));
+		return count;
+	}
+
+}
@@ -0,0 +1,44 @@
+package bptree;
+
+/**
+ * The {@code BufferedNonLeafNode} class implements {@code NonLeafNode}s that buffer pending messages for the subtrees
+ * under their children (see {@code BufferedBPlusTree}).
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ */
+public class BufferedNonLeafNode<K extends Comparable<K>> extends NonLeafNode<K> {
+
+	/**
+	 * An automatically generated serial version UID.
+	 */
+	private static final long serialVersionUID = 8382920966906676708L;
+
+	/**
+	 * The messages buffered in this {@code BufferedNonLeafNode} for the subtrees under its children; {@code null} if
+	 * no buffer has been created since this {@code BufferedNonLeafNode} was constructed or cleared.
+	 */
+	protected MessageBuffer<K> messages;
+
+	/**
+	 * Constructs a {@code BufferedNonLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BufferedNonLeafNode}
+	 */
+	public BufferedNonLeafNode(int degree) {
+		super(degree);
+	}
+
+	/**
+	 * Clears this {@code BufferedNonLeafNode}, discarding its buffer.
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		messages = null;
+	}
+
+}
@@ -0,0 +1,439 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@code CachingBPlusTree} class places a bounded read-through cache in front of a {@code BPlusTree}. The cache
+ * maps recently (or frequently) searched keys to their pointers, so that a search for a hot key is answered by a
+ * single hash probe instead of a descent from the root. Insertions, deletions, and upserts made through the
+ * {@code CachingBPlusTree} keep the cache exact: a deleted key is evicted and an upserted key has its cached pointer
+ * replaced. Keys that are not in the {@code BPlusTree} (or whose pointers are {@code null}) are never cached. The
+ * underlying {@code BPlusTree} must not be updated directly while it is wrapped by a {@code CachingBPlusTree}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class CachingBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K, P> {
+
+	/**
+	 * The {@code Policy} enum lists the policies for deciding which keys the cache keeps.
+	 */
+	public enum Policy {
+
+		/**
+		 * Every searched key is cached and the least recently used key is evicted when the cache is full.
+		 */
+		LRU,
+
+		/**
+		 * The least recently used key is evicted only if the searched key has been searched more often than the
+		 * evicted key (according to a small frequency sketch that is halved periodically); otherwise, the searched
+		 * key is not cached, so that one-off searches cannot flush out the hot keys.
+		 */
+		TINY_LFU
+	}
+
+	/**
+	 * The largest value of each counter in the frequency sketch.
+	 */
+	protected static final int MAX_FREQUENCY = 15;
+
+	/**
+	 * The multipliers that derive the four counters of each key in the frequency sketch.
+	 */
+	protected static final int[] SEEDS = { 0x9E3779B9, 0x7FEB352D, 0x846CA68B, 0xC2B2AE35 };
+
+	/**
+	 * The underlying {@code BPlusTree}.
+	 */
+	protected BPlusTree<K, P> tree;
+
+	/**
+	 * The maximum number of keys in the cache.
+	 */
+	protected int capacity;
+
+	/**
+	 * The policy for deciding which keys the cache keeps.
+	 */
+	protected Policy policy;
+
+	/**
+	 * The cache that maps keys to their pointers, from the least recently used to the most recently used.
+	 */
+	protected LinkedHashMap<K, P> cache;
+
+	/**
+	 * The counters of the frequency sketch ({@code null} unless the policy is {@link Policy#TINY_LFU}).
+	 */
+	protected byte[] frequencies;
+
+	/**
+	 * The number of searches recorded in the frequency sketch since it was last halved.
+	 */
+	protected int samples;
+
+	/**
+	 * The number of searches answered by the cache.
+	 */
+	protected long hits;
+
+	/**
+	 * The number of searches not answered by the cache.
+	 */
+	protected long misses;
+
+	/**
+	 * Constructs a {@code CachingBPlusTree}.
+	 * 
+	 * @param tree
+	 *            the underlying {@code BPlusTree}
+	 * @param capacity
+	 *            the maximum number of keys in the cache
+	 * @param policy
+	 *            the policy for deciding which keys the cache keeps
+	 */
+	public CachingBPlusTree(BPlusTree<K, P> tree, int capacity, Policy policy) {
+		super(tree.degree(), tree.leafDegree());
+		if (capacity < 1)
+			throw new IllegalArgumentException("cache capacity: " + capacity);
+		this.tree = tree;
+		this.capacity = capacity;
+		this.policy = policy;
+		this.cache = new LinkedHashMap<K, P>(capacity * 4 / 3 + 1, 0.75f, true);
+		if (policy == Policy.TINY_LFU)
+			frequencies = new byte[Integer.highestOneBit(Math.max(capacity * 4, 16) - 1) << 1];
+	}
+
+	/**
+	 * Returns the underlying {@code BPlusTree}.
+	 * 
+	 * @return the underlying {@code BPlusTree}
+	 */
+	public BPlusTree<K, P> tree() {
+		return tree;
+	}
+
+	/**
+	 * Returns the number of keys in the cache.
+	 * 
+	 * @return the number of keys in the cache
+	 */
+	public int cacheSize() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns the maximum number of keys in the cache.
+	 * 
+	 * @return the maximum number of keys in the cache
+	 */
+	public int cacheCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of searches answered by the cache.
+	 * 
+	 * @return the number of searches answered by the cache
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of searches not answered by the cache.
+	 * 
+	 * @return the number of searches not answered by the cache
+	 */
+	public long misses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the fraction of the searches answered by the cache.
+	 * 
+	 * @return the fraction of the searches answered by the cache; 0 if no search has been made
+	 */
+	public double hitRate() {
+		long n = hits + misses;
+		return n == 0 ? 0 : (double) hits / n;
+	}
+
+	/**
+	 * Removes all of the keys from the cache and resets the hit and miss counts.
+	 */
+	public void clearCache() {
+		cache.clear();
+		if (frequencies != null)
+			Arrays.fill(frequencies, (byte) 0);
+		samples = 0;
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Returns the root {@code Node} of the underlying {@code BPlusTree}.
+	 * 
+	 * @return the root {@code Node} of the underlying {@code BPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public Node<K> root() throws IOException {
+		return tree.root();
+	}
+
+	/**
+	 * Returns the specified child {@code Node} of the specified {@code NonLeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code NonLeafNode}
+	 * @param i
+	 *            the index of the child {@code Node}
+	 * @return the specified child {@code Node} of the specified {@code NonLeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public Node<K> child(NonLeafNode<K> node, int i) throws IOException {
+		return tree.child(node, i);
+	}
+
+	/**
+	 * Returns the {@code LeafNode} that succeeds the specified {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @return the {@code LeafNode} that succeeds the specified {@code LeafNode}; {@code null} if no such
+	 *         {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public LeafNode<K, P> successor(LeafNode<K, P> node) throws IOException {
+		return tree.successor(node);
+	}
+
+	/**
+	 * Returns the {@code LeafNode} that precedes the specified {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @return the {@code LeafNode} that precedes the specified {@code LeafNode}; {@code null} if no such
+	 *         {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public LeafNode<K, P> predecessor(LeafNode<K, P> node) throws IOException {
+		return tree.predecessor(node);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into the underlying {@code BPlusTree}. The cache is not affected since
+	 * only keys in the underlying {@code BPlusTree} are cached.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code CachingBPlusTree} is attempted to be inserted again
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		tree.insert(k, p);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into the underlying {@code BPlusTree}, replacing the pointer currently
+	 * associated with the key if any (also in the cache).
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void upsert(K k, P p) throws IOException {
+		tree.upsert(k, p);
+		if (p == null)
+			cache.remove(k);
+		else
+			cache.replace(k, p);
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from the underlying {@code BPlusTree} and the cache.
+	 * 
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code CachingBPlusTree} is attempted to be deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void delete(K k) throws InvalidDeletionException, IOException {
+		tree.delete(k);
+		cache.remove(k);
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key, from the cache if possible.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the key is not in this
+	 *         {@code CachingBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public P search(K k) throws IOException {
+		if (frequencies != null)
+			record(k);
+		P p = cache.get(k);
+		if (p != null) {
+			hits++;
+			return p;
+		}
+		misses++;
+		p = tree.search(k);
+		if (p != null)
+			admit(k, p);
+		return p;
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the keys and pointers of the underlying {@code BPlusTree} in the specified
+	 * range, bypassing the cache.
+	 * 
+	 * @param from
+	 *            the key at which the scan begins; {@code null} if unbounded
+	 * @param fromInclusive
+	 *            {@code true} if the key at which the scan begins is to be included
+	 * @param to
+	 *            the key at which the scan ends; {@code null} if unbounded
+	 * @param toInclusive
+	 *            {@code true} if the key at which the scan ends is to be included
+	 * @param descending
+	 *            {@code true} if the keys are to be visited in descending order
+	 * @return an {@code Iterator} over the keys and pointers in the specified range
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected Iterator<Map.Entry<K, P>> scan(K from, boolean fromInclusive, K to, boolean toInclusive,
+			boolean descending) throws IOException {
+		return tree.scan(from, fromInclusive, to, toInclusive, descending);
+	}
+
+	/**
+	 * Puts the specified key and pointer into the cache, evicting the least recently used key if the cache is full
+	 * (under the {@link Policy#TINY_LFU} policy, only if the specified key is more frequent than that key).
+	 * 
+	 * @param k
+	 *            a key found in the underlying {@code BPlusTree}
+	 * @param p
+	 *            the pointer associated with the key
+	 */
+	protected void admit(K k, P p) {
+		if (cache.size() >= capacity) {
+			Iterator<K> i = cache.keySet().iterator(); // from the least recently used
+			K victim = i.next();
+			if (frequencies != null && frequency(k) <= frequency(victim))
+				return;
+			i.remove();
+		}
+		cache.put(k, p);
+	}
+
+	/**
+	 * Records a search for the specified key in the frequency sketch, halving all of the counters once the number of
+	 * recorded searches reaches ten times the capacity of the cache.
+	 * 
+	 * @param k
+	 *            a search key
+	 */
+	protected void record(K k) {
+		int h = spread(k.hashCode());
+		int f = frequency(h);
+		if (f < MAX_FREQUENCY)
+			for (int j = 0; j < 4; j++) { // only the smallest counters are incremented (conservative update)
+				int i = index(h, j);
+				if (frequencies[i] == f)
+					frequencies[i]++;
+			}
+		if (++samples >= capacity * 10) {
+			for (int i = 0; i < frequencies.length; i++)
+				frequencies[i] >>= 1;
+			samples /= 2;
+		}
+	}
+
+	/**
+	 * Returns the estimated number of recent searches for the specified key.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the estimated number of recent searches for the specified key
+	 */
+	protected int frequency(K k) {
+		return frequency(spread(k.hashCode()));
+	}
+
+	/**
+	 * Returns the smallest of the counters for the specified hash code in the frequency sketch.
+	 * 
+	 * @param h
+	 *            a spread hash code
+	 * @return the smallest of the counters for the specified hash code
+	 */
+	protected int frequency(int h) {
+		int f = MAX_FREQUENCY;
+		for (int j = 0; j < 4; j++)
+			f = Math.min(f, frequencies[index(h, j)]);
+		return f;
+	}
+
+	/**
+	 * Returns the index of the specified counter for the specified hash code in the frequency sketch.
+	 * 
+	 * @param h
+	 *            a spread hash code
+	 * @param j
+	 *            the number of the counter (0 to 3)
+	 * @return the index of the specified counter for the specified hash code
+	 */
+	protected int index(int h, int j) {
+		h *= SEEDS[j];
+		return (h ^ (h >>> 16)) & (frequencies.length - 1);
+	}
+
+	/**
+	 * Spreads the bits of the specified hash code.
+	 * 
+	 * @param h
+	 *            a hash code
+	 * @return the spread hash code
+	 */
+	protected static int spread(int h) {
+		h *= 0x85EBCA6B;
+		return h ^ (h >>> 15);
+	}
+
+}
@@ -0,0 +1,46 @@
+package bptree;
+
+/**
+ * The {@code CountingNonLeafNode} class implements {@code NonLeafNode}s that keep the number of keys in the subtree
+ * under each of their children (see {@code OrderStatisticBPlusTree}).
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ */
+public class CountingNonLeafNode<K extends Comparable<K>> extends NonLeafNode<K> {
+
+	/**
+	 * An automatically generated serial version UID.
+	 */
+	private static final long serialVersionUID = 62546896097676134L;
+
+	/**
+	 * The number of keys in the subtree under each child of this {@code CountingNonLeafNode}.
+	 */
+	protected int[] counts;
+
+	/**
+	 * Constructs a {@code CountingNonLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code CountingNonLeafNode}
+	 */
+	public CountingNonLeafNode(int degree) {
+		super(degree);
+		counts = new int[degree];
+	}
+
+	/**
+	 * Returns the number of keys in the subtree under the specified child of this {@code CountingNonLeafNode}.
+	 * 
+	 * @param i
+	 *            the index of the child
+	 * @return the number of keys in the subtree under the specified child of this {@code CountingNonLeafNode}
+	 */
+	public int count(int i) {
+		return counts[i];
+	}
+
+}
@@ -0,0 +1,48 @@
+package bptree;
+
+/**
+ * The {@code DeltaBPlusTree} class implements B+-trees whose {@code Long} keys are stored in {@code DeltaLeafNode}s,
+ * which encode the keys of each {@code LeafNode} as fixed-width differences from the smallest key. This reduces the
+ * memory footprint of {@code LeafNode}s considerably when keys are closely spaced (e.g., timestamps).
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <P>
+ *            the type of pointers
+ */
+public class DeltaBPlusTree<P> extends InMemoryBPlusTree<Long, P> {
+
+	/**
+	 * Constructs a {@code DeltaBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code DeltaBPlusTree} can have
+	 */
+	public DeltaBPlusTree(int degree) {
+		super(degree);
+	}
+
+	/**
+	 * Constructs a {@code DeltaBPlusTree} whose {@code LeafNode}s and {@code NonLeafNode}s have different degrees.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code NonLeafNode} of this {@code DeltaBPlusTree} can have
+	 * @param leafDegree
+	 *            the maximum number of pointers (including the pointer to the next {@code LeafNode}) that each
+	 *            {@code LeafNode} of this {@code DeltaBPlusTree} can have
+	 */
+	public DeltaBPlusTree(int degree, int leafDegree) {
+		super(degree, leafDegree);
+	}
+
+	/**
+	 * Creates an empty {@code DeltaLeafNode}.
+	 * 
+	 * @return an empty {@code DeltaLeafNode}
+	 */
+	@Override
+	protected LeafNode<Long, P> createLeafNode() {
+		return new DeltaLeafNode<P>(leafDegree);
+	}
+
+}
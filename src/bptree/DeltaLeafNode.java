@@ -0,0 +1,329 @@
+package bptree;
+
+/**
+ * The {@code DeltaLeafNode} class implements {@code LeafNode}s that store their {@code Long} keys in a
+ * frame-of-reference encoding: the smallest key (the base) followed by the differences between the keys and the base,
+ * each packed into the same number of bits (the width). For closely spaced keys (e.g., timestamps), a key takes only a
+ * few bits instead of a reference to a boxed {@code Long}. Keys are searched directly on the encoded form, and each
+ * insertion or deletion re-encodes only the {@code DeltaLeafNode} that it modifies. Key fingerprints are not
+ * maintained since encoded keys are compared without dereferencing boxed keys.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <P>
+ *            the type of pointers
+ */
+public class DeltaLeafNode<P> extends LeafNode<Long, P> {
+
+	/**
+	 * An automatically generated serial version UID.
+	 */
+	private static final long serialVersionUID = -2715826094637410584L;
+
+	/**
+	 * An empty array of words.
+	 */
+	protected static final long[] EMPTY = new long[0];
+
+	/**
+	 * The smallest key in this {@code DeltaLeafNode}.
+	 */
+	protected long base;
+
+	/**
+	 * The number of bits used for the difference between each key and the base.
+	 */
+	protected int width;
+
+	/**
+	 * The differences between the keys and the base, packed into {@code long}s.
+	 */
+	protected long[] words = EMPTY;
+
+	/**
+	 * Constructs a {@code DeltaLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code DeltaLeafNode}
+	 */
+	public DeltaLeafNode(int degree) {
+		super(degree);
+		keys = null; // the keys are encoded in words
+	}
+
+	/**
+	 * Returns the number of bits used for the difference between each key and the smallest key.
+	 * 
+	 * @return the number of bits used for the difference between each key and the smallest key
+	 */
+	public int width() {
+		return width;
+	}
+
+	/**
+	 * Returns the key at the specified index.
+	 * 
+	 * @param i
+	 *            the index of the key
+	 * @return the key at the specified index; {@code null} if there is no such key
+	 */
+	@Override
+	public Long key(int i) {
+		return i < keyCount ? base + delta(i) : null;
+	}
+
+	/**
+	 * Inserts the specified key and pointer at the specified index.
+	 * 
+	 * @param i
+	 *            the index at which the key and pointer are inserted
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 */
+	@Override
+	public void insert(int i, Long k, P p) {
+		long[] a = decode(keyCount + 1);
+		System.arraycopy(a, i, a, i + 1, keyCount - i);
+		a[i] = k;
+		System.arraycopy(pointers, i, pointers, i + 1, keyCount - i);
+		pointers[i] = p;
+		keyCount++;
+		encode(a);
+	}
+
+	/**
+	 * Removes a key and a pointer at the specified index.
+	 * 
+	 * @param i
+	 *            the index at which the key and pointer are deleted
+	 */
+	@Override
+	public void delete(int i) {
+		long[] a = decode(keyCount);
+		System.arraycopy(a, i + 1, a, i, keyCount - 1 - i);
+		System.arraycopy(pointers, i + 1, pointers, i, keyCount - 1 - i);
+		pointers[keyCount - 1] = null;
+		keyCount--;
+		encode(a);
+	}
+
+	/**
+	 * Moves the keys and pointers of this {@code DeltaLeafNode} from the specified index onward to the end of the
+	 * specified {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode} that has room for the keys and pointers
+	 * @param beginIndex
+	 *            the index of the first key to move
+	 */
+	@Override
+	public void moveTo(LeafNode<Long, P> node, int beginIndex) {
+		long[] a = decode(keyCount);
+		node.append(this, beginIndex, keyCount - 1);
+		for (int i = beginIndex; i < keyCount; i++)
+			pointers[i] = null;
+		keyCount = beginIndex;
+		encode(a);
+	}
+
+	/**
+	 * Moves the last specified number of keys and pointers of this {@code DeltaLeafNode} to the beginning of the
+	 * specified {@code DeltaLeafNode}, re-encoding both {@code DeltaLeafNode}s once.
+	 * 
+	 * @param node
+	 *            a {@code DeltaLeafNode} that has room for the keys and pointers
+	 * @param s
+	 *            the number of keys and pointers to move
+	 */
+	@Override
+	public void shiftRight(LeafNode<Long, P> node, int s) {
+		DeltaLeafNode<P> d = (DeltaLeafNode<P>) node;
+		long[] a = decode(keyCount);
+		long[] b = d.decode(d.keyCount + s);
+		System.arraycopy(b, 0, b, s, d.keyCount);
+		System.arraycopy(a, keyCount - s, b, 0, s);
+		System.arraycopy(d.pointers, 0, d.pointers, s, d.keyCount);
+		System.arraycopy(pointers, keyCount - s, d.pointers, 0, s);
+		d.keyCount += s;
+		for (int i = keyCount - s; i < keyCount; i++)
+			pointers[i] = null;
+		keyCount -= s;
+		encode(a);
+		d.encode(b);
+	}
+
+	/**
+	 * Moves the first specified number of keys and pointers of the specified {@code DeltaLeafNode} to the end of this
+	 * {@code DeltaLeafNode}, re-encoding both {@code DeltaLeafNode}s once.
+	 * 
+	 * @param node
+	 *            a {@code DeltaLeafNode}
+	 * @param s
+	 *            the number of keys and pointers to move
+	 */
+	@Override
+	public void shiftLeft(LeafNode<Long, P> node, int s) {
+		DeltaLeafNode<P> d = (DeltaLeafNode<P>) node;
+		long[] b = d.decode(d.keyCount);
+		append(d, 0, s - 1);
+		int r = d.keyCount - s;
+		System.arraycopy(b, s, b, 0, r);
+		System.arraycopy(d.pointers, s, d.pointers, 0, r);
+		for (int i = r; i < d.keyCount; i++)
+			d.pointers[i] = null;
+		d.keyCount = r;
+		d.encode(b);
+	}
+
+	/**
+	 * Appends the specified keys and their pointers of the specified {@code Node} into this {@code DeltaLeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code Node}
+	 * @param beginIndex
+	 *            the beginning index of the keys, inclusive
+	 * @param endIndex
+	 *            the ending index of the keys, inclusive
+	 */
+	@Override
+	public void append(Node<Long> node, int beginIndex, int endIndex) {
+		long[] a = decode(keyCount + endIndex - beginIndex + 1);
+		for (int i = beginIndex; i <= endIndex; i++) {
+			a[keyCount] = node.key(i);
+			pointers[keyCount] = node.pointer(i);
+			keyCount++;
+		}
+		encode(a);
+	}
+
+	/**
+	 * Clears this {@code DeltaLeafNode}.
+	 */
+	@Override
+	public void clear() {
+		keyCount = 0;
+		for (int i = 0; i < pointers.length; i++)
+			pointers[i] = null;
+		base = 0;
+		width = 0;
+		words = EMPTY;
+		keysChanged();
+	}
+
+	/**
+	 * Ignores the request since a {@code DeltaLeafNode} does not maintain key fingerprints.
+	 * 
+	 * @param enabled
+	 *            {@code true} to maintain fingerprints; {@code false} otherwise
+	 */
+	@Override
+	public void setFingerprints(boolean enabled) {
+	}
+
+	/**
+	 * Returns the index of the specified key in this {@code DeltaLeafNode}.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the index of the specified key in this {@code DeltaLeafNode}; -1 if the key is not in this
+	 *         {@code DeltaLeafNode}
+	 */
+	@Override
+	public int indexOf(Long k) {
+		int i = lowerBound(k);
+		return i < keyCount && delta(i) == k - base ? i : -1;
+	}
+
+	/**
+	 * Returns the largest index i such that keys[i] < the given key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the largest index i such that keys[i] < the given key; -1 if there is no such i
+	 */
+	@Override
+	protected int findIndexL(Long key) {
+		return lowerBound(key) - 1;
+	}
+
+	/**
+	 * Returns the number of keys in this {@code DeltaLeafNode} that are smaller than the specified key, using binary
+	 * search on the encoded differences.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the number of keys in this {@code DeltaLeafNode} that are smaller than the specified key
+	 */
+	protected int lowerBound(long k) {
+		if (keyCount == 0 || k <= base)
+			return 0;
+		long d = k - base; // positive when regarded as unsigned
+		int lo = 0, hi = keyCount;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (Long.compareUnsigned(delta(mid), d) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the difference between the key at the specified index and the base.
+	 * 
+	 * @param i
+	 *            the index of a key
+	 * @return the difference between the key at the specified index and the base
+	 */
+	protected long delta(int i) {
+		if (width == 0)
+			return 0;
+		long bit = (long) i * width;
+		int w = (int) (bit >>> 6);
+		int offset = (int) (bit & 63);
+		long d = words[w] >>> offset;
+		if (offset + width > 64)
+			d |= words[w + 1] << (64 - offset);
+		return width == 64 ? d : d & ((1L << width) - 1);
+	}
+
+	/**
+	 * Returns the keys of this {@code DeltaLeafNode} in an array of the specified length.
+	 * 
+	 * @param length
+	 *            the length of the array
+	 * @return the keys of this {@code DeltaLeafNode} in an array of the specified length
+	 */
+	protected long[] decode(int length) {
+		long[] a = new long[length];
+		for (int i = 0; i < keyCount; i++)
+			a[i] = base + delta(i);
+		return a;
+	}
+
+	/**
+	 * Encodes the first {@code keyCount} of the specified keys into this {@code DeltaLeafNode}.
+	 * 
+	 * @param a
+	 *            keys in ascending order
+	 */
+	protected void encode(long[] a) {
+		base = keyCount == 0 ? 0 : a[0];
+		width = keyCount == 0 ? 0 : 64 - Long.numberOfLeadingZeros(a[keyCount - 1] - base);
+		words = width == 0 ? EMPTY : new long[(int) (((long) keyCount * width + 63) >>> 6)];
+		for (int i = 0; i < keyCount && width > 0; i++) {
+			long d = a[i] - base;
+			long bit = (long) i * width;
+			int w = (int) (bit >>> 6);
+			int offset = (int) (bit & 63);
+			words[w] |= d << offset;
+			if (offset + width > 64)
+				words[w + 1] |= d >>> (64 - offset);
+		}
+		keysChanged();
+	}
+
+}
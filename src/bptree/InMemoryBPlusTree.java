@@ -1,6 +1,8 @@
 package bptree;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,91 +18,1299 @@ import java.util.Map;
  */
 public class InMemoryBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K, P> {
 
+	/**
+	 * The maximum number of released {@code Node}s of each kind that an {@code InMemoryBPlusTree} keeps for reuse.
+	 */
+	protected static final int RECYCLER_CAPACITY = 64;
+
 	/**
 	 * The root {@code Node} of this {@code InMemoryBPlusTree}.
 	 */
-	Node<K> root;
+	Node<K> root;
+
+	/**
+	 * The number of structural changes (splits, merges, redistributions, and changes of the root {@code Node}) made
+	 * to this {@code InMemoryBPlusTree}. A cached path from the root {@code Node} remains valid while this number is
+	 * unchanged.
+	 */
+	protected long version;
+
+	/**
+	 * The rightmost {@code LeafNode} of this {@code InMemoryBPlusTree} (valid only if {@link #rightmostVersion} equals
+	 * {@link #version}).
+	 */
+	protected LeafNode<K, P> rightmost;
+
+	/**
+	 * The {@code NonLeafNode}s on the path from the root {@code Node} to the rightmost {@code LeafNode}.
+	 */
+	protected ArrayList<NonLeafNode<K>> rightmostPath = new ArrayList<NonLeafNode<K>>();
+
+	/**
+	 * The {@link #version} at which the rightmost {@code LeafNode} and its path were found.
+	 */
+	protected long rightmostVersion = -1;
+
+	/**
+	 * A flag indicating whether or not {@code Node}s on the rightmost path are being split due to a key larger than
+	 * all of the other keys.
+	 */
+	protected boolean appending;
+
+	/**
+	 * A flag indicating whether or not the {@code LeafNode}s of this {@code InMemoryBPlusTree} maintain the
+	 * fingerprints of their keys.
+	 */
+	protected boolean leafFingerprints;
+
+	/**
+	 * The {@code BloomFilter} over the keys of this {@code InMemoryBPlusTree}; {@code null} if disabled.
+	 */
+	protected BloomFilter filter;
+
+	/**
+	 * The false positive rate of the {@code BloomFilter} over the keys of this {@code InMemoryBPlusTree}.
+	 */
+	protected double filterRate;
+
+	/**
+	 * The number of keys deleted since the {@code BloomFilter} was last rebuilt.
+	 */
+	protected int filterDeletions;
+
+	/**
+	 * The strategy for searching the keys within each {@code Node} of this {@code InMemoryBPlusTree}; {@code null} if
+	 * the keys are scanned linearly.
+	 */
+	protected KeySearch keySearch;
+
+	/**
+	 * A flag indicating whether or not a redistribution evens out the two sibling {@code Node}s instead of moving a
+	 * single entry.
+	 */
+	protected boolean balancedRedistribution;
+
+	/**
+	 * A flag indicating whether or not deletions leave under-utilized {@code LeafNode}s as they are until
+	 * {@link #rebalance()} is invoked.
+	 */
+	protected boolean relaxedDeletion;
+
+	/**
+	 * The fraction of the capacity of a {@code LeafNode} below which {@link #rebalance()} merges the {@code LeafNode}
+	 * with a sibling or moves entries from a sibling to it.
+	 */
+	protected double minOccupancy = 0.5;
+
+	/**
+	 * The {@code LeafNode}s that have fallen below the minimum occupancy due to relaxed deletions, each associated with
+	 * the last key deleted from it.
+	 */
+	protected HashMap<LeafNode<K, P>, K> underflows = new HashMap<LeafNode<K, P>, K>();
+
+	/**
+	 * A flag indicating whether or not a full {@code LeafNode} shifts entries into an adjacent sibling, or is split
+	 * together with a full sibling into three {@code LeafNode}s, instead of being split in two.
+	 */
+	protected boolean siblingOverflow;
+
+	/**
+	 * The level (0 for the {@code LeafNode}s) that the ongoing compaction pass repacks; -1 if no compaction pass is in
+	 * progress.
+	 */
+	protected int compactionLevel = -1;
+
+	/**
+	 * A key within the range of the {@code Node} that the ongoing compaction pass repacks next; {@code null} if the
+	 * compaction pass continues from the first {@code Node} of the level.
+	 */
+	protected K compactionCursor;
+
+	/**
+	 * The number of entries that the next redistribution moves on behalf of a compaction step; 0 if the next
+	 * redistribution is not part of a compaction step.
+	 */
+	protected int compactionShift;
+
+	/**
+	 * A flag indicating whether or not searches start from the finger (i.e., the path to the last accessed
+	 * {@code LeafNode}) rather than from the root {@code Node}.
+	 */
+	protected boolean fingerEnabled;
+
+	/**
+	 * The {@code Node}s on the path from the root {@code Node} to the last accessed {@code LeafNode}.
+	 */
+	protected ArrayList<Node<K>> finger = new ArrayList<Node<K>>();
+
+	/**
+	 * The smallest key that each {@code Node} in the finger can be responsible for; {@code null} if unbounded.
+	 */
+	protected ArrayList<K> fingerLows = new ArrayList<K>();
+
+	/**
+	 * The key above the largest key that each {@code Node} in the finger can be responsible for; {@code null} if
+	 * unbounded.
+	 */
+	protected ArrayList<K> fingerHighs = new ArrayList<K>();
+
+	/**
+	 * The {@link #version} at which the finger was recorded.
+	 */
+	protected long fingerVersion = -1;
+
+	/**
+	 * The {@code LeafNode}s of this {@code InMemoryBPlusTree} in ascending key order when it was last frozen;
+	 * {@code null} if never frozen.
+	 */
+	protected LeafNode<K, P>[] frozenLeaves;
+
+	/**
+	 * The keys between the frozen {@code LeafNode}s laid out as an implicit search tree: block {@code b} holds keys
+	 * {@code b * (degree - 1)} to {@code (b + 1) * (degree - 1) - 1} and its children are blocks
+	 * {@code b * degree + 1} to {@code b * degree + degree} ({@code null} stands for a key larger than all keys).
+	 */
+	protected Object[] frozenKeys;
+
+	/**
+	 * The keys in {@link #frozenKeys} packed into {@code long}s; {@code null} unless the keys are {@code Integer}s or
+	 * {@code Long}s.
+	 */
+	protected long[] frozenPackedKeys;
+
+	/**
+	 * The number of keys not larger than each key in {@link #frozenKeys} (i.e., the position of the frozen
+	 * {@code LeafNode} that starts at the key).
+	 */
+	protected int[] frozenRanks;
+
+	/**
+	 * The {@link #version} at which this {@code InMemoryBPlusTree} was frozen.
+	 */
+	protected long frozenVersion = -1;
+
+	/**
+	 * The {@code LeafNode}s released by merges and kept for reuse.
+	 */
+	protected ArrayDeque<LeafNode<K, P>> releasedLeafNodes = new ArrayDeque<LeafNode<K, P>>();
+
+	/**
+	 * The {@code NonLeafNode}s released by merges and kept for reuse.
+	 */
+	protected ArrayDeque<NonLeafNode<K>> releasedNonLeafNodes = new ArrayDeque<NonLeafNode<K>>();
+
+	/**
+	 * Constructs a {@code InMemoryBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code InMemoryBPlusTree} can have
+	 */
+	public InMemoryBPlusTree(int degree) {
+		super(degree);
+	}
+
+	/**
+	 * Constructs a {@code InMemoryBPlusTree} whose {@code LeafNode}s and {@code NonLeafNode}s have different degrees.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code NonLeafNode} of this {@code InMemoryBPlusTree} can
+	 *            have
+	 * @param leafDegree
+	 *            the maximum number of pointers (including the pointer to the next {@code LeafNode}) that each
+	 *            {@code LeafNode} of this {@code InMemoryBPlusTree} can have
+	 */
+	public InMemoryBPlusTree(int degree, int leafDegree) {
+		super(degree, leafDegree);
+	}
+
+	/**
+	 * Returns the root {@code Node} of this {@code InMemoryBPlusTree}.
+	 * 
+	 * @return the root {@code Node} of this {@code InMemoryBPlusTree}; {@code null} if this {@code InMemoryBPlusTree}
+	 *         is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public Node<K> root() throws IOException {
+		return root;
+	}
+
+	/**
+	 * Returns the specified child {@code Node} of the specified {@code NonLeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code NonLeafNode}
+	 * @param i
+	 *            the index of the child {@code Node}
+	 * @return the specified child {@code Node} of the specified {@code NonLeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public Node<K> child(NonLeafNode<K> node, int i) throws IOException {
+		return node.pointer(i);
+	}
+
+	/**
+	 * Returns the {@code LeafNode} that succeeds the specified {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @return the {@code LeafNode} that succeeds the specified {@code LeafNode}; {@code null} if no such
+	 *         {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public LeafNode<K, P> successor(LeafNode<K, P> node) throws IOException {
+		return node.successor();
+	}
+
+	/**
+	 * Returns the {@code LeafNode} that precedes the specified {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @return the {@code LeafNode} that precedes the specified {@code LeafNode}; {@code null} if no such
+	 *         {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public LeafNode<K, P> predecessor(LeafNode<K, P> node) throws IOException {
+		return node.predecessor();
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code InMemoryBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code InMemoryBPlusTree} is attempted to be inserted again in the
+	 *             {@code InMemoryBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		boolean present = filter == null || filter.mightContain(k); // false if k is definitely not in the tree
+		if (filter != null)
+			addToFilter(k);
+		if (root == null) {// if the tree is empty
+			LeafNode<K, P> l = newLeafNode(); // create an empty root node
+			l.insert(k, p); // insert the specified key and pointer into leaf node l
+			setRoot(l); // register node l as the new root
+		} else { // if the tree is not empty
+			LeafNode<K, P> l = rightmostLeaf();
+			if (l.keyCount() > 0 && k.compareTo(l.key(l.keyCount() - 1)) > 0) { // if k is larger than all keys
+				if (!l.isFull())
+					l.insert(l.keyCount(), k, p); // append k without descending from the root
+				else {
+					HashMap<Node<K>, NonLeafNode<K>> node2parent = new HashMap<Node<K>, NonLeafNode<K>>();
+					for (int i = 0; i < rightmostPath.size(); i++)
+						node2parent.put(i + 1 < rightmostPath.size() ? rightmostPath.get(i + 1) : l,
+								rightmostPath.get(i));
+					split(l, k, p, node2parent);
+				}
+				return;
+			}
+			HashMap<Node<K>, NonLeafNode<K>> node2parent = new HashMap<Node<K>, NonLeafNode<K>>();
+			// to remember the parent of each visited node
+			l = find(k, root, node2parent); // find leaf node l that should contain the specified key
+			if (present && l.contains(k)) // no duplicate keys are allowed in the tree
+				throw new InvalidInsertionException("key: " + k);
+			if (!l.isFull()) { // if leaf node l has room for the specified key
+				l.insert(k, p); // insert the specified key and pointer into leaf node l
+			} else { // if leaf node l is full and thus needs to be split
+				split(l, k, p, node2parent);
+			}
+		}
+	}
+
+	/**
+	 * Splits the specified full {@code LeafNode} while inserting the specified key and pointer. If the key is to be
+	 * appended to the rightmost {@code LeafNode}, the {@code LeafNode} is kept full and only the new key and pointer
+	 * are moved to the new {@code LeafNode} (i.e., a 100/0 split instead of a 50/50 split), so that ascending
+	 * insertions do not leave half-full {@code LeafNode}s behind.
+	 * 
+	 * @param l
+	 *            a full {@code LeafNode}
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @param node2parent
+	 *            a {@code Map} remembering, for each {@code Node} on the path to the {@code LeafNode}, the parent of
+	 *            that {@code Node}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void split(LeafNode<K, P> l, K k, P p, Map<Node<K>, NonLeafNode<K>> node2parent) throws IOException {
+		int i = l.findIndexL(k) + 1; // the index of the key among all of the keys
+		boolean append = i == l.keyCount() && successor(l) == null;
+		if (siblingOverflow && !append && node2parent.get(l) != null) {
+			overflow(l, i, k, p, node2parent);
+			return;
+		}
+		LeafNode<K, P> lp = newLeafNode(); // create a new leaf node lp
+		if (append) // if the key is larger than all of the keys in the tree
+			lp.insert(0, k, p); // keep leaf node l full
+		else {
+			int m = (int) Math.ceil(leafDegree / 2.0); // compute the split point
+			if (i < m) { // if the key belongs to the first half
+				l.moveTo(lp, m - 1); // move the second half to leaf node lp
+				l.insert(i, k, p);
+			} else {
+				l.moveTo(lp, m); // move the second half to leaf node lp
+				lp.insert(i - m, k, p);
+			}
+		}
+		lp.setSuccessor(l.setSuccessor(lp)); // chaining from l to lp and from lp to the next leaf node
+		lp.setPredecessor(l); // chaining from leaf node lp back to leaf node l
+		LeafNode<K, P> s = lp.successor();
+		if (s != null)
+			s.setPredecessor(lp); // chaining from the next leaf node back to leaf node lp
+		appending = append;
+		try {
+			insertInParent(l, lp.key(0), lp, node2parent); // use lp's first key as the separating key
+		} finally {
+			appending = false;
+		}
+	}
+
+	/**
+	 * Inserts the specified key and pointer into the specified full {@code LeafNode} in the manner of B*-trees: entries
+	 * are shifted into an adjacent sibling under the same parent if that sibling is not full; otherwise, the
+	 * {@code LeafNode} and a full sibling are split into three {@code LeafNode}s.
+	 * 
+	 * @param l
+	 *            a full {@code LeafNode} other than the root {@code Node}
+	 * @param i
+	 *            the index at which the key would be inserted into the {@code LeafNode}
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @param node2parent
+	 *            a {@code Map} remembering, for each {@code Node} on the path to the {@code LeafNode}, the parent of
+	 *            that {@code Node}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void overflow(LeafNode<K, P> l, int i, K k, P p, Map<Node<K>, NonLeafNode<K>> node2parent)
+			throws IOException {
+		NonLeafNode<K> parent = node2parent.get(l);
+		int index = parent.indexOf(l);
+		LeafNode<K, P> left = index > 0 ? parent.pointer(index - 1) : null;
+		LeafNode<K, P> right = index < parent.keyCount() ? parent.pointer(index + 1) : null;
+		if (right != null && !right.isFull()) {
+			version++; // the key between l and right changes
+			int m = (l.keyCount() + right.keyCount() + 2) / 2; // the number of keys to keep in l
+			if (i < m) { // if the key stays in l
+				l.shiftRight(right, l.keyCount() + 1 - m);
+				l.insert(i, k, p);
+			} else {
+				if (l.keyCount() > m)
+					l.shiftRight(right, l.keyCount() - m);
+				right.insert(i - m, k, p);
+			}
+			parent.changeKey(l, right, right.key(0));
+			refresh(parent);
+		} else if (left != null && !left.isFull()) {
+			version++; // the key between left and l changes
+			int s = (l.keyCount() + 1 - left.keyCount()) / 2; // the number of keys to move to left
+			if (i < s) { // if the key moves to left
+				if (s > 1)
+					left.shiftLeft(l, s - 1);
+				left.insert(left.keyCount() - (s - 1) + i, k, p);
+			} else {
+				left.shiftLeft(l, s);
+				l.insert(i - s, k, p);
+			}
+			parent.changeKey(left, l, l.key(0));
+			refresh(parent);
+		} else if (right != null) {
+			node2parent.put(right, parent);
+			split(l, right, i, k, p, node2parent);
+		} else {
+			node2parent.put(left, parent);
+			split(left, l, left.keyCount() + i, k, p, node2parent);
+		}
+	}
+
+	/**
+	 * Splits the specified full adjacent {@code LeafNode}s into three {@code LeafNode}s while inserting the specified
+	 * key and pointer, so that each of the three {@code LeafNode}s is about two thirds full.
+	 * 
+	 * @param a
+	 *            a full {@code LeafNode}
+	 * @param b
+	 *            the full {@code LeafNode} that follows {@code a} under the same parent
+	 * @param i
+	 *            the index of the key among the keys of both {@code LeafNode}s
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @param node2parent
+	 *            a {@code Map} remembering, for each {@code Node} on the path to the {@code LeafNode}s, the parent of
+	 *            that {@code Node}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void split(LeafNode<K, P> a, LeafNode<K, P> b, int i, K k, P p,
+			Map<Node<K>, NonLeafNode<K>> node2parent) throws IOException {
+		int c = a.keyCount(); // the capacity of each LeafNode
+		int n = 2 * c + 1;
+		int m1 = (n + 2) / 3, m2 = m1 + (n + 1) / 3; // the ends of the first and second LeafNodes after the split
+		LeafNode<K, P> ap = newLeafNode(); // the new LeafNode between a and b
+		a.moveTo(ap, i < m1 ? m1 - 1 : m1);
+		ap.shiftLeft(b, (i < m2 ? m2 - 1 : m2) - c);
+		if (i < m1)
+			a.insert(i, k, p);
+		else if (i < m2)
+			ap.insert(i - m1, k, p);
+		else
+			b.insert(i - m2, k, p);
+		ap.setSuccessor(a.setSuccessor(ap)); // chaining from a to ap and from ap to b
+		ap.setPredecessor(a);
+		b.setPredecessor(ap);
+		node2parent.get(a).changeKey(a, b, b.key(0));
+		insertInParent(a, ap.key(0), ap, node2parent);
+	}
+
+	/**
+	 * Returns the rightmost {@code LeafNode} of this {@code InMemoryBPlusTree}, following the rightmost path from the
+	 * root {@code Node} only if the structure of this {@code InMemoryBPlusTree} has changed since the last call.
+	 * 
+	 * @return the rightmost {@code LeafNode} of this {@code InMemoryBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, P> rightmostLeaf() throws IOException {
+		if (rightmostVersion != version || rightmost == null) {
+			rightmostPath.clear();
+			Node<K> n = root;
+			for (; n instanceof NonLeafNode; n = child((NonLeafNode<K>) n, n.keyCount()))
+				rightmostPath.add((NonLeafNode<K>) n);
+			rightmost = (LeafNode<K, P>) n;
+			rightmostVersion = version;
+		}
+		return rightmost;
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key. If the {@code BloomFilter} is enabled and reports that
+	 * the key is definitely not in this {@code InMemoryBPlusTree}, no descent is made.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the key is not in this
+	 *         {@code InMemoryBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public P search(K k) throws IOException {
+		if (filter != null && !filter.mightContain(k))
+			return null;
+		return super.search(k);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code InMemoryBPlusTree}, replacing the pointer currently
+	 * associated with the key if any.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void upsert(K k, P p) throws IOException {
+		LeafNode<K, P> l = findLeaf(k);
+		int i = l == null ? -1 : l.indexOf(k);
+		if (i >= 0)
+			l.pointers[i] = p; // replace the pointer in place
+		else
+			try {
+				insert(k, p);
+			} catch (InvalidInsertionException e) {
+				throw new IllegalStateException(e); // cannot happen
+			}
+	}
+
+	/**
+	 * Applies the specified batch of messages to this {@code InMemoryBPlusTree} (see {@link #apply(MessageBuffer)}).
+	 * Subclasses that hold their own pending updates override this method so that the batch takes effect after them.
+	 * 
+	 * @param messages
+	 *            messages in ascending key order
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void update(MessageBuffer<K> messages) throws IOException {
+		apply(messages);
+	}
+
+	/**
+	 * Applies the specified messages, in ascending key order, to the {@code LeafNode}s responsible for their keys.
+	 * Each {@code LeafNode} is located by a single descent from the root {@code Node}, after which all of the
+	 * messages for that {@code LeafNode} are merged into it until a structural change occurs.
+	 * 
+	 * @param messages
+	 *            messages
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected void apply(MessageBuffer<K> messages) throws IOException {
+		int i = 0;
+		while (i < messages.size()) {
+			if (root == null) { // if the tree has become empty
+				if (messages.kind(i) != MessageBuffer.Kind.DELETE) {
+					LeafNode<K, P> l = newLeafNode();
+					l.insert(messages.key(i), messages.<P>pointer(i));
+					setRoot(l);
+					applied(messages.key(i), MessageBuffer.Kind.INSERT);
+				}
+				i++;
+				continue;
+			}
+			HashMap<Node<K>, NonLeafNode<K>> node2parent = new HashMap<Node<K>, NonLeafNode<K>>();
+			K high = null; // the smallest key larger than the keys that the LeafNode is responsible for
+			Node<K> n = root;
+			while (n instanceof NonLeafNode) {
+				NonLeafNode<K> p = (NonLeafNode<K>) n;
+				int c = p.childIndex(messages.key(i));
+				if (c < p.keyCount())
+					high = p.key(c);
+				n = p.pointer(c);
+				node2parent.put(n, p);
+			}
+			i = apply((LeafNode<K, P>) n, high, messages, i, node2parent);
+		}
+	}
+
+	/**
+	 * Merges the specified message and the following messages for keys smaller than the specified key into the
+	 * specified {@code LeafNode}, stopping after a structural change since the remaining messages may then belong to
+	 * another {@code LeafNode}.
+	 * 
+	 * @param l
+	 *            a {@code LeafNode}
+	 * @param high
+	 *            the smallest key larger than the keys that the {@code LeafNode} is responsible for; {@code null} if
+	 *            unbounded
+	 * @param messages
+	 *            messages
+	 * @param i
+	 *            the index of the first message to apply
+	 * @param node2parent
+	 *            a {@code Map} remembering, for each {@code Node} on the path to the {@code LeafNode}, the parent of
+	 *            that {@code Node}
+	 * @return the index of the first message not applied
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected int apply(LeafNode<K, P> l, K high, MessageBuffer<K> messages, int i,
+			Map<Node<K>, NonLeafNode<K>> node2parent) throws IOException {
+		long v = version;
+		int j = 0; // the keys of the LeafNode before this index are smaller than the key of the current message
+		do {
+			K k = messages.key(i);
+			MessageBuffer.Kind kind = messages.kind(i);
+			j = lowerBound(l, j, k);
+			boolean found = j < l.keyCount() && l.key(j).compareTo(k) == 0;
+			if (kind == MessageBuffer.Kind.DELETE) {
+				if (found)
+					try {
+						delete(l, k, node2parent);
+						applied(k, MessageBuffer.Kind.DELETE);
+					} catch (InvalidDeletionException x) {
+						throw new IllegalStateException(x); // cannot happen
+					}
+			} else if (found) {
+				if (kind == MessageBuffer.Kind.UPSERT) {
+					l.pointers[j] = messages.pointer(i); // a blind write replaces the current pointer
+					applied(k, MessageBuffer.Kind.UPSERT);
+				}
+			} else {
+				if (l.isFull())
+					split(l, k, messages.<P>pointer(i), node2parent);
+				else
+					l.insert(j, k, messages.<P>pointer(i));
+				applied(k, MessageBuffer.Kind.INSERT);
+			}
+			i++;
+		} while (i < messages.size() && version == v && (high == null || messages.key(i).compareTo(high) < 0));
+		return i;
+	}
+
+	/**
+	 * Returns the smallest index, not smaller than the specified index, at which the key of the specified
+	 * {@code LeafNode} is not smaller than the specified key. The index is found by galloping from the specified
+	 * index, so that consecutive messages of a batch are merged into a {@code LeafNode} with a few comparisons each.
+	 * 
+	 * @param l
+	 *            a {@code LeafNode}
+	 * @param from
+	 *            the index from which to search
+	 * @param k
+	 *            a key
+	 * @return the smallest index, not smaller than the specified index, at which the key of the specified
+	 *         {@code LeafNode} is not smaller than the specified key ({@code l.keyCount()} if no such index)
+	 */
+	protected int lowerBound(LeafNode<K, P> l, int from, K k) {
+		int lo = from, step = 1;
+		while (lo < l.keyCount() && l.key(lo).compareTo(k) < 0) {
+			from = lo + 1;
+			lo += step;
+			step <<= 1;
+		}
+		int hi = Math.min(lo, l.keyCount());
+		lo = from; // the key at from - 1 is smaller than the specified key
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (l.key(mid).compareTo(k) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Is invoked after the message for the specified key has changed a {@code LeafNode} in
+	 * {@link #apply(MessageBuffer)}. Keeps the {@code BloomFilter} up to date if enabled; subclasses that maintain
+	 * information about the keys on each path override this method.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param kind
+	 *            {@code INSERT} if the key has been inserted, {@code UPSERT} if its pointer has been replaced, and
+	 *            {@code DELETE} if it has been deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void applied(K k, MessageBuffer.Kind kind) throws IOException {
+		if (filter == null)
+			return;
+		if (kind == MessageBuffer.Kind.INSERT)
+			addToFilter(k);
+		else if (kind == MessageBuffer.Kind.DELETE && ++filterDeletions > filter.count() / 2) // if too many stale keys
+			setBloomFilter(true, filterRate);
+	}
+
+	/**
+	 * Enables or disables the one-byte key fingerprints in the {@code LeafNode}s of this {@code InMemoryBPlusTree}.
+	 * With fingerprints, exact-match probes (e.g., duplicate checks and deletions) compare full keys only when
+	 * fingerprints match, which pays off for keys that are expensive to compare (e.g., long {@code String}s). Requires
+	 * keys whose {@code hashCode} is consistent with {@code compareTo}.
+	 * 
+	 * @param enabled
+	 *            {@code true} to enable fingerprints; {@code false} to disable them
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void setLeafFingerprints(boolean enabled) throws IOException {
+		leafFingerprints = enabled;
+		for (LeafNode<K, P> l = firstLeaf(); l != null; l = successor(l))
+			l.setFingerprints(enabled);
+	}
+
+	/**
+	 * Enables or disables the {@code BloomFilter} over the keys of this {@code InMemoryBPlusTree}. With the
+	 * {@code BloomFilter}, searches, deletions, and the duplicate checks of insertions for most keys that are not in
+	 * this {@code InMemoryBPlusTree} are answered without descending from the root {@code Node} or scanning a
+	 * {@code LeafNode}. The {@code BloomFilter} is rebuilt from the {@code LeafNode}s when its number of keys exceeds
+	 * its capacity or when the keys deleted since it was built make up more than half of its keys. Requires keys whose
+	 * {@code hashCode} is consistent with {@code compareTo}.
+	 * 
+	 * @param enabled
+	 *            {@code true} to enable the {@code BloomFilter}; {@code false} to disable it
+	 * @param falsePositiveRate
+	 *            the fraction of the keys not in this {@code InMemoryBPlusTree} for which a descent is made anyway
+	 *            (between 0 and 1, exclusive)
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void setBloomFilter(boolean enabled, double falsePositiveRate) throws IOException {
+		if (!enabled) {
+			filter = null;
+			return;
+		}
+		ArrayList<K> keys = new ArrayList<K>();
+		collectKeys(keys);
+		filter = new BloomFilter(Math.max(2 * keys.size(), 64), falsePositiveRate);
+		filterRate = falsePositiveRate;
+		filterDeletions = 0;
+		for (K k : keys)
+			filter.add(k);
+	}
+
+	/**
+	 * Collects the keys that the {@code BloomFilter} must cover, i.e., the keys in the {@code LeafNode}s of this
+	 * {@code InMemoryBPlusTree}. Subclasses that hold keys outside the {@code LeafNode}s override this method.
+	 * 
+	 * @param keys
+	 *            the list to which the keys are added
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void collectKeys(ArrayList<K> keys) throws IOException {
+		for (LeafNode<K, P> l = firstLeaf(); l != null; l = successor(l))
+			for (int i = 0; i < l.keyCount(); i++)
+				keys.add(l.key(i));
+	}
+
+	/**
+	 * Adds the specified key to the {@code BloomFilter} unless the {@code BloomFilter} already covers it, rebuilding
+	 * the {@code BloomFilter} with twice the capacity if it is full.
+	 * 
+	 * @param k
+	 *            a key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void addToFilter(K k) throws IOException {
+		if (filter.mightContain(k)) // adding the key again would set no bits
+			return;
+		if (filter.count() >= filter.capacity())
+			setBloomFilter(true, filterRate); // sized for twice the current number of keys
+		filter.add(k);
+	}
+
+	/**
+	 * Sets the strategy for searching the keys within each {@code Node} of this {@code InMemoryBPlusTree}.
+	 * 
+	 * @param keySearch
+	 *            a {@code KeySearch}; {@code null} if the keys are to be scanned linearly
+	 */
+	public void setKeySearch(KeySearch keySearch) {
+		this.keySearch = keySearch;
+		if (root == null)
+			return;
+		ArrayDeque<Node<K>> nodes = new ArrayDeque<Node<K>>();
+		nodes.add(root);
+		while (!nodes.isEmpty()) {
+			Node<K> n = nodes.poll();
+			n.setKeySearch(keySearch);
+			if (n instanceof NonLeafNode)
+				for (int i = 0; i <= n.keyCount(); i++)
+					nodes.add(n.<Node<K>>pointer(i));
+		}
+	}
+
+	/**
+	 * Enables or disables balanced redistribution. When enabled, an under-utilized {@code Node} that borrows from a
+	 * sibling receives half of the difference between their numbers of entries in one bulk move, instead of a single
+	 * entry that leaves it at the minimum occupancy. This makes the next deletions from that {@code Node} much less
+	 * likely to trigger another redistribution.
+	 * 
+	 * @param enabled
+	 *            {@code true} to enable balanced redistribution; {@code false} to disable it
+	 */
+	public void setBalancedRedistribution(boolean enabled) {
+		balancedRedistribution = enabled;
+	}
+
+	/**
+	 * Enables or disables sibling overflow (B*-tree style splitting). When enabled, an insertion into a full
+	 * {@code LeafNode} first shifts entries into an adjacent sibling under the same parent if that sibling is not full,
+	 * and splits the {@code LeafNode} and a full sibling into three {@code LeafNode}s otherwise. {@code LeafNode}s then
+	 * stay at least about two thirds full instead of half full, which makes the tree smaller and shallower.
+	 * 
+	 * @param enabled
+	 *            {@code true} to enable sibling overflow; {@code false} to disable it
+	 */
+	public void setSiblingOverflow(boolean enabled) {
+		siblingOverflow = enabled;
+	}
+
+	/**
+	 * Enables or disables relaxed deletion. When enabled, a deletion only removes the entry from its {@code LeafNode}
+	 * and remembers the {@code LeafNode} if it falls below the specified minimum occupancy. Under-utilized
+	 * {@code LeafNode}s are merged or refilled later by {@link #rebalance()}, which avoids the merge/split thrashing of
+	 * workloads that insert and delete around the same keys. Disabling relaxed deletion rebalances the
+	 * {@code LeafNode}s remembered so far.
+	 * 
+	 * @param enabled
+	 *            {@code true} to enable relaxed deletion; {@code false} to disable it
+	 * @param minOccupancy
+	 *            the fraction of the capacity of a {@code LeafNode} below which {@link #rebalance()} rebalances the
+	 *            {@code LeafNode} (empty {@code LeafNode}s are always rebalanced)
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void setRelaxedDeletion(boolean enabled, double minOccupancy) throws IOException {
+		this.minOccupancy = minOccupancy;
+		relaxedDeletion = enabled;
+		if (!enabled)
+			rebalance();
+	}
+
+	/**
+	 * Merges each {@code LeafNode} that has fallen below the minimum occupancy due to relaxed deletions with a sibling,
+	 * or evens it out with a sibling if they cannot be merged. {@code NonLeafNode}s affected by the merges are
+	 * rebalanced as usual. Meant to be invoked periodically or when the tree is idle.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void rebalance() throws IOException {
+		if (underflows.isEmpty())
+			return;
+		ArrayList<K> keys = new ArrayList<K>(underflows.values());
+		underflows.clear();
+		boolean balanced = balancedRedistribution;
+		balancedRedistribution = true; // refill each LeafNode in one move rather than by a single entry
+		try {
+			for (K k : keys) {
+				HashMap<Node<K>, NonLeafNode<K>> node2parent = new HashMap<Node<K>, NonLeafNode<K>>();
+				LeafNode<K, P> l = root == null ? null : find(k, root, node2parent);
+				if (l != null && l != root && l.keyCount() < minLeafKeys()) // may have been merged or refilled
+					rebalance(l, node2parent);
+			}
+		} catch (InvalidDeletionException e) {
+			throw new IllegalStateException(e); // cannot happen
+		} finally {
+			balancedRedistribution = balanced;
+		}
+	}
+
+	/**
+	 * Returns the number of keys below which a {@code LeafNode} is rebalanced by {@link #rebalance()}.
+	 * 
+	 * @return the number of keys below which a {@code LeafNode} is rebalanced by {@link #rebalance()}
+	 */
+	protected int minLeafKeys() {
+		return Math.max(1, (int) Math.ceil(minOccupancy * (leafDegree - 1)));
+	}
 
 	/**
-	 * Constructs a {@code InMemoryBPlusTree}.
+	 * Performs up to the specified number of steps of an incremental compaction pass. Each step repacks a {@code Node}
+	 * and the next {@code Node} at the same level: a next sibling under the same parent is merged into the
+	 * {@code Node} if the merged {@code Node} is filled at most up to the specified fill factor; otherwise, entries
+	 * are moved from the next {@code Node} (changing the separating key in their lowest common ancestor) so that the
+	 * {@code Node} is filled up to the fill factor. The next {@code Node} may be left under-utilized until the next
+	 * step repacks it. A compaction pass repacks the {@code LeafNode}s first and then each level of
+	 * {@code NonLeafNode}s below the root {@code Node}, and the height shrinks whenever the root {@code Node} is left
+	 * with a single child. The position of the ongoing compaction pass is remembered as a key, so other operations
+	 * may be interleaved with the steps.
 	 * 
-	 * @param degree
-	 *            the maximum number of pointers that each {@code Node} of this {@code InMemoryBPlusTree} can have
+	 * @param fillFactor
+	 *            the fraction of the capacity of each {@code Node} up to which the compaction pass fills the
+	 *            {@code Node} (between 0.5 and 1)
+	 * @param steps
+	 *            the maximum number of steps to perform
+	 * @return {@code true} if the compaction pass has been completed; {@code false} if it is to be continued by the
+	 *         next invocation of this method
+	 * @throws IOException
+	 *             if an I/O error occurs
 	 */
-	public InMemoryBPlusTree(int degree) {
-		super(degree);
+	public boolean compact(double fillFactor, int steps) throws IOException {
+		if (fillFactor < 0.5 || fillFactor > 1)
+			throw new IllegalArgumentException("fill factor: " + fillFactor);
+		if (compactionLevel < 0) { // start a new compaction pass
+			compactionLevel = 0;
+			compactionCursor = null;
+		}
+		try {
+			for (; steps > 0; steps--)
+				if (!compact(fillFactor)) {
+					compactionLevel = -1;
+					return true;
+				}
+		} catch (InvalidDeletionException e) {
+			throw new IllegalStateException(e); // cannot happen
+		}
+		return false;
 	}
 
 	/**
-	 * Returns the root {@code Node} of this {@code InMemoryBPlusTree}.
+	 * Performs a step of the ongoing compaction pass.
 	 * 
-	 * @return the root {@code Node} of this {@code InMemoryBPlusTree}; {@code null} if this {@code InMemoryBPlusTree}
-	 *         is empty
+	 * @param fillFactor
+	 *            the fraction of the capacity of each {@code Node} up to which the compaction pass fills the
+	 *            {@code Node}
+	 * @return {@code false} if the compaction pass has no more {@code Node}s to repack; {@code true} otherwise
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in a {@code InMemoryBPlusTree} is attempted to be deleted from the
+	 *             {@code InMemoryBPlusTree}
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	@Override
-	public Node<K> root() throws IOException {
-		return root;
+	@SuppressWarnings("unchecked")
+	protected boolean compact(double fillFactor) throws InvalidDeletionException, IOException {
+		int height = 0;
+		for (Node<K> n = root; n instanceof NonLeafNode; n = n.pointer(0))
+			height++;
+		if (compactionLevel >= height) // the root Node is not repacked
+			return false;
+		HashMap<Node<K>, NonLeafNode<K>> node2parent = new HashMap<Node<K>, NonLeafNode<K>>();
+		ArrayList<Node<K>> path = new ArrayList<Node<K>>(); // the path from the root Node to the Node to repack
+		int a = -1; // the index of the lowest Node on the path whose key bounds the range of the parent from above
+		Node<K> n = root;
+		path.add(n);
+		for (int level = height; level > compactionLevel; level--) {
+			NonLeafNode<K> p = (NonLeafNode<K>) n;
+			int i = compactionCursor == null ? 0 : p.childIndex(compactionCursor);
+			if (level > compactionLevel + 1 && i < p.keyCount())
+				a = path.size() - 1;
+			n = p.pointer(i);
+			node2parent.put(n, p);
+			path.add(n);
+		}
+		NonLeafNode<K> parent = node2parent.get(n);
+		int i = parent.indexOf(n);
+		int target = (int) Math.round(fillFactor * (n.degree() - 1)); // the number of keys to fill n with
+		if (i < parent.keyCount()) { // if n has a next sibling r under the same parent
+			Node<K> r = parent.pointer(i + 1);
+			K kp = parent.key(i);
+			if (n.keyCount() + r.keyCount() + (n instanceof LeafNode ? 0 : 1) <= target) {
+				version++; // r will be merged into n, which will then be repacked with its new next sibling
+				merge(n, kp, r, node2parent);
+				return true;
+			}
+			// r may become under-utilized until the next step repacks it
+			int s = Math.min(target - n.keyCount(), r.keyCount() - 1);
+			if (s > 0) {
+				version++; // n will receive entries from r
+				compactionShift = s;
+				try {
+					if (n instanceof LeafNode)
+						redistributeLeftLeaf((LeafNode<K, P>) n, kp, (LeafNode<K, P>) r, parent);
+					else {
+						redistributeLeftNonLeaf((NonLeafNode<K>) n, kp, (NonLeafNode<K>) r, parent);
+						refresh((NonLeafNode<K>) n);
+						refresh((NonLeafNode<K>) r);
+					}
+					refresh(parent);
+				} finally {
+					compactionShift = 0;
+				}
+			}
+			compactionCursor = parent.key(i); // continue with r
+		} else if (a < 0) { // if n is the last Node of the level
+			if (n.isUnderUtilized()) // if n has been left under-utilized by the previous step
+				refill(n, node2parent);
+			compactionLevel++;
+			compactionCursor = null;
+		} else { // move entries from the first Node under the next parent
+			NonLeafNode<K> ancestor = (NonLeafNode<K>) path.get(a);
+			int j = ancestor.indexOf(path.get(a + 1));
+			K high = ancestor.key(j);
+			ArrayList<Node<K>> next = new ArrayList<Node<K>>(); // the path from the ancestor to the Node r
+			next.add(ancestor);
+			for (Node<K> m = ancestor; next.size() < path.size() - a; next.add(m))
+				m = ((NonLeafNode<K>) m).child(high);
+			Node<K> r = next.get(next.size() - 1);
+			int s = Math.min(target - n.keyCount(), r.keyCount() - 1);
+			if (s > 0) {
+				version++; // n will receive entries from r
+				K k;
+				if (n instanceof LeafNode) {
+					((LeafNode<K, P>) n).shiftLeft((LeafNode<K, P>) r, s);
+					k = r.key(0);
+				} else
+					k = ((NonLeafNode<K>) n).shiftLeft((NonLeafNode<K>) r, high, s);
+				ancestor.changeKey(ancestor.pointer(j), ancestor.pointer(j + 1), k);
+				for (int d = path.size() - 1; d > a; d--)
+					if (path.get(d) instanceof NonLeafNode) {
+						NonLeafNode<K> from = (NonLeafNode<K>) next.get(d - a), to = (NonLeafNode<K>) path.get(d);
+						moved(from, to, high, k);
+						refresh(from);
+						refresh(to);
+					}
+				refresh(ancestor);
+				high = k;
+			}
+			if (n.isUnderUtilized()) // if r had too few entries to refill n
+				refill(n, node2parent);
+			compactionCursor = high; // continue with r
+		}
+		return true;
 	}
 
 	/**
-	 * Returns the specified child {@code Node} of the specified {@code NonLeafNode}.
+	 * Merges the specified under-utilized {@code Node} with a sibling or evens it out with a sibling in one move.
 	 * 
-	 * @param node
-	 *            a {@code NonLeafNode}
-	 * @param i
-	 *            the index of the child {@code Node}
-	 * @return the specified child {@code Node} of the specified {@code NonLeafNode}
+	 * @param n
+	 *            an under-utilized {@code Node} other than the root {@code Node}
+	 * @param node2parent
+	 *            a {@code Map} remembering, for each visited {@code Node}, the parent of that {@code Node}
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in a {@code InMemoryBPlusTree} is attempted to be deleted from the
+	 *             {@code InMemoryBPlusTree}
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	@Override
-	public Node<K> child(NonLeafNode<K> node, int i) throws IOException {
-		return node.pointer(i);
+	protected void refill(Node<K> n, Map<Node<K>, NonLeafNode<K>> node2parent)
+			throws InvalidDeletionException, IOException {
+		boolean balanced = balancedRedistribution;
+		balancedRedistribution = true; // refill n in one move rather than by a single entry
+		try {
+			rebalance(n, node2parent);
+		} finally {
+			balancedRedistribution = balanced;
+		}
 	}
 
 	/**
-	 * Inserts the specified key and pointer into this {@code InMemoryBPlusTree}.
+	 * Notifies that the keys in the specified range have been moved from the subtree of the first specified
+	 * {@code NonLeafNode} to the subtree of the second specified {@code NonLeafNode} by a compaction step. Does
+	 * nothing by default; subclasses that keep per-range information in {@code NonLeafNode}s (e.g., buffers) override
+	 * this method.
+	 * 
+	 * @param from
+	 *            the {@code NonLeafNode} from whose subtree the keys have been moved
+	 * @param to
+	 *            the {@code NonLeafNode} to whose subtree the keys have been moved
+	 * @param low
+	 *            the lower end of the range, inclusive
+	 * @param high
+	 *            the upper end of the range, exclusive
+	 */
+	protected void moved(NonLeafNode<K> from, NonLeafNode<K> to, K low, K high) {
+	}
+
+	/**
+	 * Enables or disables finger search. When enabled, each search starts from the lowest {@code Node} on the path to
+	 * the last accessed {@code LeafNode} whose key range covers the search key, which shortens searches for keys
+	 * close to recently accessed ones.
+	 * 
+	 * @param enabled
+	 *            {@code true} to enable finger search; {@code false} to disable it
+	 */
+	public void setFingerSearch(boolean enabled) {
+		fingerEnabled = enabled;
+		resetFinger();
+	}
+
+	/**
+	 * Makes the finger consist of the root {@code Node} only.
+	 */
+	protected void resetFinger() {
+		finger.clear();
+		fingerLows.clear();
+		fingerHighs.clear();
+		finger.add(root);
+		fingerLows.add(null);
+		fingerHighs.add(null);
+		fingerVersion = version;
+	}
+
+	/**
+	 * Determines whether or not the key range of the specified {@code Node} in the finger covers the specified key.
 	 * 
+	 * @param i
+	 *            the index of a {@code Node} in the finger
 	 * @param k
-	 *            the key to insert
-	 * @param p
-	 *            the pointer to insert
-	 * @throws InvalidInsertionException
-	 *             if a key already existent in this {@code InMemoryBPlusTree} is attempted to be inserted again in the
-	 *             {@code InMemoryBPlusTree}
+	 *            a key
+	 * @return {@code true} if the key range of the specified {@code Node} in the finger covers the specified key;
+	 *         {@code false} otherwise
+	 */
+	protected boolean covers(int i, K k) {
+		K low = fingerLows.get(i);
+		K high = fingerHighs.get(i);
+		return (low == null || low.compareTo(k) <= 0) && (high == null || k.compareTo(high) < 0);
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that must be responsible for the specified key, starting from the finger if finger
+	 * search is enabled.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the {@code LeafNode} that must be responsible for the specified key; {@code null} if this
+	 *         {@code InMemoryBPlusTree} is empty
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
 	@Override
-	public void insert(K k, P p) throws InvalidInsertionException, IOException {
-		if (root == null) {// if the tree is empty
-			LeafNode<K, P> l = new LeafNode<K, P>(degree); // create an empty root node
-			l.insert(k, p); // insert the specified key and pointer into leaf node l
-			setRoot(l); // register node l as the new root
-		} else { // if the tree is not empty
-			HashMap<Node<K>, NonLeafNode<K>> node2parent = new HashMap<Node<K>, NonLeafNode<K>>();
-			// to remember the parent of each visited node
-			LeafNode<K, P> l = find(k, root, node2parent); // find leaf node l that should contain the specified key
-			if (l.contains(k)) // no duplicate keys are allowed in the tree
-				throw new InvalidInsertionException("key: " + k);
-			if (!l.isFull()) { // if leaf node l has room for the specified key
-				l.insert(k, p); // insert the specified key and pointer into leaf node l
-			} else { // if leaf node l is full and thus needs to be split
-				LeafNode<K, P> t = new LeafNode<K, P>(degree + 1); // create a temporary leaf node t
-				t.append(l, 0, degree - 2); // copy everything to temporary node t
-				t.insert(k, p); // insert the key and pointer into temporary node t
-				LeafNode<K, P> lp = new LeafNode<K, P>(degree); // create a new leaf node lp
-				lp.setSuccessor(l.successor()); // chaining from lp to the next leaf node
-				l.clear(); // clear leaf node l
-				int m = (int) Math.ceil(degree / 2.0); // compute the split point
-				l.append(t, 0, m - 1); // copy the first half to leaf node l
-				lp.append(t, m, degree - 1); // copy the second half to leaf node lp
-				l.setSuccessor(lp); // chaining from leaf node l to leaf node lp
-				insertInParent(l, lp.key(0), lp, node2parent); // use lp's first key as the separating key
+	protected LeafNode<K, P> findLeaf(K k) throws IOException {
+		if (isFrozen())
+			return frozenLeaves.length == 0 ? null : frozenLeaves[frozenPosition(k)];
+		return fingerEnabled && root != null ? findFromFinger(k, null) : super.findLeaf(k);
+	}
+
+	/**
+	 * Freezes the {@code NonLeafNode}s of this {@code InMemoryBPlusTree} into a single array of keys laid out as an
+	 * implicit search tree in which each block of {@code degree - 1} keys is followed by its children in breadth-first
+	 * order. Searches then compute the position of the next block arithmetically instead of following the
+	 * {@code pointers} of {@code NonLeafNode}s, and {@code Integer} and {@code Long} keys are compared in a packed
+	 * {@code long} array without dereferencing boxed keys. The {@code LeafNode}s remain as they are, so updates that
+	 * do not change the structure of this {@code InMemoryBPlusTree} keep the frozen array valid; after a structural
+	 * change, searches descend from the root {@code Node} again until this method is invoked again.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	public void freeze() throws IOException {
+		ArrayList<LeafNode<K, P>> leaves = new ArrayList<LeafNode<K, P>>();
+		ArrayList<K> lows = new ArrayList<K>();
+		if (root != null)
+			collect(root, null, leaves, lows);
+		int b = degree - 1, n = Math.max(0, lows.size() - 1); // the number of keys in each block and in total
+		int blocks = (n + b - 1) / b;
+		frozenLeaves = leaves.toArray((LeafNode<K, P>[]) new LeafNode<?, ?>[leaves.size()]);
+		frozenKeys = new Object[blocks * b];
+		frozenRanks = new int[blocks * b];
+		freeze(0, lows, 1, blocks);
+		frozenPackedKeys = null;
+		if (n > 0 && (lows.get(1) instanceof Long || lows.get(1) instanceof Integer)) {
+			frozenPackedKeys = new long[frozenKeys.length];
+			for (int i = 0; i < frozenKeys.length; i++)
+				frozenPackedKeys[i] = frozenKeys[i] == null ? Long.MAX_VALUE : ((Number) frozenKeys[i]).longValue();
+		}
+		frozenVersion = version;
+	}
+
+	/**
+	 * Determines whether or not searches use the frozen array (i.e., this {@code InMemoryBPlusTree} has not changed
+	 * structurally since it was last frozen).
+	 * 
+	 * @return {@code true} if searches use the frozen array; {@code false} otherwise
+	 */
+	public boolean isFrozen() {
+		return frozenLeaves != null && frozenVersion == version;
+	}
+
+	/**
+	 * Fills the specified block of the frozen array and its descendants with the specified keys in order.
+	 * 
+	 * @param block
+	 *            a block of the frozen array
+	 * @param lows
+	 *            the smallest key that each {@code LeafNode} is responsible for
+	 * @param next
+	 *            the position of the next key to fill in
+	 * @param blocks
+	 *            the number of blocks in the frozen array
+	 * @return the position of the next key to fill in after the block and its descendants are filled
+	 */
+	protected int freeze(int block, ArrayList<K> lows, int next, int blocks) {
+		if (block >= blocks)
+			return next;
+		int b = degree - 1;
+		for (int i = 0; i <= b; i++) {
+			next = freeze(block * degree + i + 1, lows, next, blocks); // the child before the i-th key
+			if (i < b) {
+				if (next < lows.size())
+					frozenKeys[block * b + i] = lows.get(next);
+				frozenRanks[block * b + i] = next++;
 			}
 		}
+		return next;
+	}
+
+	/**
+	 * Returns the position of the frozen {@code LeafNode} responsible for the specified key. Each step counts the
+	 * keys in the current block that are not larger than the search key, remembers the first key larger than the
+	 * search key, and moves to the child block between the counted keys and the remaining keys.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the position of the frozen {@code LeafNode} responsible for the specified key
+	 */
+	@SuppressWarnings("unchecked")
+	protected int frozenPosition(K k) {
+		int b = degree - 1, blocks = frozenKeys.length / b;
+		int position = frozenLeaves.length - 1; // if no key is larger than k
+		long[] a = frozenPackedKeys;
+		long x = a == null || !(k instanceof Number) ? 0 : ((Number) k).longValue();
+		for (int block = 0; block < blocks;) {
+			int base = block * b, c = 0;
+			if (a != null)
+				for (int i = base; i < base + b; i++) // branch-free counting
+					c += a[i] <= x ? 1 : 0;
+			else
+				while (c < b && frozenKeys[base + c] != null && ((K) frozenKeys[base + c]).compareTo(k) <= 0)
+					c++;
+			if (c < b && frozenRanks[base + c] <= position)
+				position = frozenRanks[base + c] - 1;
+			block = block * degree + c + 1;
+		}
+		return Math.max(position, 0);
+	}
+
+	/**
+	 * Collects the {@code LeafNode}s in the subtree rooted at the specified {@code Node} together with the smallest
+	 * key that each {@code LeafNode} is responsible for.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @param low
+	 *            the smallest key that the {@code Node} is responsible for; {@code null} if unbounded
+	 * @param leaves
+	 *            the list to which the {@code LeafNode}s are added
+	 * @param lows
+	 *            the list to which the smallest keys are added
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected void collect(Node<K> n, K low, ArrayList<LeafNode<K, P>> leaves, ArrayList<K> lows)
+			throws IOException {
+		if (n instanceof LeafNode) {
+			leaves.add((LeafNode<K, P>) n);
+			lows.add(low);
+		} else
+			for (int i = 0; i <= n.keyCount(); i++)
+				collect(child((NonLeafNode<K>) n, i), i == 0 ? low : n.key(i - 1), leaves, lows);
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that must be responsible for the specified key, starting from the lowest
+	 * {@code Node} in the finger whose key range covers the key, and then makes the path to that {@code LeafNode} the
+	 * new finger. The finger is discarded whenever the structure of this {@code InMemoryBPlusTree} has changed since
+	 * it was recorded.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @param node2parent
+	 *            a {@code Map} to remember, for each {@code Node} on the path, the parent of that {@code Node}
+	 *            ({@code null} if not needed)
+	 * @return the {@code LeafNode} that must be responsible for the specified key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, P> findFromFinger(K k, Map<Node<K>, NonLeafNode<K>> node2parent) throws IOException {
+		if (fingerVersion != version || finger.get(0) != root) // if the structure has changed
+			resetFinger();
+		int j = finger.size() - 1;
+		while (j > 0 && !covers(j, k))
+			j--; // move up until the key range covers the key
+		for (int i = finger.size() - 1; i > j; i--) {
+			finger.remove(i);
+			fingerLows.remove(i);
+			fingerHighs.remove(i);
+		}
+		if (node2parent != null)
+			for (int i = 1; i <= j; i++)
+				node2parent.put(finger.get(i), (NonLeafNode<K>) finger.get(i - 1));
+		Node<K> n = finger.get(j);
+		while (n instanceof NonLeafNode) {
+			NonLeafNode<K> p = (NonLeafNode<K>) n;
+			int i = p.childIndex(k);
+			n = child(p, i);
+			if (node2parent != null)
+				node2parent.put(n, p);
+			fingerLows.add(i == 0 ? fingerLows.get(fingerLows.size() - 1) : p.key(i - 1));
+			fingerHighs.add(i == p.keyCount() ? fingerHighs.get(fingerHighs.size() - 1) : p.key(i));
+			finger.add(n);
+		}
+		return (LeafNode<K, P>) n;
 	}
 
 	/**
@@ -121,6 +1331,8 @@ public class InMemoryBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K,
 	@SuppressWarnings("unchecked")
 	protected LeafNode<K, P> find(K k, Node<K> n, Map<Node<K>, NonLeafNode<K>> node2parent)
 			throws IOException {
+		if (fingerEnabled && n == root)
+			return findFromFinger(k, node2parent);
 		if (n instanceof LeafNode)
 			return (LeafNode<K, P>) n;
 		else {
@@ -146,27 +1358,117 @@ public class InMemoryBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K,
 	 */
 	protected void insertInParent(Node<K> n, K k, Node<K> np,
 			Map<Node<K>, NonLeafNode<K>> node2parent) throws IOException {
+		version++;
 		if (n.equals(root)) { // if n is the root of the tree
-			NonLeafNode<K> r = new NonLeafNode<K>(degree, n, k, np);
+			NonLeafNode<K> r = newNonLeafNode();
+			r.pointers[0] = n;
+			r.insert(k, 0, np, 1);
+			refresh(r);
 			setRoot(r); // a new root node r containing n, k, np and register it as the new root
 			return;
 		}
 		NonLeafNode<K> p = node2parent.get(n); // find the parent p of n
 		if (!p.isFull()) { // if parent node p has room for a new entry
 			p.insertAfter(k, np, n); // insert k and np right after n
+			refresh(p);
 		} else { // if p is full and thus needs to be split
-			NonLeafNode<K> t = new NonLeafNode<K>(degree + 1); // crate a temporary node
-			t.copy(p, 0, p.keyCount()); // copy everything of p to the temporary node
-			t.insertAfter(k, np, n); // insert k and np after n
-			p.clear(); // clear p
-			NonLeafNode<K> pp = new NonLeafNode<K>(degree); // create a new node pp
-			int m = (int) Math.ceil((degree + 1) / 2.0); // compute the split point
-			p.copy(t, 0, m - 1); // copy the first half to parent node p
-			pp.copy(t, m, degree); // copy the second half to new node pp
-			insertInParent(p, t.key(m - 1), pp, node2parent); // use the middle key as the separating key
+			NonLeafNode<K> pp = newNonLeafNode(); // create a new node pp
+			K middle = split(p, k, np, n, pp); // insert k and np after n while moving the second half to pp
+			refresh(p);
+			refresh(pp);
+			insertInParent(p, middle, pp, node2parent); // use the middle key as the separating key
 		}
 	}
 
+	/**
+	 * Splits the specified full {@code NonLeafNode} while inserting the specified key and pointer right after the
+	 * specified {@code Node}. If the split is caused by a key larger than all of the other keys, only the last pointer
+	 * of the {@code NonLeafNode} and the new pointer are moved to the new {@code NonLeafNode}.
+	 * 
+	 * @param p
+	 *            a full {@code NonLeafNode}
+	 * @param k
+	 *            a key
+	 * @param np
+	 *            a {@code Node}
+	 * @param n
+	 *            the child of {@code p} after which the key and {@code np} are inserted
+	 * @param pp
+	 *            an empty {@code NonLeafNode} to which the second half is moved
+	 * @return the middle key, which separates {@code p} and {@code pp}
+	 */
+	protected K split(NonLeafNode<K> p, K k, Node<K> np, Node<K> n, NonLeafNode<K> pp) {
+		int m = (int) Math.ceil((degree + 1) / 2.0); // compute the split point
+		if (appending && p.pointer(p.keyCount()) == n) // if appending to the rightmost path
+			m = Math.max(m, degree - 1); // keep p nearly full
+		return p.split(k, np, n, pp, m);
+	}
+
+	/**
+	 * Returns an empty {@code LeafNode}, reusing a {@code LeafNode} released by a merge if possible.
+	 * 
+	 * @return an empty {@code LeafNode}
+	 */
+	protected LeafNode<K, P> newLeafNode() {
+		LeafNode<K, P> l = releasedLeafNodes.poll();
+		if (l == null)
+			l = createLeafNode();
+		l.setFingerprints(leafFingerprints);
+		l.setKeySearch(keySearch);
+		return l;
+	}
+
+	/**
+	 * Creates an empty {@code LeafNode}. Subclasses may override this method to use a different representation of
+	 * {@code LeafNode}s.
+	 * 
+	 * @return an empty {@code LeafNode}
+	 */
+	protected LeafNode<K, P> createLeafNode() {
+		return new LeafNode<K, P>(leafDegree);
+	}
+
+	/**
+	 * Returns an empty {@code NonLeafNode}, reusing a {@code NonLeafNode} released by a merge if possible.
+	 * 
+	 * @return an empty {@code NonLeafNode}
+	 */
+	protected NonLeafNode<K> newNonLeafNode() {
+		NonLeafNode<K> n = releasedNonLeafNodes.poll();
+		if (n == null)
+			n = createNonLeafNode();
+		n.setKeySearch(keySearch);
+		return n;
+	}
+
+	/**
+	 * Creates an empty {@code NonLeafNode}. Subclasses may override this method to keep additional state in
+	 * {@code NonLeafNode}s.
+	 * 
+	 * @return an empty {@code NonLeafNode}
+	 */
+	protected NonLeafNode<K> createNonLeafNode() {
+		return new NonLeafNode<K>(degree);
+	}
+
+	/**
+	 * Releases the specified {@code Node}, which is no longer part of this {@code InMemoryBPlusTree}, so that it can be
+	 * reused by {@link #newLeafNode()} or {@link #newNonLeafNode()}.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 */
+	@SuppressWarnings("unchecked")
+	protected void release(Node<K> n) {
+		n.clear();
+		if (n instanceof LeafNode) {
+			((LeafNode<K, P>) n).setPredecessor(null);
+			if (releasedLeafNodes.size() < RECYCLER_CAPACITY)
+				releasedLeafNodes.add((LeafNode<K, P>) n);
+		} else if (releasedNonLeafNodes.size() < RECYCLER_CAPACITY)
+			releasedNonLeafNodes.add((NonLeafNode<K>) n);
+	}
+
 	/**
 	 * Saves the specified {@code Node} as the new root {@code Node}.
 	 * 
@@ -176,6 +1478,7 @@ public class InMemoryBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K,
 	 *             if an I/O error occurs
 	 */
 	protected void setRoot(Node<K> n) throws IOException {
+		version++;
 		this.root = n;
 	}
 
@@ -193,11 +1496,15 @@ public class InMemoryBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K,
 	@Override
 	public void delete(K k) throws InvalidDeletionException, IOException {
 		// please implement the body of this method
+		if (root == null || filter != null && !filter.mightContain(k)) // nothing can be deleted
+			throw new InvalidDeletionException("key: " + k);
 		HashMap<Node<K>, NonLeafNode<K>> node2parent = new HashMap<Node<K>, NonLeafNode<K>>();
 		Node<K> l = find(k, root, node2parent);
 		// node2parent associates each node on the search path with the parent node of that node
 		if (l != null)
 			delete(l, k, node2parent);
+		if (filter != null && ++filterDeletions > filter.count() / 2) // if too many keys in the filter are stale
+			setBloomFilter(true, filterRate);
 	}
 
 	/**
@@ -215,61 +1522,95 @@ public class InMemoryBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K,
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
+	@SuppressWarnings("unchecked")
 	protected void delete(Node<K> n, K k, Map<Node<K>, NonLeafNode<K>> node2parent)
 			throws InvalidDeletionException, IOException {
 
 		n.remove(k); //remove K from n
+		if (n instanceof NonLeafNode)
+			refresh((NonLeafNode<K>) n);
 
 		if(n == root) //if n is the root
 		{
 			if(n.GetChildrenCount() == 1) //if N only has one child
 			{
 				setRoot(n.pointer(0)); //set that to the new root
+				release(n);
 				return;
 			}
 		}
-		else if(n.isUnderUtilized())
+		else if (relaxedDeletion && n instanceof LeafNode) // rebalancing is deferred to rebalance()
 		{
-			//N`: previous or next child of parent(N)
-			//K`: the key between pointers N and N` in parent n
-			var parent = node2parent.get(n);
-			int index = parent.indexOf(n);
-
-			Node<K> leftSibling = index > 0 ? parent.pointer(index - 1) : null;
-			Node<K> rightSibling = index < parent.pointerCount() - 1 ? parent.pointer(index + 1) : null;
-
-			// Step 6: Try to merge with left if safe
-			if (leftSibling != null && leftSibling.mergeable(n)) {
-				K separatorKey = parent.key(index - 1);
-				merge(leftSibling, separatorKey, n, node2parent);
-			}
+			if (n.keyCount() < minLeafKeys())
+				underflows.put((LeafNode<K, P>) n, k);
+		}
+		else if(n.isUnderUtilized())
+			rebalance(n, node2parent);
+	}
 
-			else if (rightSibling != null && n.mergeable(rightSibling)) {
-				K separatorKey = parent.key(index);
-				merge(n, separatorKey, rightSibling, node2parent);
-			}
+	/**
+	 * Merges the specified {@code Node} with a sibling or, if the {@code Node} is under-utilized, moves entries from a
+	 * sibling to it.
+	 * 
+	 * @param n
+	 *            a {@code Node} other than the root {@code Node}
+	 * @param node2parent
+	 *            a {@code Map} remembering, for each visited {@code Node}, the parent of that {@code Node}
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in a {@code InMemoryBPlusTree} is attempted to be deleted from the
+	 *             {@code InMemoryBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected void rebalance(Node<K> n, Map<Node<K>, NonLeafNode<K>> node2parent)
+			throws InvalidDeletionException, IOException {
+		version++; // n will be merged with or receive entries from a sibling
+		//N`: previous or next child of parent(N)
+		//K`: the key between pointers N and N` in parent n
+		var parent = node2parent.get(n);
+		int index = parent.indexOf(n);
 
-			// Step 8: Redistribute from left if merging is unsafe
-			else if (leftSibling != null) {
-				K separatorKey = parent.key(index - 1);
-				if (n instanceof LeafNode) {
-					redistributeRightLeaf((LeafNode<K, P>) leftSibling, separatorKey, (LeafNode<K, P>) n, parent);
-				} else {
-					redistributeRightNonLeaf((NonLeafNode<K>) leftSibling, separatorKey, (NonLeafNode<K>) n, parent);
-				}
-			}
-			else if (rightSibling != null) {
-				K separatorKey = parent.key(index);
-				if (n instanceof LeafNode) {
-					redistributeLeftLeaf((LeafNode<K, P>) n, separatorKey, (LeafNode<K, P>) rightSibling, parent);
-				} else {
-					redistributeLeftNonLeaf((NonLeafNode<K>) n, separatorKey, (NonLeafNode<K>) rightSibling, parent);
-				}
+		Node<K> leftSibling = index > 0 ? parent.pointer(index - 1) : null;
+		Node<K> rightSibling = index < parent.pointerCount() - 1 ? parent.pointer(index + 1) : null;
+
+		// Step 6: Try to merge with left if safe
+		if (leftSibling != null && leftSibling.mergeable(n)) {
+			K separatorKey = parent.key(index - 1);
+			merge(leftSibling, separatorKey, n, node2parent);
+		}
+
+		else if (rightSibling != null && n.mergeable(rightSibling)) {
+			K separatorKey = parent.key(index);
+			merge(n, separatorKey, rightSibling, node2parent);
+		}
+
+		// a LeafNode below the minimum occupancy of rebalance() but not under-utilized is only merged
+		else if (!n.isUnderUtilized())
+			return;
+
+		// Step 8: Redistribute from left if merging is unsafe
+		else if (leftSibling != null) {
+			K separatorKey = parent.key(index - 1);
+			if (n instanceof LeafNode) {
+				redistributeRightLeaf((LeafNode<K, P>) leftSibling, separatorKey, (LeafNode<K, P>) n, parent);
+			} else {
+				redistributeRightNonLeaf((NonLeafNode<K>) leftSibling, separatorKey, (NonLeafNode<K>) n, parent);
+				refresh((NonLeafNode<K>) leftSibling);
+				refresh((NonLeafNode<K>) n);
 			}
+			refresh(parent);
 		}
-		else
-		{
-			return; //not underutilized
+		else if (rightSibling != null) {
+			K separatorKey = parent.key(index);
+			if (n instanceof LeafNode) {
+				redistributeLeftLeaf((LeafNode<K, P>) n, separatorKey, (LeafNode<K, P>) rightSibling, parent);
+			} else {
+				redistributeLeftNonLeaf((NonLeafNode<K>) n, separatorKey, (NonLeafNode<K>) rightSibling, parent);
+				refresh((NonLeafNode<K>) n);
+				refresh((NonLeafNode<K>) rightSibling);
+			}
+			refresh(parent);
 		}
 	}
 
@@ -293,14 +1634,61 @@ public class InMemoryBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K,
 	@SuppressWarnings("unchecked")
 	protected void merge(Node<K> np, K kp, Node<K> n, Map<Node<K>, NonLeafNode<K>> node2parent)
 			throws InvalidDeletionException, IOException {
-		if (n instanceof NonLeafNode) // nonleaf node
+		if (n instanceof NonLeafNode) { // nonleaf node
 			merge((NonLeafNode<K>) np, kp, (NonLeafNode<K>) n);
-		else // nonleaf node
+			refresh((NonLeafNode<K>) np);
+		} else // leaf node
 			merge((LeafNode<K, P>) np, (LeafNode<K, P>) n);
 		NonLeafNode<K> parent = node2parent.get(n);
 		if (parent == null)
 			parent = node2parent.get(np);
 		delete(parent, kp, node2parent);
+		release(n); // n is no longer part of the tree
+	}
+
+	/**
+	 * Refreshes the information that the specified {@code NonLeafNode} maintains about each of its children. This
+	 * method is invoked whenever the children of the {@code NonLeafNode} have been rearranged.
+	 * 
+	 * @param node
+	 *            a {@code NonLeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void refresh(NonLeafNode<K> node) throws IOException {
+		for (int i = 0; i <= node.keyCount(); i++)
+			refresh(node, i);
+	}
+
+	/**
+	 * Refreshes the information that the specified {@code NonLeafNode} maintains about the specified child. Does
+	 * nothing by default; subclasses that keep per-child information (e.g., subtree sizes) override this method.
+	 * 
+	 * @param node
+	 *            a {@code NonLeafNode}
+	 * @param i
+	 *            the index of the child
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void refresh(NonLeafNode<K> node, int i) throws IOException {
+	}
+
+	/**
+	 * Refreshes, from the bottom up, the information that each {@code NonLeafNode} on the path from the root to the
+	 * {@code LeafNode} responsible for the specified key maintains about the next {@code Node} on the path.
+	 * 
+	 * @param k
+	 *            a key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void refreshPath(K k) throws IOException {
+		ArrayList<NonLeafNode<K>> path = new ArrayList<NonLeafNode<K>>();
+		for (Node<K> n = root; n instanceof NonLeafNode; n = ((NonLeafNode<K>) n).child(k))
+			path.add((NonLeafNode<K>) n);
+		for (int i = path.size() - 1; i >= 0; i--)
+			refresh(path.get(i), path.get(i).childIndex(k));
 	}
 
 	/**
@@ -316,6 +1704,7 @@ public class InMemoryBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K,
 	protected void merge(NonLeafNode<K> np, K kp, NonLeafNode<K> n) {
 		np.insert(kp, np.keyCount, n.pointer(0), np.keyCount + 1); // insert separator key and 1st pointer from n
 		np.append(n, 0, n.keyCount - 1); // copy all keys and pointers except last pointer
+		np.pointers[np.keyCount] = n.pointers[n.keyCount]; // copy the last pointer
 	}
 
 	/**
@@ -328,93 +1717,101 @@ public class InMemoryBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K,
 	 */
 	protected void merge(LeafNode<K, P> np, LeafNode<K, P> n) {
 		np.append(n, 0,n.keyCount - 1); //appending all key pointer pairs to np
-		np.pointers[np.keyCount] = n.pointers[n.keyCount];
+		LeafNode<K, P> s = n.successor();
+		np.setSuccessor(s); // chaining from np to the successor of n
+		if (s != null)
+			s.setPredecessor(np); // chaining from the successor of n back to np
 	}
 
 	/**
-	 * Moves a key and a pointer from the first specified {@code NonLeafNode} to the second specified
-	 * {@code NonLeafNode}.
+	 * Moves pointers and the keys between them from the first specified {@code NonLeafNode} to the second specified
+	 * {@code NonLeafNode} (see {@link #redistributionCount(Node, Node)}).
 	 * 
 	 * @param np
-	 *            a {@code NonLeafNode} from which a key and a pointer are removed
+	 *            a {@code NonLeafNode} from which keys and pointers are removed
 	 * @param kp
 	 *            the key between the specified {@code NonLeafNode}s
 	 * @param n
-	 *            a {@code NonLeafNode} to which a key and a pointer are added
+	 *            a {@code NonLeafNode} to which keys and pointers are added
 	 * @param parent
 	 *            a {@code NonLeafNode} that is the parent of the specified {@code NonLeafNode}s.
 	 */
 	protected void redistributeRightNonLeaf(NonLeafNode<K> np, K kp, NonLeafNode<K> n,
 			NonLeafNode<K> parent) {
-		int m = np.keyCount(); // let m be the index of the last pointer in np
-		K k = np.key(m - 1); // let k be the last key from np
-		n.insert(kp, 0, np.pointer(m), 0);
-		// insert the last key and pointer from np at the beginning of n
-		np.delete(m - 1, m); // remove the last key and pointer from np
+		K k = np.shiftRight(n, kp, redistributionCount(np, n)); // move the last pointers of np to the front of n
 		parent.changeKey(np, n, k); // let k be the new key between np and p in their parent node
 	}
 
 	/**
-	 * Moves a key and a pointer from the second specified {@code NonLeafNode} to the first specified
-	 * {@code NonLeafNode}.
+	 * Moves pointers and the keys between them from the second specified {@code NonLeafNode} to the first specified
+	 * {@code NonLeafNode} (see {@link #redistributionCount(Node, Node)}).
 	 * 
 	 * @param n
-	 *            a {@code NonLeafNode} to which a key and a pointer are added
+	 *            a {@code NonLeafNode} to which keys and pointers are added
 	 * @param kp
 	 *            the key between the specified {@code NonLeafNode}s
 	 * @param np
-	 *            a {@code NonLeafNode} from which a key and a pointer are removed
+	 *            a {@code NonLeafNode} from which keys and pointers are removed
 	 * @param parent
 	 *            a {@code NonLeafNode} that is the parent of the specified {@code NonLeafNode}s.
 	 */
 	protected void redistributeLeftNonLeaf(NonLeafNode<K> n, K kp, NonLeafNode<K> np,
 			NonLeafNode<K> parent) {
-		int m = 0;
-		K moveKey = np.key(0);         // Last key from np
-		var movePointer = np.pointer(m); // Rightmost pointer from np
-		n.insert(kp, n.keyCount, (Node<K>) movePointer, n.keyCount);
-		np.delete(m, m);           // Delete key-pointer pair from np
+		K moveKey = n.shiftLeft(np, kp, redistributionCount(np, n)); // move the first pointers of np to the end of n
 		parent.changeKey(n, np, moveKey); // Update parent's separator key
 	}
 
 	/**
-	 * Moves a key and a pointer from the first specified {@code LeafNode} to the second specified {@code LeafNode}.
+	 * Moves keys and pointers from the first specified {@code LeafNode} to the second specified {@code LeafNode} (see
+	 * {@link #redistributionCount(Node, Node)}).
 	 * 
 	 * @param np
-	 *            a {@code LeafNode} from which a key and a pointer are removed
+	 *            a {@code LeafNode} from which keys and pointers are removed
 	 * @param kp
 	 *            the key between the specified {@code LeafNode}s
 	 * @param n
-	 *            a {@code LeafNode} to which a key and a pointer are added
+	 *            a {@code LeafNode} to which keys and pointers are added
 	 * @param parent
 	 *            a {@code NonLeafNode} that is the parent of the specified {@code LeafNode}s.
 	 */
 	protected void redistributeRightLeaf(LeafNode<K, P> np, K kp, LeafNode<K, P> n, NonLeafNode<K> parent) {
-		int m = np.keyCount() - 1; // let me be the index of the last key and pointer in npS
-		K k = np.key(m); // let k be the last key from np
-		n.insert(0, k, np.pointer(m)); // insert the last key and pointer from np at the beginning of n
-		np.delete(m); // remove the last key and pointer from np
-		parent.changeKey(np, n, k); // let k be the new key between np and p in their parent node
+		np.shiftRight(n, redistributionCount(np, n)); // move the last keys and pointers of np to the front of n
+		parent.changeKey(np, n, n.key(0)); // let the new first key of n be the key between np and n
 	}
 
 	/**
-	 * Moves a key and a pointer from the second specified {@code LeafNode} to the first specified {@code LeafNode}.
+	 * Moves keys and pointers from the second specified {@code LeafNode} to the first specified {@code LeafNode} (see
+	 * {@link #redistributionCount(Node, Node)}).
 	 * 
 	 * @param n
-	 *            a {@code LeafNode} to which a key and a pointer are added
+	 *            a {@code LeafNode} to which keys and pointers are added
 	 * @param kp
 	 *            the key between the specified {@code LeafNode}s
 	 * @param np
-	 *            a {@code LeafNode} from which a key and a pointer are removed
+	 *            a {@code LeafNode} from which keys and pointers are removed
 	 * @param parent
 	 *            a {@code NonLeafNode} that is the parent of the specified {@code LeafNode}s.
 	 */
 	protected void redistributeLeftLeaf(LeafNode<K, P> n, K kp, LeafNode<K, P> np, NonLeafNode<K> parent) {
-		K k = np.key(0); //get that last key
-		P p = np.pointer(0); //get the pointer associated with the last key in np
-		n.insert(n.keyCount, k, p); //insert the key pointer pair into the beginning of n
-		np.delete(0); //remove the last key and pointer from np
-		parent.changeKey(n, np, k); //update the key between np and p in their parent node
+		n.shiftLeft(np, redistributionCount(np, n)); // move the first keys and pointers of np to the end of n
+		parent.changeKey(n, np, np.key(0)); //let the new first key of np be the key between n and np in their parent node
+	}
+
+	/**
+	 * Returns the number of entries that a redistribution moves from the first specified {@code Node} to the second
+	 * specified {@code Node} (as many as a compaction step requires during the compaction step).
+	 * 
+	 * @param from
+	 *            the {@code Node} from which entries are moved
+	 * @param to
+	 *            the {@code Node} to which entries are moved
+	 * @return the number of entries that a redistribution moves from the first specified {@code Node} to the second
+	 *         specified {@code Node}
+	 */
+	protected int redistributionCount(Node<K> from, Node<K> to) {
+		if (compactionShift > 0)
+			return compactionShift;
+		return balancedRedistribution ? Math.max(1, (from.keyCount() - to.keyCount()) / 2) : 1;
 	}
 
 }
@@ -0,0 +1,61 @@
+package bptree;
+
+/**
+ * The {@code InterpolationKeySearch} class locates {@code Integer} and {@code Long} search keys in {@code Node}s using
+ * interpolation search, which suits keys that are nearly uniformly distributed (e.g., hashed identifiers). The
+ * position of a search key is first estimated by linear interpolation between the first and last keys of a
+ * {@code Node} and then corrected by galloping away from the estimate and binary searching the bracketed range. For
+ * uniformly distributed keys, the estimate is typically off by only a few positions, so a search takes a nearly
+ * constant number of comparisons regardless of the degree. Other types of keys are located using binary search.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class InterpolationKeySearch extends PackedKeySearch {
+
+	/**
+	 * Returns the number of the specified packed keys that are smaller than the specified key.
+	 * 
+	 * @param a
+	 *            packed keys in ascending order
+	 * @param n
+	 *            the number of packed keys
+	 * @param k
+	 *            a search key
+	 * @return the number of the specified packed keys that are smaller than the specified key
+	 */
+	@Override
+	protected int lowerBound(long[] a, int n, long k) {
+		if (n == 0 || k <= a[0])
+			return 0;
+		if (k > a[n - 1])
+			return n;
+		// a[0] < k <= a[n - 1], so the answer is between 1 and n - 1
+		int g = (int) (((double) k - a[0]) / ((double) a[n - 1] - a[0]) * (n - 1));
+		g = Math.min(Math.max(g, 1), n - 1);
+		int lo, hi; // a[lo] < k <= a[hi]
+		if (a[g] >= k) { // gallop to the left
+			hi = g;
+			lo = g - 1;
+			for (int step = 2; a[lo] >= k; step <<= 1) {
+				hi = lo;
+				lo = Math.max(0, hi - step);
+			}
+		} else { // gallop to the right
+			lo = g;
+			hi = g + 1;
+			for (int step = 2; a[hi] < k; step <<= 1) {
+				lo = hi;
+				hi = Math.min(n - 1, lo + step);
+			}
+		}
+		while (hi - lo > 1) {
+			int mid = (lo + hi) >>> 1;
+			if (a[mid] < k)
+				lo = mid;
+			else
+				hi = mid;
+		}
+		return hi;
+	}
+
+}
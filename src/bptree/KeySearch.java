@@ -0,0 +1,37 @@
+package bptree;
+
+/**
+ * The {@code KeySearch} interface is implemented by strategies for locating a search key among the sorted keys of a
+ * {@code Node}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public interface KeySearch {
+
+	/**
+	 * Returns the number of keys in the specified {@code Node} that are smaller than the specified key.
+	 * 
+	 * @param <K>
+	 *            the type of keys
+	 * @param node
+	 *            a {@code Node}
+	 * @param key
+	 *            a search key
+	 * @return the number of keys in the specified {@code Node} that are smaller than the specified key
+	 */
+	<K extends Comparable<K>> int lowerBound(Node<K> node, K key);
+
+	/**
+	 * Returns the number of keys in the specified {@code Node} that are smaller than or equal to the specified key.
+	 * 
+	 * @param <K>
+	 *            the type of keys
+	 * @param node
+	 *            a {@code Node}
+	 * @param key
+	 *            a search key
+	 * @return the number of keys in the specified {@code Node} that are smaller than or equal to the specified key
+	 */
+	<K extends Comparable<K>> int upperBound(Node<K> node, K key);
+
+}
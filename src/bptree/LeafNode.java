@@ -1,10 +1,13 @@
 package bptree;
 
+import java.util.Arrays;
+
 import bptree.BPlusTree.InvalidDeletionException;
 
 /**
  * The {@code LeafNode} class implements leaf nodes in a B+-tree. {@code LeafNode}s are chained so each {@code LeafNode}
- * except the last {@code LeafNode} has a successor.
+ * except the last {@code LeafNode} has a successor and each {@code LeafNode} except the first {@code LeafNode} has a
+ * predecessor.
  * 
  * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
  * 
@@ -20,6 +23,18 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 	 */
 	private static final long serialVersionUID = 2590729339527002169L;
 
+	/**
+	 * A pointer to the preceding {@code LeafNode}.
+	 */
+	protected Object predecessor;
+
+	/**
+	 * The one-byte hash fingerprints of the keys in this {@code LeafNode}; {@code null} unless maintained. When
+	 * maintained, exact-match probes compare a key against only the keys whose fingerprints match that of the key.
+	 * Requires keys whose {@code hashCode} is consistent with {@code compareTo}.
+	 */
+	protected byte[] fingerprints;
+
 	/**
 	 * Constructs a {@code LeafNode}.
 	 * 
@@ -39,7 +54,7 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 	 *            the pointer to insert
 	 */
 	public void insert(K k, P p) {
-		if (keyCount == 0 || k.compareTo(keys[0]) < 0)
+		if (keyCount == 0 || k.compareTo(key(0)) < 0)
 			insert(0, k, p);
 		else {
 			int i = findIndexL(k);
@@ -64,7 +79,12 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 		}
 		keys[i] = k;
 		pointers[i] = p;
+		if (fingerprints != null) {
+			System.arraycopy(fingerprints, i, fingerprints, i + 1, keyCount - i);
+			fingerprints[i] = fingerprint(k);
+		}
 		keyCount++;
+		keysChanged();
 	}
 
 	/**
@@ -78,9 +98,189 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 			keys[j] = keys[j + 1];
 			pointers[j] = pointers[j + 1];
 		}
+		if (fingerprints != null)
+			System.arraycopy(fingerprints, i + 1, fingerprints, i, keyCount - 1 - i);
 		keys[keyCount - 1] = null;
 		pointers[keyCount - 1] = null;
 		keyCount--;
+		keysChanged();
+	}
+
+	/**
+	 * Moves the keys and pointers of this {@code LeafNode} from the specified index onward to the end of the specified
+	 * {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode} that has room for the keys and pointers
+	 * @param beginIndex
+	 *            the index of the first key to move
+	 */
+	public void moveTo(LeafNode<K, P> node, int beginIndex) {
+		int n = keyCount - beginIndex;
+		System.arraycopy(keys, beginIndex, node.keys, node.keyCount, n);
+		System.arraycopy(pointers, beginIndex, node.pointers, node.keyCount, n);
+		node.copyFingerprints(this, beginIndex, node.keyCount, n);
+		node.keyCount += n;
+		for (int i = beginIndex; i < keyCount; i++) {
+			keys[i] = null;
+			pointers[i] = null;
+		}
+		keyCount = beginIndex;
+		keysChanged();
+		node.keysChanged();
+	}
+
+	/**
+	 * Moves the last specified number of keys and pointers of this {@code LeafNode} to the beginning of the specified
+	 * {@code LeafNode} in one bulk move.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode} that has room for the keys and pointers
+	 * @param s
+	 *            the number of keys and pointers to move
+	 */
+	public void shiftRight(LeafNode<K, P> node, int s) {
+		int b = keyCount - s;
+		System.arraycopy(node.keys, 0, node.keys, s, node.keyCount);
+		System.arraycopy(node.pointers, 0, node.pointers, s, node.keyCount);
+		if (node.fingerprints != null)
+			System.arraycopy(node.fingerprints, 0, node.fingerprints, s, node.keyCount);
+		System.arraycopy(keys, b, node.keys, 0, s);
+		System.arraycopy(pointers, b, node.pointers, 0, s);
+		node.copyFingerprints(this, b, 0, s);
+		node.keyCount += s;
+		for (int i = b; i < keyCount; i++) {
+			keys[i] = null;
+			pointers[i] = null;
+		}
+		keyCount = b;
+		keysChanged();
+		node.keysChanged();
+	}
+
+	/**
+	 * Moves the first specified number of keys and pointers of the specified {@code LeafNode} to the end of this
+	 * {@code LeafNode} in one bulk move.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @param s
+	 *            the number of keys and pointers to move
+	 */
+	public void shiftLeft(LeafNode<K, P> node, int s) {
+		append(node, 0, s - 1);
+		int r = node.keyCount - s;
+		System.arraycopy(node.keys, s, node.keys, 0, r);
+		System.arraycopy(node.pointers, s, node.pointers, 0, r);
+		if (node.fingerprints != null)
+			System.arraycopy(node.fingerprints, s, node.fingerprints, 0, r);
+		for (int i = r; i < node.keyCount; i++) {
+			node.keys[i] = null;
+			node.pointers[i] = null;
+		}
+		node.keyCount = r;
+		node.keysChanged();
+	}
+
+	/**
+	 * Appends the specified keys and their pointers of the specified {@code Node} into this {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code Node}
+	 * @param beginIndex
+	 *            the beginning index of the keys, inclusive
+	 * @param endIndex
+	 *            the ending index of the keys, inclusive
+	 */
+	@Override
+	public void append(Node<K> node, int beginIndex, int endIndex) {
+		int k = keyCount;
+		super.append(node, beginIndex, endIndex);
+		copyFingerprints(node, beginIndex, k, endIndex - beginIndex + 1);
+	}
+
+	/**
+	 * Clears this {@code LeafNode}.
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		if (fingerprints != null)
+			Arrays.fill(fingerprints, (byte) 0);
+	}
+
+	/**
+	 * Starts or stops maintaining the fingerprints of the keys in this {@code LeafNode}.
+	 * 
+	 * @param enabled
+	 *            {@code true} to maintain fingerprints; {@code false} otherwise
+	 */
+	public void setFingerprints(boolean enabled) {
+		if (!enabled)
+			fingerprints = null;
+		else if (fingerprints == null) {
+			fingerprints = new byte[keys.length];
+			for (int i = 0; i < keyCount; i++)
+				fingerprints[i] = fingerprint(keys[i]);
+		}
+	}
+
+	/**
+	 * Returns the fingerprint of the specified key.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the fingerprint of the specified key
+	 */
+	protected static byte fingerprint(Object k) {
+		int h = k.hashCode();
+		h ^= h >>> 16;
+		return (byte) (h ^ h >>> 8);
+	}
+
+	/**
+	 * Sets the fingerprints of the specified keys of this {@code LeafNode}, copying them from the specified
+	 * {@code Node} if available.
+	 * 
+	 * @param node
+	 *            the {@code Node} from which the keys have been copied
+	 * @param beginIndex
+	 *            the index of the first copied key in the specified {@code Node}
+	 * @param destIndex
+	 *            the index of the first copied key in this {@code LeafNode}
+	 * @param n
+	 *            the number of copied keys
+	 */
+	protected void copyFingerprints(Node<K> node, int beginIndex, int destIndex, int n) {
+		if (fingerprints == null)
+			return;
+		byte[] f = node instanceof LeafNode ? ((LeafNode<?, ?>) node).fingerprints : null;
+		if (f != null)
+			System.arraycopy(f, beginIndex, fingerprints, destIndex, n);
+		else
+			for (int i = destIndex; i < destIndex + n; i++)
+				fingerprints[i] = fingerprint(keys[i]);
+	}
+
+	/**
+	 * Returns the index of the specified key in this {@code LeafNode}. If fingerprints are maintained, the key is
+	 * compared only against the keys whose fingerprints match that of the key; otherwise, the key is located by
+	 * {@link #findIndexL(Comparable)} (using the {@code KeySearch} if any) and then compared once.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the index of the specified key in this {@code LeafNode}; -1 if the key is not in this {@code LeafNode}
+	 */
+	public int indexOf(K k) {
+		if (fingerprints != null) {
+			byte f = fingerprint(k);
+			for (int i = 0; i < keyCount; i++)
+				if (fingerprints[i] == f && keys[i].compareTo(k) == 0)
+					return i;
+			return -1;
+		}
+		int i = findIndexL(k) + 1; // the index of the first key not smaller than k
+		return i < keyCount && keys[i].compareTo(k) == 0 ? i : -1;
 	}
 
 	/**
@@ -91,6 +291,8 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 	 * @return the largest index i such that keys[i] < the given key; -1 if there is no such i
 	 */
 	protected int findIndexL(K key) {
+		if (keySearch != null)
+			return keySearch.lowerBound(this, key) - 1;
 		for (int i = keyCount - 1; i >= 0; i--) {
 			if (keys[i].compareTo(key) < 0)
 				return i;
@@ -112,6 +314,20 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 		return s;
 	}
 
+	/**
+	 * Sets the pointer to the predecessor of this {@code LeafNode}.
+	 * 
+	 * @param p
+	 *            a pointer to the new predecessor of this {@code LeafNode}
+	 * @return a pointer to the previous predecessor of this {@code LeafNode}
+	 */
+	public <N> N setPredecessor(N p) {
+		@SuppressWarnings("unchecked")
+		N s = (N) predecessor;
+		predecessor = p;
+		return s;
+	}
+
 	/**
 	 * Determines whether or not the specified key is contained in this {@code LeafNode}.
 	 * 
@@ -120,10 +336,7 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 	 * @return {@code true} if the specified key is contained in this {@code LeafNode}; {@code false} otherwise
 	 */
 	public boolean contains(K k) {
-		for (int i = 0; i < keyCount; i++)
-			if (keys[i].compareTo(k) == 0)
-				return true;
-		return false;
+		return indexOf(k) >= 0;
 	}
 
 	/**
@@ -136,21 +349,10 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 	 */
 	@Override
 	public void remove(K key) throws InvalidDeletionException {
-		int i = 0;
-		for (; i < keyCount; i++) {
-			if (keys[i].compareTo(key) == 0) {
-				for (int j = i; j < keyCount - 1; j++) {
-					keys[j] = keys[j + 1];
-					pointers[j] = pointers[j + 1];
-				}
-				break;
-			}
-		}
-		if (i == keyCount)
+		int i = indexOf(key);
+		if (i < 0)
 			throw new InvalidDeletionException("key: " + key);
-		keyCount--;
-		keys[keyCount] = null;
-		pointers[keyCount] = null;
+		delete(i);
 	}
 
 	/**
@@ -183,7 +385,7 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 	@Override
 	public boolean mergeable(Node<K> other) {
 		int combined_keyCount = keyCount + other.keyCount;
-		if(combined_keyCount <= keys.length) //degree - 1 = max number of key entries
+		if(combined_keyCount <= degree - 1) //degree - 1 = max number of key entries
 		{
 			return true; // if the combined keycount is less than or equal to the max number of keys then it is not able to merge
 		}
@@ -202,4 +404,14 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K> {
 		return (N) pointers[pointers.length - 1];
 	}
 
+	/**
+	 * Returns a pointer to the preceding {@code LeafNode}.
+	 * 
+	 * @return a pointer to the preceding {@code LeafNode}; {@code null} if no preceding {@code LeafNode}
+	 */
+	@SuppressWarnings("unchecked")
+	public <N> N predecessor() {
+		return (N) predecessor;
+	}
+
 }
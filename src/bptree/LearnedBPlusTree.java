@@ -0,0 +1,343 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The {@code LearnedBPlusTree} class implements B+-trees with numeric keys that can answer searches without
+ * descending through the {@code NonLeafNode}s. Once trained, a {@code LearnedBPlusTree} keeps its {@code LeafNode}s
+ * in an array together with the smallest key that each {@code LeafNode} is responsible for, and a small hierarchy of
+ * linear models predicts the position of the {@code LeafNode} responsible for a search key. Each level of the
+ * hierarchy splits the key range into segments, each of which has a linear model whose prediction is off by at most
+ * a given error bound; the model of a segment predicts the segment at the level below (or the {@code LeafNode} at the
+ * bottom level), and the prediction is then corrected by a binary search within the error bound. The models take a
+ * few numbers per segment, far fewer than the keys in the {@code NonLeafNode}s, and remain valid until the next
+ * structural change; after that, searches descend from the root {@code Node} as usual until the models are retrained
+ * by {@link #train()} (e.g., after a bulk load) or at the end of a compaction pass. The {@code NonLeafNode}s are not
+ * released since updates need them to locate and split {@code LeafNode}s and searches fall back on them between
+ * trainings, so the models add to the heap footprint of the index rather than replace it; what they reduce is the
+ * index data that a search touches, which is small enough to stay in the CPU caches.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class LearnedBPlusTree<K extends Number & Comparable<K>, P> extends InMemoryBPlusTree<K, P> {
+
+	/**
+	 * The maximum difference between the position predicted by each model and the actual position.
+	 */
+	protected int error;
+
+	/**
+	 * The {@code LeafNode}s of this {@code LearnedBPlusTree} in ascending key order ({@code null} if not trained).
+	 */
+	protected LeafNode<K, P>[] leaves;
+
+	/**
+	 * The smallest key that each {@code LeafNode} is responsible for ({@code null} for the first {@code LeafNode}).
+	 */
+	protected K[] lows;
+
+	/**
+	 * The smallest key that each {@code LeafNode} is responsible for, as a {@code double} (negative infinity for the
+	 * first {@code LeafNode}).
+	 */
+	protected double[] lowValues;
+
+	/**
+	 * The first key of each segment at each level, from the bottom level to the top level (which has one segment).
+	 */
+	protected double[][] starts;
+
+	/**
+	 * The position of the first key of each segment at each level among the keys of the level below.
+	 */
+	protected int[][] firsts;
+
+	/**
+	 * The slope of the model of each segment at each level.
+	 */
+	protected double[][] slopes;
+
+	/**
+	 * The {@link #version} at which the models were trained.
+	 */
+	protected long trainedVersion = -1;
+
+	/**
+	 * Constructs a {@code LearnedBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code LearnedBPlusTree} can have
+	 * @param error
+	 *            the maximum difference between the position predicted by each model and the actual position
+	 */
+	public LearnedBPlusTree(int degree, int error) {
+		this(degree, degree, error);
+	}
+
+	/**
+	 * Constructs a {@code LearnedBPlusTree} whose {@code LeafNode}s and {@code NonLeafNode}s have different degrees.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code NonLeafNode} of this {@code LearnedBPlusTree} can
+	 *            have
+	 * @param leafDegree
+	 *            the maximum number of pointers (including the pointer to the next {@code LeafNode}) that each
+	 *            {@code LeafNode} of this {@code LearnedBPlusTree} can have
+	 * @param error
+	 *            the maximum difference between the position predicted by each model and the actual position
+	 */
+	public LearnedBPlusTree(int degree, int leafDegree, int error) {
+		super(degree, leafDegree);
+		if (error < 1)
+			throw new IllegalArgumentException("error: " + error);
+		this.error = error;
+	}
+
+	/**
+	 * Determines whether or not the models are valid (i.e., trained after the last structural change).
+	 * 
+	 * @return {@code true} if the models are valid; {@code false} otherwise
+	 */
+	public boolean isTrained() {
+		return leaves != null && trainedVersion == version;
+	}
+
+	/**
+	 * Returns the number of models (segments) at all of the levels.
+	 * 
+	 * @return the number of models at all of the levels; 0 if the models are not valid
+	 */
+	public int modelCount() {
+		int c = 0;
+		if (isTrained())
+			for (double[] s : starts)
+				c += s.length;
+		return c;
+	}
+
+	/**
+	 * Returns the number of levels of models.
+	 * 
+	 * @return the number of levels of models; 0 if the models are not valid
+	 */
+	public int modelLevels() {
+		return isTrained() ? starts.length : 0;
+	}
+
+	/**
+	 * Trains the models on the current {@code LeafNode}s of this {@code LearnedBPlusTree}. The bottom level is built
+	 * on the smallest keys of the {@code LeafNode}s and each level above is built on the first keys of the segments
+	 * of the level below, until a level consists of a single segment.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	public void train() throws IOException {
+		ArrayList<LeafNode<K, P>> l = new ArrayList<LeafNode<K, P>>();
+		ArrayList<K> k = new ArrayList<K>();
+		if (root != null)
+			collect(root, null, l, k);
+		int n = l.size();
+		leaves = l.toArray((LeafNode<K, P>[]) new LeafNode<?, ?>[n]);
+		lows = k.toArray((K[]) new Number[n]);
+		lowValues = new double[n];
+		for (int i = 0; i < n; i++)
+			lowValues[i] = i == 0 ? Double.NEGATIVE_INFINITY : lows[i].doubleValue();
+		ArrayList<double[]> s = new ArrayList<double[]>();
+		ArrayList<int[]> f = new ArrayList<int[]>();
+		ArrayList<double[]> a = new ArrayList<double[]>();
+		double[] x = lowValues;
+		do {
+			segment(x, x == lowValues ? Math.min(1, n) : 0, s, f, a);
+			x = s.get(s.size() - 1);
+		} while (x.length > 1);
+		starts = s.toArray(new double[0][]);
+		firsts = f.toArray(new int[0][]);
+		slopes = a.toArray(new double[0][]);
+		trainedVersion = version;
+	}
+
+	/**
+	 * Performs up to the specified number of steps of an incremental compaction pass and retrains the models when the
+	 * compaction pass completes.
+	 * 
+	 * @param fillFactor
+	 *            the fraction of the capacity of each {@code Node} up to which the compaction pass fills the
+	 *            {@code Node}
+	 * @param steps
+	 *            the maximum number of steps to perform
+	 * @return {@code true} if the compaction pass has completed; {@code false} if it is to be continued by the next
+	 *         invocation of this method
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public boolean compact(double fillFactor, int steps) throws IOException {
+		if (!super.compact(fillFactor, steps))
+			return false;
+		train();
+		return true;
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that must be responsible for the specified key, using the models if they are valid.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the {@code LeafNode} that must be responsible for the specified key; {@code null} if this
+	 *         {@code LearnedBPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected LeafNode<K, P> findLeaf(K k) throws IOException {
+		if (!isTrained() || leaves.length == 0)
+			return super.findLeaf(k);
+		return leaves[position(k)];
+	}
+
+	/**
+	 * Returns the position of the {@code LeafNode} responsible for the specified key. From the top level down, the
+	 * model of the current segment predicts the position at the level below, which is corrected by a binary search
+	 * within the error bound. The final position is checked against the exact keys since {@code double}s may not
+	 * represent large keys exactly (see {@link #correct(Number, int)}).
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the position of the {@code LeafNode} responsible for the specified key
+	 */
+	protected int position(K k) {
+		double x = k.doubleValue();
+		int j = 0;
+		for (int level = starts.length - 1; level >= 0; level--) {
+			double[] below = level == 0 ? lowValues : starts[level - 1];
+			int last = j + 1 < firsts[level].length ? firsts[level][j + 1] - 1 : below.length - 1;
+			double p = firsts[level][j] + slopes[level][j] * (x - starts[level][j]);
+			j = search(below, x, p < firsts[level][j] ? firsts[level][j] : p > last ? last : (int) p);
+		}
+		return correct(k, j);
+	}
+
+	/**
+	 * Returns the position of the {@code LeafNode} responsible for the specified key, given a position found using
+	 * the {@code double} values of the keys. The position is returned as it is if the exact keys confirm it, and is
+	 * otherwise found by a binary search within the error bound around it (or, if the keys have collapsed into more
+	 * equal {@code double} values than the error bound, on the side of it where the key lies).
+	 * 
+	 * @param k
+	 *            a search key
+	 * @param j
+	 *            the position found using the {@code double} values of the keys
+	 * @return the position of the {@code LeafNode} responsible for the specified key
+	 */
+	protected int correct(K k, int j) {
+		boolean above = j + 1 < lows.length && lows[j + 1].compareTo(k) <= 0;
+		if (!above && (j == 0 || lows[j].compareTo(k) <= 0))
+			return j;
+		int lo = Math.max(0, j - error), hi = Math.min(lows.length - 1, j + error);
+		if (lo > 0 && lows[lo].compareTo(k) > 0) { // if the position is before lo
+			hi = lo - 1;
+			lo = 0;
+		} else if (hi + 1 < lows.length && lows[hi + 1].compareTo(k) <= 0) { // if the position is after hi
+			lo = hi + 1;
+			hi = lows.length - 1;
+		}
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (lows[mid].compareTo(k) <= 0)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the largest position in the specified array whose value is not larger than the specified value, looking
+	 * first within the error bound around the specified predicted position.
+	 * 
+	 * @param a
+	 *            an array of values in ascending order
+	 * @param x
+	 *            a value
+	 * @param p
+	 *            the predicted position
+	 * @return the largest position in the specified array whose value is not larger than the specified value; 0 if
+	 *         there is no such position
+	 */
+	protected int search(double[] a, double x, int p) {
+		int lo = Math.max(0, p - error - 1), hi = Math.min(a.length - 1, p + error + 1);
+		if (a[lo] > x) { // if the position is before lo (only if the key is beyond the range of the segment)
+			hi = lo - 1;
+			lo = 0;
+		} else if (hi + 1 < a.length && a[hi + 1] <= x) { // if the position is after hi
+			lo = hi + 1;
+			hi = a.length - 1;
+		}
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (a[mid] <= x)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return Math.max(lo, 0);
+	}
+
+	/**
+	 * Splits the specified keys into segments such that, within each segment, the position of each key is off by at
+	 * most the error bound from the position predicted by the linear model of the segment. Each segment is extended as
+	 * long as some slope keeps all of its keys within the error bound (the range of such slopes narrows as keys are
+	 * added). Keys equal to the first key as {@code double}s are predicted at its position regardless of the slope, so
+	 * every segment but the last has at least two keys and each level is smaller than the level below.
+	 * 
+	 * @param x
+	 *            keys in ascending order
+	 * @param from
+	 *            the position of the first key to consider
+	 * @param starts
+	 *            the list to which the first keys of the segments are added
+	 * @param firsts
+	 *            the list to which the positions of the first keys of the segments are added
+	 * @param slopes
+	 *            the list to which the slopes of the models of the segments are added
+	 */
+	protected void segment(double[] x, int from, ArrayList<double[]> starts, ArrayList<int[]> firsts,
+			ArrayList<double[]> slopes) {
+		double[] s = new double[Math.max(1, x.length - from)], a = new double[s.length];
+		int[] f = new int[s.length];
+		int m = 0;
+		for (int i = from; i < x.length || m == 0;) {
+			int first = i;
+			double lo = 0, hi = Double.POSITIVE_INFINITY;
+			for (i++; i < x.length; i++) {
+				double dx = x[i] - x[first];
+				if (dx == 0) { // every slope predicts the position of the first key for a key equal to it as a double
+					if (i - first > error)
+						break;
+					continue;
+				}
+				double l = Math.max(lo, (i - first - error) / dx), h = Math.min(hi, (i - first + error) / dx);
+				if (!(dx > 0 && l <= h))
+					break;
+				lo = l;
+				hi = h;
+			}
+			s[m] = first < x.length ? x[first] : 0;
+			f[m] = first;
+			a[m++] = hi == Double.POSITIVE_INFINITY ? 0 : (lo + hi) / 2;
+		}
+		starts.add(Arrays.copyOf(s, m));
+		firsts.add(Arrays.copyOf(f, m));
+		slopes.add(Arrays.copyOf(a, m));
+	}
+
+}
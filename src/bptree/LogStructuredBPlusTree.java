@@ -0,0 +1,574 @@
+package bptree;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code LogStructuredBPlusTree} class places a log-structured write buffer in front of a {@code BPlusTree}.
+ * Updates land in a small, sorted, concurrent memtable. When the memtable becomes full, it is frozen and merged into
+ * the underlying {@code BPlusTree} by a background thread in ascending key order, so that split cascades are kept out
+ * of the path of each update and {@code LeafNode}s are filled sequentially. Reads check the memtable, then the frozen
+ * memtables from the newest to the oldest, and then the underlying {@code BPlusTree}. The underlying
+ * {@code BPlusTree} is accessed only under an exclusive lock since even its lookups may change its state (e.g., the
+ * finger of an {@code InMemoryBPlusTree}, thawed {@code TieredLeafNode}s, and the keys cached by a
+ * {@code KeySearch}). Range scans merge all pending updates first and then copy the entries in batches, each under the
+ * lock, so that the returned iterators never walk {@code LeafNode}s that a merge is changing; they are not isolated
+ * from merges that happen between batches. The structural methods (e.g., {@link #root()}) expose the underlying
+ * {@code BPlusTree} without the pending updates.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class LogStructuredBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K, P> implements AutoCloseable {
+
+	/**
+	 * The maximum number of frozen memtables that may wait to be merged before updates are held back.
+	 */
+	protected static final int MAX_FROZEN_TABLES = 4;
+
+	/**
+	 * The maximum number of entries that an iterator returned by a range scan copies under the lock at a time.
+	 */
+	protected static final int SCAN_BATCH = 256;
+
+	/**
+	 * The value that marks a deleted key in a memtable.
+	 */
+	protected static final Object TOMBSTONE = new Object();
+
+	/**
+	 * The value that stands for a {@code null} pointer in a memtable.
+	 */
+	protected static final Object NULL = new Object();
+
+	/**
+	 * The underlying {@code BPlusTree}.
+	 */
+	protected BPlusTree<K, P> tree;
+
+	/**
+	 * The lock that guards the underlying {@code BPlusTree} (held while merging and while looking up keys).
+	 */
+	protected Lock lock = new ReentrantLock();
+
+	/**
+	 * The maximum number of keys in each memtable.
+	 */
+	protected int memtableCapacity;
+
+	/**
+	 * The memtable that receives updates.
+	 */
+	protected volatile ConcurrentSkipListMap<K, Object> memtable = new ConcurrentSkipListMap<K, Object>();
+
+	/**
+	 * The frozen memtables waiting to be merged, from the newest to the oldest.
+	 */
+	protected ConcurrentLinkedDeque<ConcurrentSkipListMap<K, Object>> frozen =
+			new ConcurrentLinkedDeque<ConcurrentSkipListMap<K, Object>>();
+
+	/**
+	 * The thread that merges frozen memtables into the underlying {@code BPlusTree}.
+	 */
+	protected ExecutorService merger = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "bptree-merger");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * The first failure that has occurred during a merge since the last report; {@code null} if no such failure.
+	 */
+	protected volatile Exception failure;
+
+	/**
+	 * Constructs a {@code LogStructuredBPlusTree}.
+	 * 
+	 * @param tree
+	 *            the underlying {@code BPlusTree}
+	 * @param memtableCapacity
+	 *            the maximum number of keys in each memtable
+	 */
+	public LogStructuredBPlusTree(BPlusTree<K, P> tree, int memtableCapacity) {
+		super(tree.degree(), tree.leafDegree());
+		if (memtableCapacity < 1)
+			throw new IllegalArgumentException("memtable capacity: " + memtableCapacity);
+		this.tree = tree;
+		this.memtableCapacity = memtableCapacity;
+	}
+
+	/**
+	 * Returns the root {@code Node} of the underlying {@code BPlusTree}.
+	 * 
+	 * @return the root {@code Node} of the underlying {@code BPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public Node<K> root() throws IOException {
+		return tree.root();
+	}
+
+	/**
+	 * Returns the specified child {@code Node} of the specified {@code NonLeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code NonLeafNode}
+	 * @param i
+	 *            the index of the child {@code Node}
+	 * @return the specified child {@code Node} of the specified {@code NonLeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public Node<K> child(NonLeafNode<K> node, int i) throws IOException {
+		return tree.child(node, i);
+	}
+
+	/**
+	 * Returns the {@code LeafNode} that succeeds the specified {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @return the {@code LeafNode} that succeeds the specified {@code LeafNode}; {@code null} if no such
+	 *         {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public LeafNode<K, P> successor(LeafNode<K, P> node) throws IOException {
+		return tree.successor(node);
+	}
+
+	/**
+	 * Returns the {@code LeafNode} that precedes the specified {@code LeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @return the {@code LeafNode} that precedes the specified {@code LeafNode}; {@code null} if no such
+	 *         {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public LeafNode<K, P> predecessor(LeafNode<K, P> node) throws IOException {
+		return tree.predecessor(node);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code LogStructuredBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code LogStructuredBPlusTree} is attempted to be inserted again
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized void insert(K k, P p) throws InvalidInsertionException, IOException {
+		if (lookup(k) != TOMBSTONE) // no duplicate keys are allowed in the tree
+			throw new InvalidInsertionException("key: " + k);
+		put(k, p == null ? NULL : p);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code LogStructuredBPlusTree}, replacing the pointer currently
+	 * associated with the key if any.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized void upsert(K k, P p) throws IOException {
+		put(k, p == null ? NULL : p);
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code LogStructuredBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code LogStructuredBPlusTree} is attempted to be deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized void delete(K k) throws InvalidDeletionException, IOException {
+		if (lookup(k) == TOMBSTONE)
+			throw new InvalidDeletionException("key: " + k);
+		put(k, TOMBSTONE);
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the key is not in this
+	 *         {@code LogStructuredBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public P search(K k) throws IOException {
+		Object v = lookup(k);
+		return v == TOMBSTONE || v == NULL ? null : (P) v;
+	}
+
+	/**
+	 * Merges all of the pending updates into the underlying {@code BPlusTree} and waits until the merge completes.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void flush() throws IOException {
+		synchronized (this) {
+			if (!memtable.isEmpty())
+				freeze();
+		}
+		await();
+	}
+
+	/**
+	 * Merges all of the pending updates into the underlying {@code BPlusTree} and stops the background thread.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		merger.shutdown();
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the keys and pointers in the specified range after merging all of the pending
+	 * updates into the underlying {@code BPlusTree}. The {@code Iterator} copies the entries in batches, each under the
+	 * lock (see {@link Batches}).
+	 * 
+	 * @param from
+	 *            the key at which the scan begins; {@code null} if unbounded
+	 * @param fromInclusive
+	 *            {@code true} if the key at which the scan begins is to be included
+	 * @param to
+	 *            the key at which the scan ends; {@code null} if unbounded
+	 * @param toInclusive
+	 *            {@code true} if the key at which the scan ends is to be included
+	 * @param descending
+	 *            {@code true} if the keys are to be visited in descending order
+	 * @return an {@code Iterator} over the keys and pointers in the specified range
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected Iterator<Map.Entry<K, P>> scan(K from, boolean fromInclusive, K to, boolean toInclusive,
+			boolean descending) throws IOException {
+		flush();
+		return new Batches(from, fromInclusive, to, toInclusive, descending);
+	}
+
+	/**
+	 * Finds the value associated with the specified key in the memtable, the frozen memtables, or the underlying
+	 * {@code BPlusTree}, in that order.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the value associated with the specified key; {@link #TOMBSTONE} if the key is not in this
+	 *         {@code LogStructuredBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected Object lookup(K k) throws IOException {
+		Object v = memtable.get(k);
+		if (v != null)
+			return v;
+		for (ConcurrentSkipListMap<K, Object> t : frozen) { // from the newest to the oldest
+			v = t.get(k);
+			if (v != null)
+				return v;
+		}
+		lock.lock(); // a frozen memtable is removed only after it has been merged
+		try {
+			LeafNode<K, P> l = tree.findLeaf(k);
+			int i = l == null ? -1 : l.indexOf(k);
+			if (i < 0)
+				return TOMBSTONE;
+			P p = l.pointer(i);
+			return p == null ? NULL : p;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Puts the specified key and value into the memtable, freezing the memtable if it becomes full. Must be invoked
+	 * while holding the monitor of this {@code LogStructuredBPlusTree}.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param v
+	 *            a value
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void put(K k, Object v) throws IOException {
+		memtable.put(k, v);
+		if (memtable.size() >= memtableCapacity)
+			freeze();
+	}
+
+	/**
+	 * Freezes the memtable and schedules a merge of the frozen memtable into the underlying {@code BPlusTree}. Holds
+	 * back the caller while too many frozen memtables are waiting. Must be invoked while holding the monitor of this
+	 * {@code LogStructuredBPlusTree}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void freeze() throws IOException {
+		if (frozen.size() >= MAX_FROZEN_TABLES)
+			await();
+		ConcurrentSkipListMap<K, Object> t = memtable;
+		frozen.addFirst(t); // readers must find t in frozen before it disappears as the memtable
+		memtable = new ConcurrentSkipListMap<K, Object>();
+		merger.execute(() -> {
+			try {
+				merge(t);
+			} catch (IOException | RuntimeException e) {
+				if (failure == null)
+					failure = e; // reported by the next flush; the unmerged memtables are retried by later merges
+			}
+		});
+	}
+
+	/**
+	 * Merges the frozen memtables into the underlying {@code BPlusTree} from the oldest one up to the specified one,
+	 * including those left behind by failed merges. Each frozen memtable is discarded only after it has been merged
+	 * completely, so that a failed merge loses no updates and is retried by the next merge; since the updates are
+	 * upserts and deletes, applying them again is harmless.
+	 * 
+	 * @param t
+	 *            a frozen memtable; {@code null} to merge all of the frozen memtables
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void merge(ConcurrentSkipListMap<K, Object> t) throws IOException {
+		while (!frozen.isEmpty() && (t == null || frozen.contains(t))) {
+			ConcurrentSkipListMap<K, Object> o = frozen.getLast(); // only this thread removes frozen memtables
+			lock.lock();
+			try {
+				apply(o);
+				frozen.removeLast(); // the updates in o are now in the underlying tree
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Applies the updates in the specified frozen memtable to the underlying {@code BPlusTree} in ascending key
+	 * order. If the underlying {@code BPlusTree} is an {@code InMemoryBPlusTree}, the updates are handed over as one
+	 * batch, which is merged into each {@code LeafNode} after a single descent (see
+	 * {@link InMemoryBPlusTree#update(MessageBuffer)}); otherwise, they are applied one by one.
+	 * 
+	 * @param t
+	 *            a frozen memtable
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected void apply(ConcurrentSkipListMap<K, Object> t) throws IOException {
+		if (tree instanceof InMemoryBPlusTree) {
+			MessageBuffer<K> messages = new MessageBuffer<K>();
+			for (Map.Entry<K, Object> e : t.entrySet())
+				if (e.getValue() == TOMBSTONE)
+					messages.put(e.getKey(), MessageBuffer.Kind.DELETE, null);
+				else
+					messages.put(e.getKey(), MessageBuffer.Kind.UPSERT, e.getValue() == NULL ? null : e.getValue());
+			((InMemoryBPlusTree<K, P>) tree).update(messages);
+			return;
+		}
+		for (Map.Entry<K, Object> e : t.entrySet()) {
+			if (e.getValue() == TOMBSTONE)
+				try {
+					tree.delete(e.getKey());
+				} catch (InvalidDeletionException ex) { // if the key was inserted and deleted before the merge
+				}
+			else
+				tree.upsert(e.getKey(), e.getValue() == NULL ? null : (P) e.getValue());
+		}
+	}
+
+	/**
+	 * Waits until all of the scheduled merges complete, retrying the merges of the frozen memtables left behind by
+	 * failed merges. A failure is reported once.
+	 * 
+	 * @throws IOException
+	 *             if an error has occurred during a merge
+	 */
+	protected void await() throws IOException {
+		try {
+			merger.submit(() -> {
+				merge(null); // the merges are carried out one after another
+				return null;
+			}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			failure = null;
+			throw new IOException(e.getCause());
+		}
+		Exception e = failure;
+		if (e != null) {
+			failure = null;
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * A {@code Batches} iterator copies the entries of the underlying {@code BPlusTree} in a range, a batch of at most
+	 * {@link LogStructuredBPlusTree#SCAN_BATCH} entries at a time, each under the lock. The next batch starts right
+	 * after the last key of the previous batch.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	protected class Batches implements Iterator<Map.Entry<K, P>> {
+
+		/**
+		 * The current batch of entries.
+		 */
+		ArrayList<Map.Entry<K, P>> batch = new ArrayList<Map.Entry<K, P>>();
+
+		/**
+		 * The index of the next entry in the current batch.
+		 */
+		int index;
+
+		/**
+		 * The key at which the next batch begins; {@code null} if unbounded.
+		 */
+		K from;
+
+		/**
+		 * A flag indicating whether or not the key at which the next batch begins is to be included.
+		 */
+		boolean fromInclusive;
+
+		/**
+		 * The key at which the scan ends; {@code null} if unbounded.
+		 */
+		K to;
+
+		/**
+		 * A flag indicating whether or not the key at which the scan ends is to be included.
+		 */
+		boolean toInclusive;
+
+		/**
+		 * A flag indicating whether or not the keys are visited in descending order.
+		 */
+		boolean descending;
+
+		/**
+		 * A flag indicating whether or not the current batch is the last one.
+		 */
+		boolean last;
+
+		/**
+		 * Constructs a {@code Batches} iterator and copies the first batch.
+		 * 
+		 * @param from
+		 *            the key at which the scan begins; {@code null} if unbounded
+		 * @param fromInclusive
+		 *            {@code true} if the key at which the scan begins is to be included
+		 * @param to
+		 *            the key at which the scan ends; {@code null} if unbounded
+		 * @param toInclusive
+		 *            {@code true} if the key at which the scan ends is to be included
+		 * @param descending
+		 *            {@code true} if the keys are to be visited in descending order
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		protected Batches(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending)
+				throws IOException {
+			this.from = from;
+			this.fromInclusive = fromInclusive;
+			this.to = to;
+			this.toInclusive = toInclusive;
+			this.descending = descending;
+			fill();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < batch.size();
+		}
+
+		@Override
+		public Map.Entry<K, P> next() {
+			if (index >= batch.size())
+				throw new NoSuchElementException();
+			Map.Entry<K, P> e = batch.get(index++);
+			if (index == batch.size() && !last)
+				try {
+					fill();
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			return e;
+		}
+
+		/**
+		 * Copies the next batch of entries under the lock.
+		 * 
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		void fill() throws IOException {
+			batch.clear();
+			index = 0;
+			lock.lock();
+			try {
+				Iterator<Map.Entry<K, P>> i = tree.scan(from, fromInclusive, to, toInclusive, descending);
+				while (batch.size() < SCAN_BATCH && i.hasNext())
+					batch.add(i.next()); // the entries are immutable copies
+				last = !i.hasNext();
+			} finally {
+				lock.unlock();
+			}
+			if (!batch.isEmpty()) {
+				from = batch.get(batch.size() - 1).getKey();
+				fromInclusive = false;
+			}
+		}
+
+	}
+
+}
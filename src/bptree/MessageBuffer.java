@@ -0,0 +1,323 @@
+package bptree;
+
+import java.util.Arrays;
+
+/**
+ * The {@code MessageBuffer} class implements the buffers of pending update messages held by the {@code NonLeafNode}s
+ * of a {@code BufferedBPlusTree}. The keys, kinds, and pointers of the messages are kept in ascending key order in
+ * parallel arrays, so that a message is found by binary search and the messages destined for a child are moved by
+ * copying a contiguous range of the arrays, without allocating an object per message. A {@code MessageBuffer} holds
+ * at most one message per key: a newer message for a key is combined with the older one (see
+ * {@link #combine(int, Kind, Object)}).
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ */
+public class MessageBuffer<K extends Comparable<K>> {
+
+	/**
+	 * The kinds of messages. An insert message is discarded if its key is already in the tree when the message takes
+	 * effect, and so is a delete message if its key is not in the tree.
+	 */
+	public enum Kind {
+		INSERT, UPSERT, DELETE
+	}
+
+	/**
+	 * The keys of the messages in ascending order.
+	 */
+	protected K[] keys;
+
+	/**
+	 * The kinds of the messages.
+	 */
+	protected Kind[] kinds;
+
+	/**
+	 * The pointers carried by the messages ({@code null} for delete messages).
+	 */
+	protected Object[] pointers;
+
+	/**
+	 * The number of messages in this {@code MessageBuffer}.
+	 */
+	protected int size;
+
+	/**
+	 * Constructs an empty {@code MessageBuffer}.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public MessageBuffer() {
+		keys = (K[]) new Comparable[8];
+		kinds = new Kind[8];
+		pointers = new Object[8];
+	}
+
+	/**
+	 * Returns the number of messages in this {@code MessageBuffer}.
+	 * 
+	 * @return the number of messages in this {@code MessageBuffer}
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Determines whether or not this {@code MessageBuffer} is empty.
+	 * 
+	 * @return {@code true} if this {@code MessageBuffer} is empty; {@code false} otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the key of the message at the specified index.
+	 * 
+	 * @param i
+	 *            an index
+	 * @return the key of the message at the specified index
+	 */
+	public K key(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * Returns the kind of the message at the specified index.
+	 * 
+	 * @param i
+	 *            an index
+	 * @return the kind of the message at the specified index
+	 */
+	public Kind kind(int i) {
+		return kinds[i];
+	}
+
+	/**
+	 * Returns the pointer carried by the message at the specified index.
+	 * 
+	 * @param <P>
+	 *            the type of pointers
+	 * @param i
+	 *            an index
+	 * @return the pointer carried by the message at the specified index
+	 */
+	@SuppressWarnings("unchecked")
+	public <P> P pointer(int i) {
+		return (P) pointers[i];
+	}
+
+	/**
+	 * Returns the index of the message for the specified key.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the index of the message for the specified key; -1 if no such message
+	 */
+	public int indexOf(K k) {
+		int i = lowerBound(k, 0, size);
+		return i < size && keys[i].compareTo(k) == 0 ? i : -1;
+	}
+
+	/**
+	 * Returns the index of the first message whose key is not smaller than the specified key.
+	 * 
+	 * @param k
+	 *            a key; {@code null} if unbounded (i.e., larger than all keys)
+	 * @return the index of the first message whose key is not smaller than the specified key ({@link #size()} if no
+	 *         such message)
+	 */
+	public int lowerBound(K k) {
+		return k == null ? size : lowerBound(k, 0, size);
+	}
+
+	/**
+	 * Returns the index of the first message in the specified range whose key is not smaller than the specified key.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param from
+	 *            the beginning of the range, inclusive
+	 * @param to
+	 *            the end of the range, exclusive
+	 * @return the index of the first message in the specified range whose key is not smaller than the specified key
+	 *         ({@code to} if no such message)
+	 */
+	protected int lowerBound(K k, int from, int to) {
+		int lo = from, hi = to;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (keys[mid].compareTo(k) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Adds the specified message, which is newer than those in this {@code MessageBuffer}, combining it with the
+	 * message for the same key if any.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param kind
+	 *            the kind of the message
+	 * @param pointer
+	 *            the pointer carried by the message
+	 */
+	public void put(K k, Kind kind, Object pointer) {
+		int i = lowerBound(k, 0, size);
+		if (i < size && keys[i].compareTo(k) == 0) {
+			combine(i, kind, pointer);
+			return;
+		}
+		ensureCapacity(size + 1);
+		System.arraycopy(keys, i, keys, i + 1, size - i);
+		System.arraycopy(kinds, i, kinds, i + 1, size - i);
+		System.arraycopy(pointers, i, pointers, i + 1, size - i);
+		set(i, k, kind, pointer);
+		size++;
+	}
+
+	/**
+	 * Adds the specified range of messages of the specified {@code MessageBuffer}, which are newer than those in this
+	 * {@code MessageBuffer}. The messages are inserted from the last one backward, each at the position found by
+	 * binary search, so that each message of this {@code MessageBuffer} is moved at most once.
+	 * 
+	 * @param b
+	 *            a {@code MessageBuffer}
+	 * @param from
+	 *            the index of the first message to add, inclusive
+	 * @param to
+	 *            the index of the last message to add, exclusive
+	 */
+	public void putAll(MessageBuffer<K> b, int from, int to) {
+		if (from >= to)
+			return;
+		int end = size + to - from;
+		ensureCapacity(end);
+		int i = size; // the messages of this MessageBuffer before this index have not been moved yet
+		int w = end; // the moved and added messages start at this index
+		for (int j = to - 1; j >= from; j--) {
+			K k = b.keys[j];
+			int p = i > 0 && keys[i - 1].compareTo(k) < 0 ? i : lowerBound(k, 0, i);
+			boolean found = p < i && keys[p].compareTo(k) == 0;
+			int q = found ? p + 1 : p; // the messages from q to i have larger keys
+			move(q, w - (i - q), i - q);
+			w -= i - q;
+			if (found) {
+				move(p, w - 1, 1);
+				combine(w - 1, b.kinds[j], b.pointers[j]);
+			} else
+				set(w - 1, k, b.kinds[j], b.pointers[j]);
+			i = p;
+			w--;
+		}
+		if (w > i) { // if messages have been combined
+			move(w, i, end - w);
+			Arrays.fill(keys, i + end - w, end, null);
+			Arrays.fill(pointers, i + end - w, end, null);
+		}
+		size = i + end - w;
+	}
+
+	/**
+	 * Removes the specified range of messages.
+	 * 
+	 * @param from
+	 *            the index of the first message to remove, inclusive
+	 * @param to
+	 *            the index of the last message to remove, exclusive
+	 */
+	public void remove(int from, int to) {
+		move(to, from, size - to);
+		Arrays.fill(keys, size - (to - from), size, null);
+		Arrays.fill(pointers, size - (to - from), size, null);
+		size -= to - from;
+	}
+
+	/**
+	 * Removes all of the messages.
+	 */
+	public void clear() {
+		remove(0, size);
+	}
+
+	/**
+	 * Combines the message at the specified index with the specified newer message for the same key. A newer upsert or
+	 * delete message replaces the older message. A newer insert message becomes an upsert message if the older message
+	 * is a delete message, and is discarded otherwise since the key is then already in the tree when the insert takes
+	 * effect.
+	 * 
+	 * @param i
+	 *            the index of the older message
+	 * @param kind
+	 *            the kind of the newer message
+	 * @param pointer
+	 *            the pointer carried by the newer message
+	 */
+	protected void combine(int i, Kind kind, Object pointer) {
+		if (kind != Kind.INSERT) {
+			kinds[i] = kind;
+			pointers[i] = pointer;
+		} else if (kinds[i] == Kind.DELETE) {
+			kinds[i] = Kind.UPSERT;
+			pointers[i] = pointer;
+		}
+	}
+
+	/**
+	 * Sets the message at the specified index.
+	 * 
+	 * @param i
+	 *            an index
+	 * @param k
+	 *            a key
+	 * @param kind
+	 *            the kind of the message
+	 * @param pointer
+	 *            the pointer carried by the message
+	 */
+	protected void set(int i, K k, Kind kind, Object pointer) {
+		keys[i] = k;
+		kinds[i] = kind;
+		pointers[i] = pointer;
+	}
+
+	/**
+	 * Moves the specified number of messages from the specified index to the specified index.
+	 * 
+	 * @param from
+	 *            the index of the first message to move
+	 * @param to
+	 *            the index to which the first message is moved
+	 * @param n
+	 *            the number of messages to move
+	 */
+	protected void move(int from, int to, int n) {
+		if (n == 0 || from == to)
+			return;
+		System.arraycopy(keys, from, keys, to, n);
+		System.arraycopy(kinds, from, kinds, to, n);
+		System.arraycopy(pointers, from, pointers, to, n);
+	}
+
+	/**
+	 * Grows the arrays of this {@code MessageBuffer} if they cannot hold the specified number of messages.
+	 * 
+	 * @param capacity
+	 *            a number of messages
+	 */
+	protected void ensureCapacity(int capacity) {
+		if (capacity <= keys.length)
+			return;
+		int c = Math.max(capacity, keys.length * 2);
+		keys = Arrays.copyOf(keys, c);
+		kinds = Arrays.copyOf(kinds, c);
+		pointers = Arrays.copyOf(pointers, c);
+	}
+
+}
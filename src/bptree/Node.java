@@ -33,8 +33,22 @@ public abstract class Node<K extends Comparable<K>> implements java.io.Serializa
 	 */
 	protected Object[] pointers;
 
+	/**
+	 * The maximum number of pointers that this {@code Node} can have.
+	 */
 	protected int degree;
 
+	/**
+	 * The strategy for searching the keys of this {@code Node}; {@code null} if the keys are scanned linearly.
+	 */
+	protected transient KeySearch keySearch;
+
+	/**
+	 * The data that the {@code KeySearch} of this {@code Node} derives from the keys (e.g., a packed copy of the
+	 * keys); {@code null} if not derived since the keys last changed.
+	 */
+	protected transient Object searchCache;
+
 	/**
 	 * Constructs a {@code Node}.
 	 * 
@@ -49,6 +63,15 @@ public abstract class Node<K extends Comparable<K>> implements java.io.Serializa
 		this.degree = degree;
 	}
 
+	/**
+	 * Returns the degree of this {@code Node}.
+	 * 
+	 * @return the maximum number of pointers that this {@code Node} can have
+	 */
+	public int degree() {
+		return degree;
+	}
+
 	public int GetChildrenCount() {
 		return keyCount + 1;
 	}
@@ -62,9 +85,9 @@ public abstract class Node<K extends Comparable<K>> implements java.io.Serializa
 	 */
 	public String toString(Map<Object, Integer> m) {
 		String s = toString(this, m) + "(";
-		for (int i = 0; i < keys.length; i++)
-			s += ((i == 0 ? "" : ", ") + toString(pointers[i], m) + ", " + keys[i]);
-		return s + ", " + toString(pointers[keys.length], m) + ")";
+		for (int i = 0; i < degree - 1; i++)
+			s += ((i == 0 ? "" : ", ") + toString(pointers[i], m) + ", " + key(i));
+		return s + ", " + toString(pointers[degree - 1], m) + ")";
 	}
 
 	/**
@@ -128,10 +151,11 @@ public abstract class Node<K extends Comparable<K>> implements java.io.Serializa
 	 */
 	public void append(Node<K> node, int beginIndex, int endIndex) {
 		for (int i = 0; i <= endIndex - beginIndex; i++) {
-			this.keys[keyCount] = node.keys[i + beginIndex];
-			this.pointers[keyCount] = node.pointers[i + beginIndex];
+			this.keys[keyCount] = node.key(i + beginIndex);
+			this.pointers[keyCount] = node.pointer(i + beginIndex);
 			keyCount++;
 		}
+		keysChanged();
 	}
 
 	/**
@@ -143,6 +167,25 @@ public abstract class Node<K extends Comparable<K>> implements java.io.Serializa
 			keys[i] = null;
 		for (int i = 0; i < pointers.length; i++)
 			pointers[i] = null;
+		keysChanged();
+	}
+
+	/**
+	 * Sets the strategy for searching the keys of this {@code Node}.
+	 * 
+	 * @param keySearch
+	 *            a {@code KeySearch}; {@code null} if the keys are to be scanned linearly
+	 */
+	public void setKeySearch(KeySearch keySearch) {
+		this.keySearch = keySearch;
+		searchCache = null;
+	}
+
+	/**
+	 * Discards the data derived from the keys of this {@code Node}. Must be invoked whenever the keys change.
+	 */
+	protected void keysChanged() {
+		searchCache = null;
 	}
 
 	/**
@@ -151,7 +194,7 @@ public abstract class Node<K extends Comparable<K>> implements java.io.Serializa
 	 * @return {@code true} if this {@code Node} is full and thus cannot contain more keys; {@code false} otherwise
 	 */
 	public boolean isFull() {
-		return keyCount >= keys.length;
+		return keyCount >= degree - 1;
 	}
 
 	/**
@@ -56,15 +56,30 @@ public class NonLeafNode<K extends Comparable<K>> extends Node<K> {
 	 *         specified key
 	 */
 	Node<K> child(K k) {
+		return pointer(childIndex(k));
+	}
+
+	/**
+	 * Returns the index of the child {@code Node} of this {@code NonLeafNode} that must be responsible for the
+	 * specified key.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the index of the child {@code Node} of this {@code NonLeafNode} that must be responsible for the
+	 *         specified key
+	 */
+	int childIndex(K k) {
+		if (keySearch != null)
+			return keySearch.upperBound(this, k);
 		int i = 0;
 		for (; i < keyCount; i++) {
 			int c = k.compareTo(keys[i]);
 			if (c == 0)
-				return pointer(i + 1);
+				return i + 1;
 			else if (c < 0)
-				return pointer(i);
+				return i;
 		}
-		return pointer(i);
+		return i;
 	}
 
 	/**
@@ -87,6 +102,152 @@ public class NonLeafNode<K extends Comparable<K>> extends Node<K> {
 		keys[i] = key;
 		pointers[i + 1] = pointer;
 		keyCount++;
+		keysChanged();
+	}
+
+	/**
+	 * Splits this full {@code NonLeafNode} while inserting the specified key and pointer right after the specified
+	 * pointer. Of the resulting keys and pointers, the first {@code m} pointers (and the keys between them) stay in this
+	 * {@code NonLeafNode}, the middle key is returned, and the remaining keys and pointers are moved to the specified
+	 * empty {@code NonLeafNode}.
+	 * 
+	 * @param key
+	 *            a key
+	 * @param pointer
+	 *            a pointer to a {@code Node}
+	 * @param p
+	 *            a pointer after which the specified key and pointer will be inserted
+	 * @param sibling
+	 *            an empty {@code NonLeafNode}
+	 * @param m
+	 *            the number of pointers that stay in this {@code NonLeafNode}
+	 * @return the middle key that separates this {@code NonLeafNode} and the specified {@code NonLeafNode}
+	 */
+	public K split(K key, Node<K> pointer, Node<K> p, NonLeafNode<K> sibling, int m) {
+		int i = indexOf(p); // the new key would be at index i and the new pointer at index i + 1
+		K middle;
+		if (i < m - 1) { // the new key and pointer stay in this node
+			middle = keys[m - 2];
+			moveTo(sibling, m - 1);
+			keys[m - 2] = null;
+			keyCount = m - 2;
+			insert(key, i, pointer, i + 1);
+		} else if (i == m - 1) { // the new key is the middle key
+			middle = key;
+			sibling.pointers[0] = pointer;
+			System.arraycopy(keys, m - 1, sibling.keys, 0, keyCount - m + 1);
+			System.arraycopy(pointers, m, sibling.pointers, 1, keyCount - m + 1);
+			sibling.keyCount = keyCount - m + 1;
+			truncate(m - 1);
+		} else { // the new key and pointer go to the sibling
+			middle = keys[m - 1];
+			moveTo(sibling, m);
+			keys[m - 1] = null;
+			keyCount = m - 1;
+			sibling.insert(key, i - m, pointer, i - m + 1);
+		}
+		keysChanged();
+		sibling.keysChanged();
+		return middle;
+	}
+
+	/**
+	 * Moves the pointers of this {@code NonLeafNode} from the specified index onward, together with the keys between
+	 * them, to the specified empty {@code NonLeafNode}. The key before the first moved pointer stays in this
+	 * {@code NonLeafNode}.
+	 * 
+	 * @param node
+	 *            an empty {@code NonLeafNode}
+	 * @param beginIndex
+	 *            the index of the first pointer to move
+	 */
+	void moveTo(NonLeafNode<K> node, int beginIndex) {
+		int n = keyCount - beginIndex;
+		System.arraycopy(keys, beginIndex, node.keys, 0, n);
+		System.arraycopy(pointers, beginIndex, node.pointers, 0, n + 1);
+		node.keyCount = n;
+		for (int i = beginIndex; i < keyCount; i++)
+			keys[i] = null;
+		for (int i = beginIndex; i <= keyCount; i++)
+			pointers[i] = null;
+		keysChanged();
+		node.keysChanged();
+	}
+
+	/**
+	 * Removes the keys of this {@code NonLeafNode} from the specified index onward and the pointers after them.
+	 * 
+	 * @param n
+	 *            the number of keys to keep
+	 */
+	void truncate(int n) {
+		for (int i = n; i < keyCount; i++) {
+			keys[i] = null;
+			pointers[i + 1] = null;
+		}
+		keyCount = n;
+		keysChanged();
+	}
+
+	/**
+	 * Moves the last specified number of pointers of this {@code NonLeafNode}, together with the keys between them, to
+	 * the beginning of the specified {@code NonLeafNode} in one bulk move. The specified key, which separates the two
+	 * {@code NonLeafNode}s, moves down into the specified {@code NonLeafNode} and the key before the first moved pointer
+	 * becomes the new separating key.
+	 * 
+	 * @param node
+	 *            the {@code NonLeafNode} that follows this {@code NonLeafNode} and has room for the keys and pointers
+	 * @param key
+	 *            the key between this {@code NonLeafNode} and the specified {@code NonLeafNode}
+	 * @param s
+	 *            the number of pointers to move
+	 * @return the new key between this {@code NonLeafNode} and the specified {@code NonLeafNode}
+	 */
+	K shiftRight(NonLeafNode<K> node, K key, int s) {
+		int b = keyCount - s; // the index of the new separating key
+		System.arraycopy(node.keys, 0, node.keys, s, node.keyCount);
+		System.arraycopy(node.pointers, 0, node.pointers, s, node.keyCount + 1);
+		System.arraycopy(keys, b + 1, node.keys, 0, s - 1);
+		node.keys[s - 1] = key;
+		System.arraycopy(pointers, b + 1, node.pointers, 0, s);
+		node.keyCount += s;
+		K middle = keys[b];
+		truncate(b);
+		node.keysChanged();
+		return middle;
+	}
+
+	/**
+	 * Moves the first specified number of pointers of the specified {@code NonLeafNode}, together with the keys between
+	 * them, to the end of this {@code NonLeafNode} in one bulk move. The specified key, which separates the two
+	 * {@code NonLeafNode}s, moves down into this {@code NonLeafNode} and the key after the last moved pointer becomes
+	 * the new separating key.
+	 * 
+	 * @param node
+	 *            the {@code NonLeafNode} that follows this {@code NonLeafNode}
+	 * @param key
+	 *            the key between this {@code NonLeafNode} and the specified {@code NonLeafNode}
+	 * @param s
+	 *            the number of pointers to move
+	 * @return the new key between this {@code NonLeafNode} and the specified {@code NonLeafNode}
+	 */
+	K shiftLeft(NonLeafNode<K> node, K key, int s) {
+		keys[keyCount] = key;
+		System.arraycopy(node.keys, 0, keys, keyCount + 1, s - 1);
+		System.arraycopy(node.pointers, 0, pointers, keyCount + 1, s);
+		keyCount += s;
+		K middle = node.keys[s - 1];
+		int r = node.keyCount - s; // the number of remaining keys
+		System.arraycopy(node.keys, s, node.keys, 0, r);
+		System.arraycopy(node.pointers, s, node.pointers, 0, r + 1);
+		for (int i = r; i < node.keyCount; i++) {
+			node.keys[i] = null;
+			node.pointers[i + 1] = null;
+		}
+		node.keyCount = r;
+		keysChanged();
+		node.keysChanged();
+		return middle;
 	}
 
 	/**
@@ -134,6 +295,7 @@ public class NonLeafNode<K extends Comparable<K>> extends Node<K> {
 			pointers[i] = pointers[i - 1];
 		pointers[iP] = p;
 		keyCount++;
+		keysChanged();
 	}
 
 	/**
@@ -152,6 +314,7 @@ public class NonLeafNode<K extends Comparable<K>> extends Node<K> {
 		keys[keyCount - 1] = null;
 		pointers[keyCount] = null;
 		keyCount--;
+		keysChanged();
 	}
 
 	/**
@@ -180,6 +343,7 @@ public class NonLeafNode<K extends Comparable<K>> extends Node<K> {
 		keyCount--;
 		keys[keyCount] = null;
 		pointers[keyCount + 1] = null;
+		keysChanged();
 	}
 
 	/**
@@ -196,6 +360,7 @@ public class NonLeafNode<K extends Comparable<K>> extends Node<K> {
 		for (int i = 0; i < keyCount; i++)
 			if (pointers[i].equals(p) && pointers[i + 1].equals(n)) {
 				keys[i] = k;
+				keysChanged();
 				return;
 			}
 		throw new UnsupportedOperationException("There must be a bug in the code. This case must not happen!");
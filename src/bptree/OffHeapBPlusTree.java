@@ -0,0 +1,950 @@
+package bptree;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The {@code OffHeapBPlusTree} class implements B+-trees whose {@code long} keys and {@code long} pointers are kept
+ * outside of the Java heap. Each node occupies a fixed-size slot in one of a number of {@code MemorySegment}s, which
+ * are allocated from an {@code Arena} and freed all at once by {@link #close()}, and is addressed by the byte offset of
+ * that slot. Slots released by merges are kept in a free list (threaded through the released slots themselves) and
+ * reused. Since no Java object is created per node, the heap usage and the garbage collection cost of an
+ * {@code OffHeapBPlusTree} do not grow with the number of keys.
+ *
+ * The slot of a node of degree d is laid out as follows: the type of the node (4 bytes), the number of keys (4
+ * bytes), d - 1 keys (8 bytes each), d pointers (8 bytes each), and, for leaf nodes, the offset of the predecessor (8
+ * bytes). As in {@code LeafNode}, the last pointer of a leaf node is the offset of its successor.
+ *
+ * {@link #root()}, {@link #child(NonLeafNode, int)}, {@link #successor(LeafNode)} and {@link #predecessor(LeafNode)}
+ * return on-heap copies of the nodes (whose pointers to other nodes are {@code Long} offsets) so that the
+ * {@code OffHeapBPlusTree} can be scanned and visualized like other {@code BPlusTree}s. Point lookups, including
+ * {@link #search(Long)}, read the slots directly without creating such copies.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class OffHeapBPlusTree extends BPlusTree<Long, Long> implements AutoCloseable {
+
+	/**
+	 * The offset representing the absence of a node.
+	 */
+	public static final long NULL = -1;
+
+	/**
+	 * The type of leaf nodes.
+	 */
+	protected static final int LEAF = 0;
+
+	/**
+	 * The type of non-leaf nodes.
+	 */
+	protected static final int NON_LEAF = 1;
+
+	/**
+	 * The default size of each {@code MemorySegment} in bytes.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+	/**
+	 * The size of each slot in bytes.
+	 */
+	protected final int slotSize;
+
+	/**
+	 * The size of each {@code MemorySegment} in bytes (a multiple of the slot size).
+	 */
+	protected final int segmentSize;
+
+	/**
+	 * The {@code Arena} from which the {@code MemorySegment}s are allocated; {@code null} if no {@code MemorySegment}
+	 * has been allocated since this {@code OffHeapBPlusTree} was constructed or closed.
+	 */
+	protected Arena arena;
+
+	/**
+	 * The {@code MemorySegment}s that contain the slots.
+	 */
+	protected ArrayList<MemorySegment> segments = new ArrayList<MemorySegment>();
+
+	/**
+	 * The offset of the first slot that has never been used.
+	 */
+	protected long top = 0;
+
+	/**
+	 * The offset of the first free slot; {@link #NULL} if no free slot.
+	 */
+	protected long free = NULL;
+
+	/**
+	 * The offset of the root node; {@link #NULL} if this {@code OffHeapBPlusTree} is empty.
+	 */
+	protected long root = NULL;
+
+	/**
+	 * The number of keys in this {@code OffHeapBPlusTree}.
+	 */
+	protected long size = 0;
+
+	/**
+	 * The non-leaf nodes visited by the last descent, from the root.
+	 */
+	protected long[] path = new long[16];
+
+	/**
+	 * The index of the child followed at each non-leaf node visited by the last descent.
+	 */
+	protected int[] pathIndex = new int[16];
+
+	/**
+	 * Temporary storage for keys when a non-leaf node is split.
+	 */
+	protected long[] splitKeys;
+
+	/**
+	 * Temporary storage for pointers when a non-leaf node is split.
+	 */
+	protected long[] splitPointers;
+
+	/**
+	 * Constructs an {@code OffHeapBPlusTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each node of this {@code OffHeapBPlusTree} can have
+	 */
+	public OffHeapBPlusTree(int degree) {
+		this(degree, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Constructs an {@code OffHeapBPlusTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each node of this {@code OffHeapBPlusTree} can have
+	 * @param segmentSize
+	 *            the (approximate) size of each {@code MemorySegment} in bytes
+	 */
+	public OffHeapBPlusTree(int degree, int segmentSize) {
+		super(degree);
+		slotSize = 16 * degree + 8;
+		this.segmentSize = Math.max(1, segmentSize / slotSize) * slotSize;
+		splitKeys = new long[degree];
+		splitPointers = new long[degree + 1];
+	}
+
+	/**
+	 * Returns the number of keys in this {@code OffHeapBPlusTree}.
+	 *
+	 * @return the number of keys in this {@code OffHeapBPlusTree}
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of bytes reserved outside of the Java heap by this {@code OffHeapBPlusTree}.
+	 *
+	 * @return the number of bytes reserved outside of the Java heap by this {@code OffHeapBPlusTree}
+	 */
+	public long reservedBytes() {
+		return (long) segments.size() * segmentSize;
+	}
+
+	/**
+	 * Removes all of the keys from this {@code OffHeapBPlusTree} and frees the memory reserved outside of the Java
+	 * heap by closing the {@code Arena}. This {@code OffHeapBPlusTree} can be used again afterwards, in which case a
+	 * new {@code Arena} is created.
+	 */
+	@Override
+	public void close() {
+		if (arena != null) {
+			arena.close();
+			arena = null;
+		}
+		segments.clear();
+		top = 0;
+		free = NULL;
+		root = NULL;
+		size = 0;
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key.
+	 *
+	 * @param k
+	 *            a key
+	 * @param absent
+	 *            the value to return if the key is not in this {@code OffHeapBPlusTree}
+	 * @return the pointer associated with the specified key; {@code absent} if the key is not in this
+	 *         {@code OffHeapBPlusTree}
+	 */
+	public long get(long k, long absent) {
+		if (root == NULL)
+			return absent;
+		long l = find(k);
+		int i = lowerBound(l, k);
+		return i < keyCount(l) && key(l, i) == k ? pointer(l, i) : absent;
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key. The slots are read directly as in
+	 * {@link #get(long, long)}, without creating on-heap copies of the nodes.
+	 *
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the key is not in this
+	 *         {@code OffHeapBPlusTree}
+	 */
+	@Override
+	public Long search(Long k) {
+		if (root == NULL)
+			return null;
+		long l = find(k);
+		int i = lowerBound(l, k);
+		return i < keyCount(l) && key(l, i) == k ? pointer(l, i) : null;
+	}
+
+	/**
+	 * Determines whether or not the specified key is contained in this {@code OffHeapBPlusTree}.
+	 *
+	 * @param k
+	 *            a key
+	 * @return {@code true} if the specified key is contained in this {@code OffHeapBPlusTree}; {@code false}
+	 *         otherwise
+	 */
+	public boolean contains(long k) {
+		if (root == NULL)
+			return false;
+		long l = find(k);
+		int i = lowerBound(l, k);
+		return i < keyCount(l) && key(l, i) == k;
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code OffHeapBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code OffHeapBPlusTree} is attempted to be inserted again
+	 */
+	@Override
+	public void insert(Long k, Long p) throws InvalidInsertionException {
+		insert(k.longValue(), p.longValue());
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code OffHeapBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code OffHeapBPlusTree} is attempted to be inserted again
+	 */
+	public void insert(long k, long p) throws InvalidInsertionException {
+		if (root == NULL) { // if the tree is empty
+			root = allocate(LEAF);
+			insert(root, 0, k, p);
+			size++;
+			return;
+		}
+		long l = find(k); // find leaf node l that should contain the specified key
+		int i = lowerBound(l, k);
+		if (i < keyCount(l) && key(l, i) == k) // no duplicate keys are allowed in the tree
+			throw new InvalidInsertionException("key: " + k);
+		size++;
+		if (keyCount(l) < degree - 1) { // if leaf node l has room for the specified key
+			insert(l, i, k, p);
+			return;
+		}
+		// l is full and thus needs to be split; the new entry is conceptually at index i among degree entries
+		long lp = allocate(LEAF);
+		int m = (int) Math.ceil(degree / 2.0); // compute the split point
+		for (int j = m; j < degree; j++) // move the second half to lp
+			if (j < i)
+				setEntry(lp, j - m, key(l, j), pointer(l, j));
+			else if (j == i)
+				setEntry(lp, j - m, k, p);
+			else
+				setEntry(lp, j - m, key(l, j - 1), pointer(l, j - 1));
+		setKeyCount(lp, degree - m);
+		setKeyCount(l, m);
+		if (i < m) { // the new entry belongs to l
+			setKeyCount(l, m - 1);
+			insert(l, i, k, p);
+		}
+		long s = successor(l);
+		setPointer(lp, degree - 1, s); // chaining from lp to the next leaf node
+		setPredecessor(lp, l);
+		if (s != NULL)
+			setPredecessor(s, lp);
+		setPointer(l, degree - 1, lp); // chaining from l to lp
+		insertInParent(l, key(lp, 0), lp, depth);
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code OffHeapBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code OffHeapBPlusTree} is attempted to be deleted
+	 */
+	@Override
+	public void delete(Long k) throws InvalidDeletionException {
+		delete(k.longValue());
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code OffHeapBPlusTree}.
+	 *
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code OffHeapBPlusTree} is attempted to be deleted
+	 */
+	public void delete(long k) throws InvalidDeletionException {
+		if (root == NULL)
+			throw new InvalidDeletionException("key: " + k);
+		long l = find(k);
+		int i = lowerBound(l, k);
+		if (i == keyCount(l) || key(l, i) != k)
+			throw new InvalidDeletionException("key: " + k);
+		size--;
+		removeEntry(l, i);
+		rebalance(l, depth);
+	}
+
+	/**
+	 * Returns an on-heap copy of the root node of this {@code OffHeapBPlusTree}.
+	 *
+	 * @return an on-heap copy of the root node of this {@code OffHeapBPlusTree}; {@code null} if this
+	 *         {@code OffHeapBPlusTree} is empty
+	 */
+	@Override
+	public Node<Long> root() {
+		return copy(root);
+	}
+
+	/**
+	 * Returns an on-heap copy of the specified child of the specified node.
+	 *
+	 * @param node
+	 *            an on-heap copy of a non-leaf node
+	 * @param i
+	 *            the index of the child node
+	 * @return an on-heap copy of the specified child of the specified node; {@code null} if no such child
+	 */
+	@Override
+	public Node<Long> child(NonLeafNode<Long> node, int i) {
+		Long c = node.pointer(i);
+		return c == null ? null : copy(c);
+	}
+
+	/**
+	 * Returns an on-heap copy of the leaf node that succeeds the specified leaf node.
+	 *
+	 * @param node
+	 *            an on-heap copy of a leaf node
+	 * @return an on-heap copy of the leaf node that succeeds the specified leaf node; {@code null} if no such node
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public LeafNode<Long, Long> successor(LeafNode<Long, Long> node) {
+		Long s = node.successor();
+		return s == null ? null : (LeafNode<Long, Long>) copy(s);
+	}
+
+	/**
+	 * Returns an on-heap copy of the leaf node that precedes the specified leaf node.
+	 *
+	 * @param node
+	 *            an on-heap copy of a leaf node
+	 * @return an on-heap copy of the leaf node that precedes the specified leaf node; {@code null} if no such node
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public LeafNode<Long, Long> predecessor(LeafNode<Long, Long> node) {
+		Long s = node.predecessor();
+		return s == null ? null : (LeafNode<Long, Long>) copy(s);
+	}
+
+	/**
+	 * Returns an on-heap copy of the specified node.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @return an on-heap copy of the specified node; {@code null} if {@code n} is {@link #NULL}
+	 */
+	protected Node<Long> copy(long n) {
+		if (n == NULL)
+			return null;
+		LeafNode<Long, Long> leaf = isLeaf(n) ? new LeafNode<Long, Long>(degree) : null;
+		Node<Long> c = leaf != null ? leaf : new NonLeafNode<Long>(degree);
+		c.keyCount = keyCount(n);
+		Object[] keys = c.keys; // a Comparable[] at run time
+		for (int i = 0; i < c.keyCount; i++)
+			keys[i] = key(n, i);
+		if (leaf != null) {
+			for (int i = 0; i < c.keyCount; i++)
+				c.pointers[i] = pointer(n, i);
+			long s = successor(n), p = predecessor(n);
+			leaf.setSuccessor(s == NULL ? null : s);
+			leaf.setPredecessor(p == NULL ? null : p);
+		} else
+			for (int i = 0; i <= c.keyCount; i++)
+				c.pointers[i] = pointer(n, i);
+		return c;
+	}
+
+	/**
+	 * The number of non-leaf nodes visited by the last descent.
+	 */
+	protected int depth;
+
+	/**
+	 * Finds the leaf node that must be responsible for the specified key while remembering the visited non-leaf nodes
+	 * in {@link #path}.
+	 *
+	 * @param k
+	 *            a search key
+	 * @return the offset of the leaf node that must be responsible for the specified key
+	 */
+	protected long find(long k) {
+		long n = root;
+		depth = 0;
+		while (!isLeaf(n)) {
+			if (depth == path.length) {
+				path = Arrays.copyOf(path, depth * 2);
+				pathIndex = Arrays.copyOf(pathIndex, depth * 2);
+			}
+			int i = upperBound(n, k);
+			path[depth] = n;
+			pathIndex[depth++] = i;
+			n = pointer(n, i);
+		}
+		return n;
+	}
+
+	/**
+	 * Inserts the specified key into the parent of the specified nodes.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @param k
+	 *            the key between the nodes
+	 * @param np
+	 *            the offset of the node that follows {@code n}
+	 * @param d
+	 *            the number of non-leaf nodes above {@code n}
+	 */
+	protected void insertInParent(long n, long k, long np, int d) {
+		if (d == 0) { // if n is the root of the tree
+			long r = allocate(NON_LEAF);
+			setPointer(r, 0, n);
+			setKey(r, 0, k);
+			setPointer(r, 1, np);
+			setKeyCount(r, 1);
+			root = r;
+			return;
+		}
+		long p = path[d - 1]; // the parent p of n
+		int i = pathIndex[d - 1]; // the index of n in p
+		int c = keyCount(p);
+		if (c < degree - 1) { // if parent node p has room for a new entry
+			for (int j = c; j > i; j--) {
+				setKey(p, j, key(p, j - 1));
+				setPointer(p, j + 1, pointer(p, j));
+			}
+			setKey(p, i, k);
+			setPointer(p, i + 1, np);
+			setKeyCount(p, c + 1);
+			return;
+		}
+		// p is full and thus needs to be split
+		for (int j = 0, s = 0; j < degree; j++, s++) {
+			if (j == i) {
+				splitKeys[j] = k;
+				s--;
+			} else
+				splitKeys[j] = key(p, s);
+		}
+		for (int j = 0, s = 0; j <= degree; j++, s++) {
+			if (j == i + 1) {
+				splitPointers[j] = np;
+				s--;
+			} else
+				splitPointers[j] = pointer(p, s);
+		}
+		long pp = allocate(NON_LEAF);
+		int m = (int) Math.ceil((degree + 1) / 2.0); // compute the split point
+		for (int j = 0; j < m - 1; j++)
+			setKey(p, j, splitKeys[j]);
+		for (int j = 0; j < m; j++)
+			setPointer(p, j, splitPointers[j]);
+		setKeyCount(p, m - 1);
+		for (int j = m; j < degree; j++)
+			setKey(pp, j - m, splitKeys[j]);
+		for (int j = m; j <= degree; j++)
+			setPointer(pp, j - m, splitPointers[j]);
+		setKeyCount(pp, degree - m);
+		insertInParent(p, splitKeys[m - 1], pp, d - 1); // use the middle key as the separating key
+	}
+
+	/**
+	 * Merges or redistributes the specified node with a sibling if it is under-utilized.
+	 *
+	 * @param n
+	 *            the offset of a node from which an entry has been removed
+	 * @param d
+	 *            the number of non-leaf nodes above {@code n}
+	 */
+	protected void rebalance(long n, int d) {
+		if (d == 0) { // if n is the root
+			if (keyCount(n) == 0) {
+				root = isLeaf(n) ? NULL : pointer(n, 0);
+				release(n);
+			}
+			return;
+		}
+		if (!isUnderUtilized(n))
+			return;
+		long parent = path[d - 1];
+		int index = pathIndex[d - 1];
+		long left = index > 0 ? pointer(parent, index - 1) : NULL;
+		long right = index < keyCount(parent) ? pointer(parent, index + 1) : NULL;
+		if (left != NULL && mergeable(left, n))
+			merge(left, parent, index - 1, n, d);
+		else if (right != NULL && mergeable(n, right))
+			merge(n, parent, index, right, d);
+		else if (left != NULL)
+			redistributeRight(left, parent, index - 1, n);
+		else if (right != NULL)
+			redistributeLeft(n, parent, index, right);
+	}
+
+	/**
+	 * Merges the specified nodes and then removes the key between them from their parent.
+	 *
+	 * @param np
+	 *            the offset of a node
+	 * @param parent
+	 *            the offset of the parent of the nodes
+	 * @param i
+	 *            the index of the key between the nodes in the parent
+	 * @param n
+	 *            the offset of the node that follows {@code np} and will be released
+	 * @param d
+	 *            the number of non-leaf nodes above the nodes
+	 */
+	protected void merge(long np, long parent, int i, long n, int d) {
+		int c = keyCount(np);
+		if (isLeaf(n)) {
+			for (int j = 0; j < keyCount(n); j++)
+				setEntry(np, c + j, key(n, j), pointer(n, j));
+			setKeyCount(np, c + keyCount(n));
+			long s = successor(n);
+			setPointer(np, degree - 1, s);
+			if (s != NULL)
+				setPredecessor(s, np);
+		} else {
+			setKey(np, c, key(parent, i)); // the separator key comes down
+			for (int j = 0; j < keyCount(n); j++)
+				setKey(np, c + 1 + j, key(n, j));
+			for (int j = 0; j <= keyCount(n); j++)
+				setPointer(np, c + 1 + j, pointer(n, j));
+			setKeyCount(np, c + 1 + keyCount(n));
+		}
+		release(n);
+		int pc = keyCount(parent); // remove the key at i and the pointer at i + 1 from the parent
+		for (int j = i; j < pc - 1; j++) {
+			setKey(parent, j, key(parent, j + 1));
+			setPointer(parent, j + 1, pointer(parent, j + 2));
+		}
+		setKeyCount(parent, pc - 1);
+		rebalance(parent, d - 1);
+	}
+
+	/**
+	 * Moves the last entry of the first specified node to the second specified node.
+	 *
+	 * @param np
+	 *            the offset of a node from which an entry is removed
+	 * @param parent
+	 *            the offset of the parent of the nodes
+	 * @param i
+	 *            the index of the key between the nodes in the parent
+	 * @param n
+	 *            the offset of a node to which an entry is added
+	 */
+	protected void redistributeRight(long np, long parent, int i, long n) {
+		int m = keyCount(np);
+		if (isLeaf(n)) {
+			insert(n, 0, key(np, m - 1), pointer(np, m - 1));
+			setKeyCount(np, m - 1);
+			setKey(parent, i, key(n, 0));
+		} else {
+			int c = keyCount(n);
+			for (int j = c; j > 0; j--)
+				setKey(n, j, key(n, j - 1));
+			for (int j = c + 1; j > 0; j--)
+				setPointer(n, j, pointer(n, j - 1));
+			setKey(n, 0, key(parent, i));
+			setPointer(n, 0, pointer(np, m));
+			setKeyCount(n, c + 1);
+			setKey(parent, i, key(np, m - 1));
+			setKeyCount(np, m - 1);
+		}
+	}
+
+	/**
+	 * Moves the first entry of the second specified node to the first specified node.
+	 *
+	 * @param n
+	 *            the offset of a node to which an entry is added
+	 * @param parent
+	 *            the offset of the parent of the nodes
+	 * @param i
+	 *            the index of the key between the nodes in the parent
+	 * @param np
+	 *            the offset of a node from which an entry is removed
+	 */
+	protected void redistributeLeft(long n, long parent, int i, long np) {
+		int c = keyCount(n);
+		if (isLeaf(n)) {
+			setEntry(n, c, key(np, 0), pointer(np, 0));
+			setKeyCount(n, c + 1);
+			removeEntry(np, 0);
+			setKey(parent, i, key(np, 0));
+		} else {
+			setKey(n, c, key(parent, i));
+			setPointer(n, c + 1, pointer(np, 0));
+			setKeyCount(n, c + 1);
+			setKey(parent, i, key(np, 0));
+			int m = keyCount(np);
+			for (int j = 0; j < m - 1; j++)
+				setKey(np, j, key(np, j + 1));
+			for (int j = 0; j < m; j++)
+				setPointer(np, j, pointer(np, j + 1));
+			setKeyCount(np, m - 1);
+		}
+	}
+
+	/**
+	 * Determines whether or not the specified node is under-utilized.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @return {@code true} if the specified node is under-utilized; {@code false} otherwise
+	 */
+	protected boolean isUnderUtilized(long n) {
+		if (isLeaf(n))
+			return keyCount(n) < Math.ceil((degree - 1.0) / 2.0);
+		return keyCount(n) + 1 < Math.ceil(degree / 2.0);
+	}
+
+	/**
+	 * Determines whether or not the specified nodes can be merged.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @param np
+	 *            the offset of a node
+	 * @return {@code true} if the specified nodes can be merged; {@code false} otherwise
+	 */
+	protected boolean mergeable(long n, long np) {
+		if (isLeaf(n))
+			return keyCount(n) + keyCount(np) <= degree - 1;
+		return keyCount(n) + keyCount(np) + 2 <= degree;
+	}
+
+	/**
+	 * Inserts the specified key and pointer at the specified index of the specified leaf node, which must have room
+	 * for them.
+	 *
+	 * @param l
+	 *            the offset of a leaf node
+	 * @param i
+	 *            the index at which the key and pointer are inserted
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 */
+	protected void insert(long l, int i, long k, long p) {
+		int c = keyCount(l);
+		for (int j = c; j > i; j--)
+			setEntry(l, j, key(l, j - 1), pointer(l, j - 1));
+		setEntry(l, i, k, p);
+		setKeyCount(l, c + 1);
+	}
+
+	/**
+	 * Removes the key and pointer at the specified index of the specified leaf node.
+	 *
+	 * @param l
+	 *            the offset of a leaf node
+	 * @param i
+	 *            the index of the key and pointer to remove
+	 */
+	protected void removeEntry(long l, int i) {
+		int c = keyCount(l);
+		for (int j = i; j < c - 1; j++)
+			setEntry(l, j, key(l, j + 1), pointer(l, j + 1));
+		setKeyCount(l, c - 1);
+	}
+
+	/**
+	 * Returns the index of the first key in the specified node that is not smaller than the specified key.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @param k
+	 *            a key
+	 * @return the index of the first key in the specified node that is not smaller than the specified key
+	 */
+	protected int lowerBound(long n, long k) {
+		int lo = 0, hi = keyCount(n);
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (key(n, mid) < k)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the index of the first key in the specified node that is larger than the specified key (i.e., the index
+	 * of the child responsible for the key).
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @param k
+	 *            a key
+	 * @return the index of the first key in the specified node that is larger than the specified key
+	 */
+	protected int upperBound(long n, long k) {
+		int lo = 0, hi = keyCount(n);
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (key(n, mid) <= k)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Allocates a slot for a new node.
+	 *
+	 * @param type
+	 *            the type of the node
+	 * @return the offset of the new node
+	 */
+	protected long allocate(int type) {
+		long n;
+		if (free != NULL) { // reuse a released slot
+			n = free;
+			free = segment(n).get(ValueLayout.JAVA_LONG, position(n));
+		} else {
+			n = top;
+			top += slotSize;
+			if (n / segmentSize == segments.size()) {
+				if (arena == null)
+					arena = Arena.ofShared();
+				segments.add(arena.allocate(segmentSize, Long.BYTES));
+			}
+		}
+		MemorySegment s = segment(n);
+		long o = position(n);
+		s.set(ValueLayout.JAVA_INT, o, type);
+		s.set(ValueLayout.JAVA_INT, o + 4, 0);
+		if (type == LEAF) {
+			setPointer(n, degree - 1, NULL);
+			setPredecessor(n, NULL);
+		}
+		return n;
+	}
+
+	/**
+	 * Releases the slot of the specified node so that it can be reused.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 */
+	protected void release(long n) {
+		segment(n).set(ValueLayout.JAVA_LONG, position(n), free);
+		free = n;
+	}
+
+	/**
+	 * Returns the {@code MemorySegment} containing the specified node.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @return the {@code MemorySegment} containing the specified node
+	 */
+	protected MemorySegment segment(long n) {
+		return segments.get((int) (n / segmentSize));
+	}
+
+	/**
+	 * Returns the position of the specified node within its {@code MemorySegment}.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @return the position of the specified node within its {@code MemorySegment}
+	 */
+	protected long position(long n) {
+		return n % segmentSize;
+	}
+
+	/**
+	 * Determines whether or not the specified node is a leaf node.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @return {@code true} if the specified node is a leaf node; {@code false} otherwise
+	 */
+	protected boolean isLeaf(long n) {
+		return segment(n).get(ValueLayout.JAVA_INT, position(n)) == LEAF;
+	}
+
+	/**
+	 * Returns the number of keys in the specified node.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @return the number of keys in the specified node
+	 */
+	protected int keyCount(long n) {
+		return segment(n).get(ValueLayout.JAVA_INT, position(n) + 4);
+	}
+
+	/**
+	 * Sets the number of keys in the specified node.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @param c
+	 *            the number of keys
+	 */
+	protected void setKeyCount(long n, int c) {
+		segment(n).set(ValueLayout.JAVA_INT, position(n) + 4, c);
+	}
+
+	/**
+	 * Returns the key at the specified index of the specified node.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @param i
+	 *            the index of the key
+	 * @return the key at the specified index of the specified node
+	 */
+	protected long key(long n, int i) {
+		return segment(n).get(ValueLayout.JAVA_LONG, position(n) + 8 + 8 * i);
+	}
+
+	/**
+	 * Sets the key at the specified index of the specified node.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @param i
+	 *            the index of the key
+	 * @param k
+	 *            a key
+	 */
+	protected void setKey(long n, int i, long k) {
+		segment(n).set(ValueLayout.JAVA_LONG, position(n) + 8 + 8 * i, k);
+	}
+
+	/**
+	 * Returns the pointer at the specified index of the specified node.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @param i
+	 *            the index of the pointer
+	 * @return the pointer at the specified index of the specified node
+	 */
+	protected long pointer(long n, int i) {
+		return segment(n).get(ValueLayout.JAVA_LONG, position(n) + 8 * degree + 8 * i);
+	}
+
+	/**
+	 * Sets the pointer at the specified index of the specified node.
+	 *
+	 * @param n
+	 *            the offset of a node
+	 * @param i
+	 *            the index of the pointer
+	 * @param p
+	 *            a pointer
+	 */
+	protected void setPointer(long n, int i, long p) {
+		segment(n).set(ValueLayout.JAVA_LONG, position(n) + 8 * degree + 8 * i, p);
+	}
+
+	/**
+	 * Sets the key and pointer at the specified index of the specified leaf node.
+	 *
+	 * @param l
+	 *            the offset of a leaf node
+	 * @param i
+	 *            the index of the key and pointer
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 */
+	protected void setEntry(long l, int i, long k, long p) {
+		setKey(l, i, k);
+		setPointer(l, i, p);
+	}
+
+	/**
+	 * Returns the successor of the specified leaf node.
+	 *
+	 * @param l
+	 *            the offset of a leaf node
+	 * @return the offset of the successor of the specified leaf node; {@link #NULL} if no successor
+	 */
+	protected long successor(long l) {
+		return pointer(l, degree - 1);
+	}
+
+	/**
+	 * Returns the predecessor of the specified leaf node.
+	 *
+	 * @param l
+	 *            the offset of a leaf node
+	 * @return the offset of the predecessor of the specified leaf node; {@link #NULL} if no predecessor
+	 */
+	protected long predecessor(long l) {
+		return segment(l).get(ValueLayout.JAVA_LONG, position(l) + 16 * degree);
+	}
+
+	/**
+	 * Sets the predecessor of the specified leaf node.
+	 *
+	 * @param l
+	 *            the offset of a leaf node
+	 * @param p
+	 *            the offset of the predecessor; {@link #NULL} if no predecessor
+	 */
+	protected void setPredecessor(long l, long p) {
+		segment(l).set(ValueLayout.JAVA_LONG, position(l) + 16 * degree, p);
+	}
+
+}
@@ -0,0 +1,224 @@
+package bptree;
+
+import java.io.IOException;
+
+/**
+ * The {@code OrderStatisticBPlusTree} class implements B+-trees in which each {@code NonLeafNode} keeps the number of
+ * keys in the subtree under each of its children. These counts allow the rank of a key, the key at a given rank, and
+ * the number of keys in a range to be found in logarithmic time.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class OrderStatisticBPlusTree<K extends Comparable<K>, P> extends InMemoryBPlusTree<K, P> {
+
+	/**
+	 * Constructs an {@code OrderStatisticBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code OrderStatisticBPlusTree} can have
+	 */
+	public OrderStatisticBPlusTree(int degree) {
+		super(degree);
+	}
+
+	/**
+	 * Constructs an {@code OrderStatisticBPlusTree} whose {@code LeafNode}s and {@code NonLeafNode}s have different
+	 * degrees.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code NonLeafNode} of this {@code OrderStatisticBPlusTree}
+	 *            can have
+	 * @param leafDegree
+	 *            the maximum number of pointers (including the pointer to the next {@code LeafNode}) that each
+	 *            {@code LeafNode} of this {@code OrderStatisticBPlusTree} can have
+	 */
+	public OrderStatisticBPlusTree(int degree, int leafDegree) {
+		super(degree, leafDegree);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code OrderStatisticBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code OrderStatisticBPlusTree} is attempted to be inserted again
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		super.insert(k, p);
+		refreshPath(k); // the subtrees on the path now have one more key
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code OrderStatisticBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code OrderStatisticBPlusTree} is attempted to be deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void delete(K k) throws InvalidDeletionException, IOException {
+		super.delete(k);
+		refreshPath(k); // the subtrees on the path now have one less key
+	}
+
+	/**
+	 * Refreshes the counts on the path to the specified key after a batch message has inserted or deleted the key.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param kind
+	 *            {@code INSERT} if the key has been inserted, {@code UPSERT} if its pointer has been replaced, and
+	 *            {@code DELETE} if it has been deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void applied(K k, MessageBuffer.Kind kind) throws IOException {
+		super.applied(k, kind);
+		if (kind != MessageBuffer.Kind.UPSERT)
+			refreshPath(k); // the subtrees on the path now have one more or one less key
+	}
+
+	/**
+	 * Returns the number of keys in this {@code OrderStatisticBPlusTree}.
+	 * 
+	 * @return the number of keys in this {@code OrderStatisticBPlusTree}
+	 */
+	public int size() {
+		return root == null ? 0 : size(root);
+	}
+
+	/**
+	 * Returns the number of keys in this {@code OrderStatisticBPlusTree} that are smaller than the specified key.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the number of keys in this {@code OrderStatisticBPlusTree} that are smaller than the specified key
+	 */
+	public int rank(K k) {
+		return rank(k, false);
+	}
+
+	/**
+	 * Returns the key at the specified rank.
+	 * 
+	 * @param i
+	 *            a rank (i.e., the number of smaller keys)
+	 * @return the key at the specified rank
+	 * @throws IndexOutOfBoundsException
+	 *             if the rank is negative or not smaller than the number of keys in this
+	 *             {@code OrderStatisticBPlusTree}
+	 */
+	public K select(int i) {
+		if (i < 0 || i >= size())
+			throw new IndexOutOfBoundsException("rank: " + i);
+		Node<K> n = root;
+		while (n instanceof NonLeafNode) {
+			CountingNonLeafNode<K> nl = (CountingNonLeafNode<K>) n;
+			int j = 0;
+			for (; i >= nl.counts[j]; j++) // skip the children whose subtrees contain only smaller ranks
+				i -= nl.counts[j];
+			n = nl.pointer(j);
+		}
+		return n.key(i);
+	}
+
+	/**
+	 * Returns the number of keys in this {@code OrderStatisticBPlusTree} that are between the specified keys.
+	 * 
+	 * @param from
+	 *            the smallest key to count, inclusive
+	 * @param to
+	 *            the largest key to count, inclusive
+	 * @return the number of keys in this {@code OrderStatisticBPlusTree} that are between the specified keys
+	 */
+	public int count(K from, K to) {
+		return Math.max(0, rank(to, true) - rank(from, false));
+	}
+
+	/**
+	 * Returns the number of keys in this {@code OrderStatisticBPlusTree} that are smaller than (or equal to) the
+	 * specified key.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param inclusive
+	 *            {@code true} if the specified key is to be counted
+	 * @return the number of keys in this {@code OrderStatisticBPlusTree} that are smaller than (or equal to) the
+	 *         specified key
+	 */
+	@SuppressWarnings("unchecked")
+	protected int rank(K k, boolean inclusive) {
+		if (root == null)
+			return 0;
+		int r = 0;
+		Node<K> n = root;
+		while (n instanceof NonLeafNode) {
+			CountingNonLeafNode<K> nl = (CountingNonLeafNode<K>) n;
+			int i = nl.childIndex(k);
+			for (int j = 0; j < i; j++)
+				r += nl.counts[j];
+			n = nl.pointer(i);
+		}
+		LeafNode<K, P> l = (LeafNode<K, P>) n;
+		int i = l.findIndexL(k) + 1; // the number of keys smaller than k
+		if (inclusive && i < l.keyCount() && l.key(i).compareTo(k) == 0)
+			i++;
+		return r + i;
+	}
+
+	/**
+	 * Refreshes the number of keys that the specified {@code NonLeafNode} maintains for the specified child.
+	 * 
+	 * @param node
+	 *            a {@code NonLeafNode}
+	 * @param i
+	 *            the index of the child
+	 */
+	@Override
+	protected void refresh(NonLeafNode<K> node, int i) {
+		((CountingNonLeafNode<K>) node).counts[i] = size(node.pointer(i));
+	}
+
+	/**
+	 * Creates an empty {@code CountingNonLeafNode}.
+	 * 
+	 * @return an empty {@code CountingNonLeafNode}
+	 */
+	@Override
+	protected NonLeafNode<K> createNonLeafNode() {
+		return new CountingNonLeafNode<K>(degree);
+	}
+
+	/**
+	 * Returns the number of keys in the subtree rooted at the specified {@code Node}.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @return the number of keys in the subtree rooted at the specified {@code Node}
+	 */
+	protected int size(Node<K> n) {
+		if (n instanceof LeafNode)
+			return n.keyCount();
+		CountingNonLeafNode<K> nl = (CountingNonLeafNode<K>) n;
+		int s = 0;
+		for (int i = 0; i <= nl.keyCount(); i++)
+			s += nl.counts[i];
+		return s;
+	}
+
+}
@@ -0,0 +1,137 @@
+package bptree;
+
+/**
+ * The {@code PackedKeySearch} class locates {@code Integer} and {@code Long} search keys in {@code Node}s without
+ * dereferencing boxed keys or taking data-dependent branches. The keys of each {@code Node} are packed into a
+ * {@code long} array that is cached in the {@code Node} until its keys change. A search narrows the array down to a
+ * block of at most {@link #BLOCK} keys using branch-free binary search and then counts the keys in the block that are
+ * smaller than (or equal to) the search key (see {@link #count(long[], int, int, long)}). Other types of keys are
+ * located using binary search. {@link #create()} returns a {@code PackedKeySearch} that counts with SIMD instructions
+ * through the Vector API when the {@code jdk.incubator.vector} module is available. Whether packing pays off depends on
+ * the degree and on whether the boxed keys are in the cache; {@code util.NodeSearchBenchmark} compares the strategies.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class PackedKeySearch extends BinaryKeySearch {
+
+	/**
+	 * The maximum number of keys that are compared against a search key in a single counting pass.
+	 */
+	public static final int BLOCK = 32;
+
+	/**
+	 * Returns a {@code PackedKeySearch} that counts keys using the Vector API (see {@code VectorKeySearch}) if the
+	 * {@code jdk.incubator.vector} module is available (e.g., with {@code --add-modules jdk.incubator.vector}), and a
+	 * {@code PackedKeySearch} that counts keys using a scalar loop otherwise.
+	 * 
+	 * @return a {@code PackedKeySearch}
+	 */
+	public static PackedKeySearch create() {
+		try { // loaded reflectively so that this class does not depend on the incubator module
+			return (PackedKeySearch) Class.forName("bptree.VectorKeySearch").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new PackedKeySearch();
+		}
+	}
+
+	/**
+	 * Returns the number of keys in the specified {@code Node} that are smaller than the specified key.
+	 * 
+	 * @param node
+	 *            a {@code Node}
+	 * @param key
+	 *            a search key
+	 * @return the number of keys in the specified {@code Node} that are smaller than the specified key
+	 */
+	@Override
+	public <K extends Comparable<K>> int lowerBound(Node<K> node, K key) {
+		long[] a = packed(node, key);
+		if (a == null)
+			return super.lowerBound(node, key);
+		return lowerBound(a, node.keyCount, ((Number) key).longValue());
+	}
+
+	/**
+	 * Returns the number of keys in the specified {@code Node} that are smaller than or equal to the specified key.
+	 * 
+	 * @param node
+	 *            a {@code Node}
+	 * @param key
+	 *            a search key
+	 * @return the number of keys in the specified {@code Node} that are smaller than or equal to the specified key
+	 */
+	@Override
+	public <K extends Comparable<K>> int upperBound(Node<K> node, K key) {
+		long[] a = packed(node, key);
+		if (a == null)
+			return super.upperBound(node, key);
+		long k = ((Number) key).longValue();
+		return k == Long.MAX_VALUE ? node.keyCount : lowerBound(a, node.keyCount, k + 1); // a[i] <= k iff a[i] < k + 1
+	}
+
+	/**
+	 * Returns the keys of the specified {@code Node} packed into a {@code long} array, packing them if necessary.
+	 * 
+	 * @param node
+	 *            a {@code Node}
+	 * @param key
+	 *            a search key
+	 * @return the keys of the specified {@code Node} packed into a {@code long} array; {@code null} if the keys are
+	 *         neither {@code Integer}s nor {@code Long}s
+	 */
+	protected long[] packed(Node<?> node, Object key) {
+		if (node.searchCache instanceof long[])
+			return (long[]) node.searchCache;
+		if (!(key instanceof Long || key instanceof Integer))
+			return null;
+		if (node.keyCount > 0 && node.key(0).getClass() != key.getClass())
+			return null;
+		long[] a = new long[node.keyCount];
+		for (int i = 0; i < a.length; i++)
+			a[i] = ((Number) node.key(i)).longValue();
+		node.searchCache = a;
+		return a;
+	}
+
+	/**
+	 * Returns the number of the specified packed keys that are smaller than the specified key.
+	 * 
+	 * @param a
+	 *            packed keys in ascending order
+	 * @param n
+	 *            the number of packed keys
+	 * @param k
+	 *            a search key
+	 * @return the number of the specified packed keys that are smaller than the specified key
+	 */
+	protected int lowerBound(long[] a, int n, long k) {
+		int base = 0;
+		while (n > BLOCK) { // branch-free binary search
+			int half = n >>> 1;
+			base = a[base + half - 1] < k ? base + half : base;
+			n -= half;
+		}
+		return base + count(a, base, base + n, k);
+	}
+
+	/**
+	 * Returns the number of the specified packed keys in the specified range that are smaller than the specified key.
+	 * 
+	 * @param a
+	 *            packed keys in ascending order
+	 * @param from
+	 *            the beginning of the range, inclusive
+	 * @param to
+	 *            the end of the range, exclusive
+	 * @param k
+	 *            a search key
+	 * @return the number of the specified packed keys in the specified range that are smaller than the specified key
+	 */
+	protected int count(long[] a, int from, int to, long k) {
+		int c = 0;
+		for (int i = from; i < to; i++) // branch-free counting
+			c += a[i] < k ? 1 : 0;
+		return c;
+	}
+
+}
@@ -0,0 +1,353 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@code TieredBPlusTree} class implements B+-trees that keep hot {@code LeafNode}s as they are and compress cold
+ * {@code LeafNode}s in place (see {@code TieredLeafNode}). A cold {@code LeafNode} is thawed by the next operation
+ * that accesses it. Accesses only set a reference bit in the accessed {@code LeafNode}, so hot operations pay almost
+ * nothing for the tracking. {@code LeafNode}s are frozen in two ways:
+ * <ul>
+ * <li>{@link #sweep()}, which is meant to be invoked periodically, freezes the {@code LeafNode}s that have not been
+ * accessed within the configured window.</li>
+ * <li>Whenever the estimated resident size of the {@code LeafNode}s exceeds the configured memory budget at the end of
+ * an operation, a clock hand moves over the {@code LeafNode}s, giving recently accessed {@code LeafNode}s a second
+ * chance, and freezes the others until the estimate falls within the budget.</li>
+ * </ul>
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class TieredBPlusTree<K extends Comparable<K>, P> extends InMemoryBPlusTree<K, P> {
+
+	/**
+	 * The number of milliseconds after which {@code LeafNode}s that have not been accessed are frozen by
+	 * {@link #sweep()}.
+	 */
+	protected long window;
+
+	/**
+	 * The number of bytes that the {@code LeafNode}s of this {@code TieredBPlusTree} may occupy according to
+	 * {@link #residentBytes()}.
+	 */
+	protected long budget;
+
+	/**
+	 * The clock that provides the current time in milliseconds.
+	 */
+	protected LongSupplier clock = System::currentTimeMillis;
+
+	/**
+	 * The number of {@code LeafNode}s in this {@code TieredBPlusTree} that are not frozen.
+	 */
+	protected int hotLeaves;
+
+	/**
+	 * The number of {@code LeafNode}s in this {@code TieredBPlusTree} that are frozen.
+	 */
+	protected int frozenLeaves;
+
+	/**
+	 * The total number of bytes that the compressed keys and pointers of the frozen {@code LeafNode}s occupy.
+	 */
+	protected long frozenBytes;
+
+	/**
+	 * The {@code LeafNode} that the clock hand points to; {@code null} if the clock hand is to restart from the first
+	 * {@code LeafNode}.
+	 */
+	protected TieredLeafNode<K, P> hand;
+
+	/**
+	 * Constructs a {@code TieredBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code TieredBPlusTree} can have
+	 * @param window
+	 *            the number of milliseconds after which {@code LeafNode}s that have not been accessed are frozen by
+	 *            {@link #sweep()}
+	 * @param budget
+	 *            the number of bytes that the {@code LeafNode}s of the {@code TieredBPlusTree} may occupy
+	 *            ({@code Long.MAX_VALUE} for no limit)
+	 */
+	public TieredBPlusTree(int degree, long window, long budget) {
+		this(degree, degree, window, budget);
+	}
+
+	/**
+	 * Constructs a {@code TieredBPlusTree} whose {@code LeafNode}s and {@code NonLeafNode}s have different degrees.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code NonLeafNode} of this {@code TieredBPlusTree} can have
+	 * @param leafDegree
+	 *            the maximum number of pointers (including the pointer to the next {@code LeafNode}) that each
+	 *            {@code LeafNode} of this {@code TieredBPlusTree} can have
+	 * @param window
+	 *            the number of milliseconds after which {@code LeafNode}s that have not been accessed are frozen by
+	 *            {@link #sweep()}
+	 * @param budget
+	 *            the number of bytes that the {@code LeafNode}s of the {@code TieredBPlusTree} may occupy
+	 *            ({@code Long.MAX_VALUE} for no limit)
+	 */
+	public TieredBPlusTree(int degree, int leafDegree, long window, long budget) {
+		super(degree, leafDegree);
+		this.window = window;
+		this.budget = budget;
+	}
+
+	/**
+	 * Sets the clock that provides the current time in milliseconds.
+	 * 
+	 * @param clock
+	 *            a clock that provides the current time in milliseconds
+	 */
+	public void setClock(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * Returns the number of {@code LeafNode}s in this {@code TieredBPlusTree} that are frozen.
+	 * 
+	 * @return the number of {@code LeafNode}s in this {@code TieredBPlusTree} that are frozen
+	 */
+	public int frozenLeafCount() {
+		return frozenLeaves;
+	}
+
+	/**
+	 * Returns the estimated number of bytes that the {@code LeafNode}s of this {@code TieredBPlusTree} occupy.
+	 * 
+	 * @return the estimated number of bytes that the {@code LeafNode}s of this {@code TieredBPlusTree} occupy
+	 */
+	public long residentBytes() {
+		return hotLeaves * hotLeafBytes() + frozenLeaves * frozenLeafBytes() + frozenBytes;
+	}
+
+	/**
+	 * Returns the estimated number of bytes that a {@code LeafNode} occupies when it is not frozen. The estimate
+	 * assumes a full {@code LeafNode} whose keys and pointers are distinct objects of 16 bytes each.
+	 * 
+	 * @return the estimated number of bytes that a {@code LeafNode} occupies when it is not frozen
+	 */
+	protected long hotLeafBytes() {
+		return frozenLeafBytes() + 8L * (2 * leafDegree - 1) + 32L * (leafDegree - 1);
+	}
+
+	/**
+	 * Returns the estimated number of bytes that a frozen {@code LeafNode} occupies besides its compressed keys and
+	 * pointers.
+	 * 
+	 * @return the estimated number of bytes that a frozen {@code LeafNode} occupies besides its compressed keys and
+	 *         pointers
+	 */
+	protected long frozenLeafBytes() {
+		return 64;
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code TieredBPlusTree} and then enforces the memory budget.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code TieredBPlusTree} is attempted to be inserted again
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		super.insert(k, p);
+		enforceBudget();
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code TieredBPlusTree} and then enforces the
+	 * memory budget.
+	 * 
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code TieredBPlusTree} is attempted to be deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void delete(K k) throws InvalidDeletionException, IOException {
+		super.delete(k);
+		enforceBudget();
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key and then enforces the memory budget.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the pointer associated with the specified key; {@code null} if no such key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public P search(K k) throws IOException {
+		P p = super.search(k);
+		enforceBudget();
+		return p;
+	}
+
+	/**
+	 * Inserts the specified key and pointer, replacing the pointer currently associated with the key if any, and then
+	 * enforces the memory budget.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void upsert(K k, P p) throws IOException {
+		super.upsert(k, p);
+		enforceBudget();
+	}
+
+	/**
+	 * Applies the specified batch of messages and then enforces the memory budget.
+	 * 
+	 * @param messages
+	 *            messages in ascending key order
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void apply(MessageBuffer<K> messages) throws IOException {
+		super.apply(messages);
+		enforceBudget();
+	}
+
+	/**
+	 * Freezes the {@code LeafNode}s that have not been accessed within the window and then enforces the memory budget.
+	 * Also recomputes the statistics that {@link #residentBytes()} relies on.
+	 */
+	public void sweep() {
+		long now = clock.getAsLong();
+		hotLeaves = 0;
+		frozenLeaves = 0;
+		frozenBytes = 0;
+		for (TieredLeafNode<K, P> l = leftmost(); l != null; l = l.successor()) {
+			if (l.referenced) {
+				l.referenced = false;
+				l.lastAccess = now;
+			} else if (!l.isFrozen() && now - l.lastAccess >= window)
+				l.freeze();
+			if (l.isFrozen()) {
+				frozenLeaves++;
+				frozenBytes += l.frozenSize();
+			} else
+				hotLeaves++;
+		}
+		enforceBudget();
+	}
+
+	/**
+	 * Freezes the {@code LeafNode}s that the clock hand reaches until the estimated resident size of the
+	 * {@code LeafNode}s falls within the memory budget. A {@code LeafNode} that has been accessed since the clock hand
+	 * last passed it is given a second chance, and one that has failed to be frozen (see
+	 * {@link TieredLeafNode#isFreezable()}) is skipped.
+	 */
+	protected void enforceBudget() {
+		for (int steps = 2 * hotLeaves; residentBytes() > budget && steps > 0; steps--) {
+			hand = hand == null ? leftmost() : hand.successor();
+			if (hand == null)
+				hand = leftmost();
+			if (hand == null || hand.isFrozen() || !hand.isFreezable())
+				continue;
+			if (hand.referenced)
+				hand.referenced = false;
+			else if (hand.freeze()) {
+				hotLeaves--;
+				frozenLeaves++;
+				frozenBytes += hand.frozenSize();
+			}
+		}
+	}
+
+	/**
+	 * Updates the statistics after the specified {@code TieredLeafNode} has been thawed.
+	 * 
+	 * @param l
+	 *            a {@code TieredLeafNode}
+	 * @param size
+	 *            the number of bytes that the compressed keys and pointers of the {@code TieredLeafNode} occupied
+	 */
+	protected void thawed(TieredLeafNode<K, P> l, int size) {
+		hotLeaves++;
+		frozenLeaves--;
+		frozenBytes -= size;
+	}
+
+	/**
+	 * Returns the first {@code LeafNode} of this {@code TieredBPlusTree} without thawing it.
+	 * 
+	 * @return the first {@code LeafNode} of this {@code TieredBPlusTree}; {@code null} if this
+	 *         {@code TieredBPlusTree} is empty
+	 */
+	@SuppressWarnings("unchecked")
+	protected TieredLeafNode<K, P> leftmost() {
+		Node<K> n = root;
+		while (n instanceof NonLeafNode)
+			n = n.pointer(0);
+		return (TieredLeafNode<K, P>) n;
+	}
+
+	/**
+	 * Creates an empty {@code TieredLeafNode}.
+	 * 
+	 * @return an empty {@code TieredLeafNode}
+	 */
+	@Override
+	protected LeafNode<K, P> createLeafNode() {
+		return new TieredLeafNode<K, P>(leafDegree, this);
+	}
+
+	/**
+	 * Returns an empty {@code TieredLeafNode}, reusing a {@code LeafNode} released by a merge if possible.
+	 * 
+	 * @return an empty {@code TieredLeafNode}
+	 */
+	@Override
+	protected LeafNode<K, P> newLeafNode() {
+		LeafNode<K, P> l = super.newLeafNode();
+		((TieredLeafNode<K, P>) l).referenced = true;
+		hotLeaves++;
+		return l;
+	}
+
+	/**
+	 * Releases the specified {@code Node}, which is no longer part of this {@code TieredBPlusTree}.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 */
+	@Override
+	protected void release(Node<K> n) {
+		if (n instanceof TieredLeafNode) {
+			TieredLeafNode<?, ?> l = (TieredLeafNode<?, ?>) n;
+			if (l.isFrozen()) {
+				frozenLeaves--;
+				frozenBytes -= l.frozenSize();
+			} else
+				hotLeaves--;
+			if (hand == n)
+				hand = null;
+		}
+		super.release(n);
+	}
+
+}
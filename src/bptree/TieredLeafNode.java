@@ -0,0 +1,510 @@
+package bptree;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+/**
+ * The {@code TieredLeafNode} class implements {@code LeafNode}s that can be frozen, i.e., compressed in place into a
+ * compact byte form, when they are cold. A frozen {@code TieredLeafNode} keeps only the compressed keys and pointers
+ * and the pointer to its successor, and is thawed transparently by the next method that accesses its keys or pointers.
+ * Each access also sets a reference bit that a {@code TieredBPlusTree} inspects to tell hot {@code LeafNode}s from cold
+ * ones. The compressed form uses an encoding specific to the type of the keys and to that of the pointers, which must
+ * be {@code Integer}, {@code Long}, or {@code String} (see {@link #write}): numbers are stored as variable-length
+ * integers, each key as the difference from the previous key, and each {@code String} as the length of the prefix it
+ * shares with the previous key (or pointer) followed by the remaining characters. A {@code TieredLeafNode} holding keys
+ * or pointers of other types is not frozen and is marked so that it is not tried again until its keys change.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class TieredLeafNode<K extends Comparable<K>, P> extends LeafNode<K, P> {
+
+	/**
+	 * An automatically generated serial version UID.
+	 */
+	private static final long serialVersionUID = 6471823391650475238L;
+
+	/**
+	 * The type tag for {@code Long}s.
+	 */
+	protected static final byte LONG = 1;
+
+	/**
+	 * The type tag for {@code Integer}s.
+	 */
+	protected static final byte INTEGER = 2;
+
+	/**
+	 * The type tag for {@code String}s.
+	 */
+	protected static final byte STRING = 3;
+
+	/**
+	 * The {@code TieredBPlusTree} that this {@code TieredLeafNode} belongs to; {@code null} if none.
+	 */
+	protected transient TieredBPlusTree<K, P> tree;
+
+	/**
+	 * The compressed keys and pointers of this {@code TieredLeafNode}; {@code null} unless frozen.
+	 */
+	protected byte[] frozen;
+
+	/**
+	 * A flag indicating whether or not this {@code TieredLeafNode} has been accessed since the flag was last cleared.
+	 */
+	protected transient boolean referenced;
+
+	/**
+	 * The time at which this {@code TieredLeafNode} was last found to have been accessed.
+	 */
+	protected transient long lastAccess;
+
+	/**
+	 * A flag indicating whether or not this {@code TieredLeafNode} has failed to be frozen since its keys last changed.
+	 */
+	protected transient boolean unfreezable;
+
+	/**
+	 * Constructs a {@code TieredLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code TieredLeafNode}
+	 * @param tree
+	 *            the {@code TieredBPlusTree} that the {@code TieredLeafNode} belongs to; {@code null} if none
+	 */
+	public TieredLeafNode(int degree, TieredBPlusTree<K, P> tree) {
+		super(degree);
+		this.tree = tree;
+	}
+
+	/**
+	 * Determines whether or not this {@code TieredLeafNode} is frozen.
+	 * 
+	 * @return {@code true} if this {@code TieredLeafNode} is frozen; {@code false} otherwise
+	 */
+	public boolean isFrozen() {
+		return frozen != null;
+	}
+
+	/**
+	 * Returns the number of bytes that the compressed keys and pointers of this {@code TieredLeafNode} occupy.
+	 * 
+	 * @return the number of bytes that the compressed keys and pointers of this {@code TieredLeafNode} occupy; 0 if
+	 *         this {@code TieredLeafNode} is not frozen
+	 */
+	public int frozenSize() {
+		return frozen == null ? 0 : frozen.length;
+	}
+
+	/**
+	 * Determines whether or not this {@code TieredLeafNode} can be frozen, i.e., has not failed to be frozen since its
+	 * keys last changed.
+	 * 
+	 * @return {@code true} if this {@code TieredLeafNode} can be frozen; {@code false} otherwise
+	 */
+	public boolean isFreezable() {
+		return !unfreezable;
+	}
+
+	/**
+	 * Compresses the keys and pointers of this {@code TieredLeafNode} and releases the arrays that held them.
+	 * 
+	 * @return {@code true} if this {@code TieredLeafNode} has been frozen; {@code false} if it was already frozen,
+	 *         empty, or holds keys or pointers whose types have no encoding (in which case this
+	 *         {@code TieredLeafNode} is marked unfreezable)
+	 */
+	protected boolean freeze() {
+		if (frozen != null || keyCount == 0 || unfreezable)
+			return false;
+		byte keyType = type(keys[0]), pointerType = type(pointers[0]);
+		for (int i = 0; i < keyCount; i++)
+			if (keyType == 0 || pointerType == 0 || type(keys[i]) != keyType || type(pointers[i]) != pointerType) {
+				unfreezable = true;
+				return false;
+			}
+		ByteArrayOutputStream out = new ByteArrayOutputStream(8 * keyCount);
+		out.write(keyType);
+		out.write(pointerType);
+		for (int i = 0; i < keyCount; i++)
+			write(out, keyType, i == 0 ? null : keys[i - 1], keys[i]);
+		for (int i = 0; i < keyCount; i++) // only Strings are written relative to the previous pointer
+			write(out, pointerType, i == 0 || pointerType != STRING ? null : pointers[i - 1], pointers[i]);
+		frozen = out.toByteArray();
+		keys = null;
+		pointers = new Object[] { pointers[pointers.length - 1] }; // keep the successor as the last pointer
+		keysChanged();
+		return true;
+	}
+
+	/**
+	 * Marks this {@code TieredLeafNode} as accessed and restores its keys and pointers if it is frozen.
+	 */
+	@SuppressWarnings("unchecked")
+	protected void thaw() {
+		referenced = true;
+		if (frozen == null)
+			return;
+		K[] k = (K[]) new Comparable<?>[degree - 1];
+		Object[] p = new Object[degree];
+		p[degree - 1] = pointers[0];
+		Decoder in = new Decoder(frozen, 2);
+		for (int i = 0; i < keyCount; i++)
+			k[i] = (K) read(in, frozen[0], i == 0 ? null : k[i - 1]);
+		for (int i = 0; i < keyCount; i++)
+			p[i] = read(in, frozen[1], i == 0 || frozen[1] != STRING ? null : p[i - 1]);
+		int size = frozen.length;
+		frozen = null;
+		keys = k;
+		pointers = p;
+		if (tree != null)
+			tree.thawed(this, size);
+	}
+
+	/**
+	 * Clears the cached search state of this {@code TieredLeafNode} and lets it be frozen again after its keys have
+	 * changed.
+	 */
+	@Override
+	protected void keysChanged() {
+		super.keysChanged();
+		unfreezable = false;
+	}
+
+	/**
+	 * Returns the type tag of the specified object.
+	 * 
+	 * @param o
+	 *            an object
+	 * @return the type tag of the specified object; 0 if the type of the object has no encoding
+	 */
+	protected static byte type(Object o) {
+		if (o instanceof Long)
+			return LONG;
+		if (o instanceof Integer)
+			return INTEGER;
+		if (o instanceof String)
+			return STRING;
+		return 0;
+	}
+
+	/**
+	 * Writes the specified object of the specified type, relative to the specified previous object if any. A number
+	 * is written as a zigzag-encoded variable-length integer, or as the variable-length difference from the previous
+	 * (smaller) number. A {@code String} is written as the length of the prefix shared with the previous
+	 * {@code String}, the number of the remaining characters, and the remaining characters as variable-length
+	 * integers.
+	 * 
+	 * @param out
+	 *            the stream to write to
+	 * @param type
+	 *            the type tag of the object
+	 * @param previous
+	 *            the previous object of the same type; {@code null} if the object is to be written on its own
+	 * @param o
+	 *            the object to write
+	 */
+	protected static void write(ByteArrayOutputStream out, byte type, Object previous, Object o) {
+		if (type == STRING) {
+			String s = (String) o;
+			int shared = 0;
+			if (previous != null) {
+				String t = (String) previous;
+				for (int n = Math.min(s.length(), t.length()); shared < n && s.charAt(shared) == t.charAt(shared);)
+					shared++;
+			}
+			writeVarLong(out, shared);
+			writeVarLong(out, s.length() - shared);
+			for (int i = shared; i < s.length(); i++)
+				writeVarLong(out, s.charAt(i));
+		} else {
+			long v = ((Number) o).longValue();
+			if (previous == null)
+				writeVarLong(out, v << 1 ^ v >> 63);
+			else
+				writeVarLong(out, v - ((Number) previous).longValue()); // positive for ascending keys
+		}
+	}
+
+	/**
+	 * Reads an object of the specified type written by {@link #write(ByteArrayOutputStream, byte, Object, Object)}.
+	 * 
+	 * @param in
+	 *            the {@code Decoder} to read from
+	 * @param type
+	 *            the type tag of the object
+	 * @param previous
+	 *            the previous object of the same type; {@code null} if the object was written on its own
+	 * @return the object that has been read
+	 */
+	protected static Object read(Decoder in, byte type, Object previous) {
+		if (type == STRING) {
+			int shared = (int) in.readVarLong();
+			char[] c = new char[shared + (int) in.readVarLong()];
+			if (shared > 0)
+				((String) previous).getChars(0, shared, c, 0);
+			for (int i = shared; i < c.length; i++)
+				c[i] = (char) in.readVarLong();
+			return new String(c);
+		}
+		long v = in.readVarLong();
+		v = previous == null ? v >>> 1 ^ -(v & 1) : ((Number) previous).longValue() + v;
+		return type == LONG ? (Object) v : (Object) (int) v;
+	}
+
+	/**
+	 * Writes the specified value as an unsigned variable-length integer, 7 bits per byte with the high bit set in
+	 * every byte but the last.
+	 * 
+	 * @param out
+	 *            the stream to write to
+	 * @param v
+	 *            a value
+	 */
+	protected static void writeVarLong(ByteArrayOutputStream out, long v) {
+		for (; (v & ~0x7FL) != 0; v >>>= 7)
+			out.write((int) (v & 0x7F | 0x80));
+		out.write((int) v);
+	}
+
+	/**
+	 * Returns the key at the specified index, thawing this {@code TieredLeafNode} if necessary.
+	 * 
+	 * @param i
+	 *            the index of the key
+	 * @return the key at the specified index
+	 */
+	@Override
+	public K key(int i) {
+		thaw();
+		return super.key(i);
+	}
+
+	/**
+	 * Returns the pointer at the specified index, thawing this {@code TieredLeafNode} if necessary.
+	 * 
+	 * @param i
+	 *            the index of the pointer
+	 * @return the pointer at the specified index
+	 */
+	@Override
+	public <Q> Q pointer(int i) {
+		thaw();
+		return super.pointer(i);
+	}
+
+	/**
+	 * Inserts the specified key and pointer at the specified index, thawing this {@code TieredLeafNode} if necessary.
+	 * 
+	 * @param i
+	 *            the index at which the key and pointer are inserted
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 */
+	@Override
+	public void insert(int i, K k, P p) {
+		thaw();
+		super.insert(i, k, p);
+	}
+
+	/**
+	 * Removes a key and a pointer at the specified index, thawing this {@code TieredLeafNode} if necessary.
+	 * 
+	 * @param i
+	 *            the index at which the key and pointer are deleted
+	 */
+	@Override
+	public void delete(int i) {
+		thaw();
+		super.delete(i);
+	}
+
+	/**
+	 * Moves the keys and pointers of this {@code TieredLeafNode} from the specified index onward to the end of the
+	 * specified {@code LeafNode}, thawing both {@code LeafNode}s if necessary.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode} that has room for the keys and pointers
+	 * @param beginIndex
+	 *            the index of the first key to move
+	 */
+	@Override
+	public void moveTo(LeafNode<K, P> node, int beginIndex) {
+		thaw();
+		if (node instanceof TieredLeafNode)
+			((TieredLeafNode<K, P>) node).thaw();
+		super.moveTo(node, beginIndex);
+	}
+
+	/**
+	 * Moves the last specified number of keys and pointers of this {@code TieredLeafNode} to the beginning of the
+	 * specified {@code LeafNode}, thawing both {@code LeafNode}s if necessary.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode} that has room for the keys and pointers
+	 * @param s
+	 *            the number of keys and pointers to move
+	 */
+	@Override
+	public void shiftRight(LeafNode<K, P> node, int s) {
+		thaw();
+		if (node instanceof TieredLeafNode)
+			((TieredLeafNode<K, P>) node).thaw();
+		super.shiftRight(node, s);
+	}
+
+	/**
+	 * Moves the first specified number of keys and pointers of the specified {@code LeafNode} to the end of this
+	 * {@code TieredLeafNode}, thawing both {@code LeafNode}s if necessary.
+	 * 
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @param s
+	 *            the number of keys and pointers to move
+	 */
+	@Override
+	public void shiftLeft(LeafNode<K, P> node, int s) {
+		thaw();
+		if (node instanceof TieredLeafNode)
+			((TieredLeafNode<K, P>) node).thaw();
+		super.shiftLeft(node, s);
+	}
+
+	/**
+	 * Appends the specified keys and their pointers of the specified {@code Node} into this {@code TieredLeafNode},
+	 * thawing this {@code TieredLeafNode} if necessary.
+	 * 
+	 * @param node
+	 *            a {@code Node}
+	 * @param beginIndex
+	 *            the beginning index of the keys, inclusive
+	 * @param endIndex
+	 *            the ending index of the keys, inclusive
+	 */
+	@Override
+	public void append(Node<K> node, int beginIndex, int endIndex) {
+		thaw();
+		super.append(node, beginIndex, endIndex);
+	}
+
+	/**
+	 * Clears this {@code TieredLeafNode}, discarding its compressed keys and pointers if frozen.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void clear() {
+		if (frozen != null) {
+			frozen = null;
+			keys = (K[]) new Comparable<?>[degree - 1];
+			pointers = new Object[degree];
+		}
+		super.clear();
+	}
+
+	/**
+	 * Starts or stops maintaining the fingerprints of the keys in this {@code TieredLeafNode}, thawing this
+	 * {@code TieredLeafNode} if the fingerprints need to be computed.
+	 * 
+	 * @param enabled
+	 *            {@code true} to maintain fingerprints; {@code false} otherwise
+	 */
+	@Override
+	public void setFingerprints(boolean enabled) {
+		if (enabled && fingerprints == null)
+			thaw(); // the fingerprints are computed from the keys
+		super.setFingerprints(enabled);
+	}
+
+	/**
+	 * Returns the index of the specified key in this {@code TieredLeafNode}, thawing this {@code TieredLeafNode} if
+	 * necessary.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the index of the specified key in this {@code TieredLeafNode}; -1 if the key is not in this
+	 *         {@code TieredLeafNode}
+	 */
+	@Override
+	public int indexOf(K k) {
+		thaw();
+		return super.indexOf(k);
+	}
+
+	/**
+	 * Returns the largest index i such that keys[i] < the given key, thawing this {@code TieredLeafNode} if necessary.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the largest index i such that keys[i] < the given key; -1 if there is no such i
+	 */
+	@Override
+	protected int findIndexL(K key) {
+		thaw();
+		return super.findIndexL(key);
+	}
+
+	/**
+	 * Returns a string representation of this {@code TieredLeafNode}, thawing it if necessary.
+	 * 
+	 * @param m
+	 *            a {@code Map} for assigning each {@code Node} a unique identifier.
+	 * @return a string representation of this {@code TieredLeafNode}
+	 */
+	@Override
+	public String toString(Map<Object, Integer> m) {
+		thaw();
+		return super.toString(m);
+	}
+
+	/**
+	 * A {@code Decoder} reads variable-length integers from a byte array.
+	 */
+	protected static class Decoder {
+
+		/**
+		 * The bytes to read.
+		 */
+		byte[] bytes;
+
+		/**
+		 * The index of the next byte to read.
+		 */
+		int position;
+
+		/**
+		 * Constructs a {@code Decoder}.
+		 * 
+		 * @param bytes
+		 *            the bytes to read
+		 * @param position
+		 *            the index of the first byte to read
+		 */
+		Decoder(byte[] bytes, int position) {
+			this.bytes = bytes;
+			this.position = position;
+		}
+
+		/**
+		 * Reads an unsigned variable-length integer written by
+		 * {@link TieredLeafNode#writeVarLong(ByteArrayOutputStream, long)}.
+		 * 
+		 * @return the value that has been read
+		 */
+		long readVarLong() {
+			long v = 0;
+			for (int shift = 0;; shift += 7) {
+				byte b = bytes[position++];
+				v |= (b & 0x7FL) << shift;
+				if (b >= 0)
+					return v;
+			}
+		}
+
+	}
+
+}
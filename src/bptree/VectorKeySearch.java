@@ -0,0 +1,45 @@
+package bptree;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@code VectorKeySearch} class is a {@code PackedKeySearch} that counts the packed keys smaller than a search key
+ * using the Vector API, comparing as many keys at a time as the widest vector the hardware supports holds. Compiling
+ * and using this class requires the {@code jdk.incubator.vector} module (e.g., {@code --add-modules
+ * jdk.incubator.vector}); {@link PackedKeySearch#create()} loads this class reflectively and falls back to the scalar
+ * {@code PackedKeySearch} if the module is not available.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class VectorKeySearch extends PackedKeySearch {
+
+	/**
+	 * The preferred vector shape for {@code long}s on the current hardware.
+	 */
+	static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+	/**
+	 * Returns the number of the specified packed keys in the specified range that are smaller than the specified key.
+	 * 
+	 * @param a
+	 *            packed keys in ascending order
+	 * @param from
+	 *            the beginning of the range, inclusive
+	 * @param to
+	 *            the end of the range, exclusive
+	 * @param k
+	 *            a search key
+	 * @return the number of the specified packed keys in the specified range that are smaller than the specified key
+	 */
+	@Override
+	protected int count(long[] a, int from, int to, long k) {
+		int c = 0, i = from;
+		for (int bound = to - SPECIES.length(); i <= bound; i += SPECIES.length())
+			c += LongVector.fromArray(SPECIES, a, i).lt(k).trueCount();
+		for (; i < to; i++) // the remaining keys
+			c += a[i] < k ? 1 : 0;
+		return c;
+	}
+
+}
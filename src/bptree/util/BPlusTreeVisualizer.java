@@ -127,7 +127,9 @@ public class BPlusTreeVisualizer extends bptree.util.ZoomView implements java.aw
 	 */
 	public static void startVisualizer(BPlusTree<String, Integer> tree, String inputFile, PrintStream out, int x, int y)
 			throws IOException {
-		JFrame frame = new JFrame("B+Tree Visualizer (degree: " + tree.degree() + ", input: " + inputFile + ")");
+		JFrame frame = new JFrame("B+Tree Visualizer (degree: " + tree.degree()
+				+ (tree.leafDegree() == tree.degree() ? "" : ", leaf degree: " + tree.leafDegree()) + ", input: "
+				+ inputFile + ")");
 		BPlusTreeVisualizer panel = new BPlusTreeVisualizer(out);
 		frame.getContentPane().add(panel);
 		frame.pack();
@@ -176,7 +178,7 @@ public class BPlusTreeVisualizer extends bptree.util.ZoomView implements java.aw
 		LinkedList<Runnable> commands = new LinkedList<Runnable>();
 		Node<String> root = tree.root();
 		if (root != null) {
-			draw(root, tree, 1, 0, tree.degree(), commands, new HashMap<Object, Integer>());
+			draw(root, tree, 1, 0, tree.leafDegree(), commands, new HashMap<Object, Integer>());
 			drawings.add(Map.entry(commands, caption));
 		}
 	}
@@ -239,8 +241,9 @@ public class BPlusTreeVisualizer extends bptree.util.ZoomView implements java.aw
 	 *            the level of the tree
 	 * @param leafNodes
 	 *            the number of known {@code LeafNode}s.
-	 * @param degree
-	 *            the degree of the tree
+	 * @param leafDegree
+	 *            the degree of the {@code LeafNode}s in the tree, which determines the space given to each
+	 *            {@code LeafNode}
 	 * @param commands
 	 *            the commands for drawing the nodes in the tree
 	 * @return the number of known {@code LeafNode}s and the location of the node on the screen
@@ -248,10 +251,11 @@ public class BPlusTreeVisualizer extends bptree.util.ZoomView implements java.aw
 	 *             if an I/O error occurs
 	 */
 	protected Map.Entry<Integer, Integer> draw(Node<String> node, BPlusTree<String, Integer> tree, int level,
-			int leafNodes, int degree, LinkedList<Runnable> commands, HashMap<Object, Integer> m) throws IOException {
+			int leafNodes, int leafDegree, LinkedList<Runnable> commands, HashMap<Object, Integer> m) throws IOException {
 		out.println(String.format("%" + level + "s", "") + node.toString(m));
+		int degree = node.degree(); // the degree of this node, which may differ from that of its children
 		Integer[] childrenPos = null;
-		int x = (leafNodes) * keyWidth * (degree);
+		int x = (leafNodes) * keyWidth * (leafDegree);
 		int y = (level - 1) * 2 * keyHeight;
 		if (node instanceof NonLeafNode) {
 			int minX = Integer.MAX_VALUE;
@@ -260,16 +264,17 @@ public class BPlusTreeVisualizer extends bptree.util.ZoomView implements java.aw
 			for (int i = 0; i < degree; i++) {
 				Node<String> child = tree.child((NonLeafNode<String>) node, i);
 				if (child != null) {
-					Map.Entry<Integer, Integer> widthPos = draw(child, tree, level + 1, leafNodes, degree, commands, m);
+					Map.Entry<Integer, Integer> widthPos = draw(child, tree, level + 1, leafNodes, leafDegree, commands,
+							m);
 					leafNodes = widthPos.getKey();
-					childrenPos[i] = widthPos.getValue();
+					childrenPos[i] = widthPos.getValue() + keyWidth * (child.degree() - 1) / 2; // center of child
 					if (child instanceof LeafNode)
 						leafNodes++;
 					minX = Math.min(minX, childrenPos[i]);
 					maxX = Math.max(maxX, childrenPos[i]);
 				}
 			}
-			x = (minX + maxX) / 2;
+			x = (minX + maxX) / 2 - keyWidth * (degree - 1) / 2;
 		} else { // if leaf node
 			if (((LeafNode<String, ?>) node).successor() != null) {// if there is a next leaf node
 				commands.add(drawLine(x + keyWidth * (degree - 1), y + keyHeight / 2,
@@ -285,8 +290,7 @@ public class BPlusTreeVisualizer extends bptree.util.ZoomView implements java.aw
 			commands.add(() -> zoomGraphics.setColor(Color.BLACK));
 			commands.add(drawRect(x + i * keyWidth - pointerWidth / 2, y, pointerWidth, keyHeight));
 			if (childrenPos != null && childrenPos[i] != null) { // draw a line to the child
-				commands.add(drawLine(x + i * keyWidth, y + keyHeight - 4, childrenPos[i] + keyWidth * (degree - 1) / 2,
-						level * 2 * keyHeight));
+				commands.add(drawLine(x + i * keyWidth, y + keyHeight - 4, childrenPos[i], level * 2 * keyHeight));
 			}
 			if (i < degree - 1 && node.key(i) != null) {
 				commands.add(drawStrings(new String[] { node.key(i).toString() },
@@ -0,0 +1,96 @@
+package bptree.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import bptree.BinaryKeySearch;
+import bptree.InterpolationKeySearch;
+import bptree.KeySearch;
+import bptree.LeafNode;
+import bptree.PackedKeySearch;
+
+/**
+ * The {@code NodeSearchBenchmark} class measures how fast {@code KeySearch} strategies locate {@code Long} search keys
+ * in full {@code Node}s of various degrees. The {@code Node}s and search keys are generated from fixed seeds, each
+ * measurement is repeated after several warm-up runs, and the median time is reported together with the range. The
+ * vectorized {@code PackedKeySearch} (see {@link PackedKeySearch#create()}) is included when the program runs with
+ * {@code --add-modules jdk.incubator.vector}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class NodeSearchBenchmark {
+
+	/**
+	 * The number of searches in each measurement.
+	 */
+	static final int SEARCHES = 2000000;
+
+	/**
+	 * The number of warm-up runs of each measurement.
+	 */
+	static final int WARMUPS = 5;
+
+	/**
+	 * The number of measured runs of each measurement.
+	 */
+	static final int RUNS = 9;
+
+	/**
+	 * The main program.
+	 * 
+	 * @param args
+	 *            the program arguments
+	 */
+	public static void main(String[] args) {
+		List<KeySearch> searches = new ArrayList<KeySearch>(
+				List.of(new BinaryKeySearch(), new PackedKeySearch(), new InterpolationKeySearch()));
+		KeySearch vectorized = PackedKeySearch.create();
+		if (vectorized.getClass() != PackedKeySearch.class)
+			searches.add(2, vectorized);
+		long blackhole = 0;
+		for (int degree : new int[] { 64, 128, 256, 512, 1024 }) {
+			Random random = new Random(degree);
+			long[] sorted = random.longs(degree - 1, 0, 1L << 40).sorted().toArray(); // nearly uniform keys
+			LeafNode<Long, Long> node = new LeafNode<Long, Long>(degree);
+			for (int i = 0; i < sorted.length; i++)
+				node.insert(i, sorted[i], sorted[i]);
+			Long[] keys = new Long[1024];
+			for (int i = 0; i < keys.length; i++)
+				keys[i] = (long) (random.nextDouble() * (1L << 40));
+			for (KeySearch s : searches) {
+				double[] ns = new double[RUNS];
+				for (int r = -WARMUPS; r < RUNS; r++) {
+					long start = System.nanoTime();
+					blackhole += run(s, node, keys);
+					if (r >= 0)
+						ns[r] = (System.nanoTime() - start) / (double) SEARCHES;
+				}
+				Arrays.sort(ns);
+				System.out.printf("degree %4d  %-22s %7.2f ns/search (min %.2f, max %.2f)%n", degree,
+						s.getClass().getSimpleName(), ns[RUNS / 2], ns[0], ns[RUNS - 1]);
+			}
+		}
+		System.out.println("(" + blackhole + ")");
+	}
+
+	/**
+	 * Searches the specified {@code LeafNode} for the specified keys repeatedly.
+	 * 
+	 * @param s
+	 *            a {@code KeySearch}
+	 * @param node
+	 *            a {@code LeafNode}
+	 * @param keys
+	 *            search keys
+	 * @return the sum of the search results
+	 */
+	static long run(KeySearch s, LeafNode<Long, Long> node, Long[] keys) {
+		long sum = 0;
+		for (int i = 0; i < SEARCHES; i++)
+			sum += s.upperBound(node, keys[i & (keys.length - 1)]);
+		return sum;
+	}
+
+}
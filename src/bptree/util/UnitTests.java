@@ -5,14 +5,37 @@ import org.junit.FixMethodOrder;
 import org.junit.runners.MethodSorters;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
 
 import org.junit.Test;
 
+import bptree.AggregateBPlusTree;
 import bptree.BPlusTree;
+import bptree.BinaryKeySearch;
+import bptree.BufferedBPlusTree;
+import bptree.CachingBPlusTree;
+import bptree.DeltaBPlusTree;
+import bptree.DeltaLeafNode;
 import bptree.InMemoryBPlusTree;
+import bptree.InterpolationKeySearch;
+import bptree.KeySearch;
+import bptree.LeafNode;
+import bptree.LearnedBPlusTree;
+import bptree.LogStructuredBPlusTree;
+import bptree.MessageBuffer;
 import bptree.Node;
 import bptree.NonLeafNode;
+import bptree.OffHeapBPlusTree;
+import bptree.OrderStatisticBPlusTree;
+import bptree.PackedKeySearch;
+import bptree.TieredBPlusTree;
 
 /**
  * {@code UnitTests} tests the implementations in the {@code bptree} package.
@@ -48,7 +71,7 @@ public class UnitTests {
 				+ "   @3(5, b, null, null, @4)\n" + "   @4(1, c, null, null, @5)\n"
 				+ "  @2(@5, f, @6, null, null)\n" + "   @5(2, d, null, null, @6)\n"
 				+ "   @6(3, f, null, null, null)",
-				toString(tree.root(), 1, tree.degree(), m));
+				toString(tree.root(), 1, m));
 	}
 
 	/**
@@ -66,16 +89,16 @@ public class UnitTests {
 				+ "   @3(5, b, null, null, @4)\n" + "   @4(1, c, null, null, @5)\n"
 				+ "  @2(@5, h, @7, null, null)\n" + "   @5(3, f, 6, g, @7)\n"
 				+ "   @7(7, h, null, null, null)",
-				toString(tree.root(), 1, tree.degree(), m));
+				toString(tree.root(), 1, m));
 		tree.delete("h");
 		assertEquals(
 				" @1(@3, c, @4, d, @5)\n" + "  @3(5, b, null, null, @4)\n"
 						+ "  @4(1, c, null, null, @5)\n" + "  @5(3, f, 6, g, null)",
-				toString(tree.root(), 1, tree.degree(), m));
+				toString(tree.root(), 1, m));
 	}
 
 	/**
-	 * Tests the Task 3 implementation.
+	 * Tests the Task 3 implementation. The {@code Node}s released by the merges in {@code test2()} are reused here.
 	 * 
 	 * @throws Exception
 	 *             if an error occurs
@@ -86,14 +109,14 @@ public class UnitTests {
 		tree.insert("d", 4);
 		tree.insert("e", 6);
 		tree.insert("h", 7);
-		System.out.println(toString(tree.root(), 1, tree.degree(), m));
+		System.out.println(toString(tree.root(), 1, m));
 		tree.delete("c");
 		assertEquals(
-				" @8(@1, f, @9, null, null)\n" + "  @1(@3, d, @5, null, null)\n"
-						+ "   @3(2, a, 5, b, @5)\n" + "   @5(4, d, 6, e, @10)\n"
-						+ "  @9(@10, g, @11, null, null)\n"
-						+ "   @10(3, f, null, null, @11)\n" + "   @11(6, g, 7, h, null)",
-				toString(tree.root(), 1, tree.degree(), m));
+				" @2(@1, f, @0, null, null)\n" + "  @1(@3, d, @5, null, null)\n"
+						+ "   @3(2, a, 5, b, @5)\n" + "   @5(4, d, 6, e, @7)\n"
+						+ "  @0(@7, g, @6, null, null)\n"
+						+ "   @7(3, f, null, null, @6)\n" + "   @6(6, g, 7, h, null)",
+				toString(tree.root(), 1, m));
 	}
 
 	/**
@@ -115,11 +138,11 @@ public class UnitTests {
 		assertEquals(
 				" @0(@1, f, @2, null, null)\n" + "  @1(1, c, null, null, @2)\n"
 						+ "  @2(3, f, null, null, null)",
-				toString(tree2.root(), 1, tree2.degree(), m2));
+				toString(tree2.root(), 1, m2));
 		assertThrows(BPlusTree.InvalidDeletionException.class, () -> tree2.delete("e"));
 		tree2.delete("c");
 		assertEquals(" @1(3, f, null, null, null)",
-				toString(tree2.root(), 1, tree2.degree(), m2));
+				toString(tree2.root(), 1, m2));
 
 		InMemoryBPlusTree<String, Integer> tree3 = new InMemoryBPlusTree<String, Integer>(
 				3);
@@ -140,14 +163,14 @@ public class UnitTests {
 						+ "   @3(2, b, null, null, @4)\n" + "   @4(3, c, 4, d, @5)\n"
 						+ "  @2(@5, g, @6, i, @7)\n" + "   @5(5, e, 6, f, @6)\n"
 						+ "   @6(7, g, 8, h, @7)\n" + "   @7(9, i, null, null, null)",
-				toString(tree3.root(), 1, tree3.degree(), m3));
+				toString(tree3.root(), 1, m3));
 		tree3.delete("b");
 		assertEquals(
 				" @0(@1, g, @2, null, null)\n" + "  @1(@3, e, @5, null, null)\n"
 						+ "   @3(3, c, 4, d, @5)\n" + "   @5(5, e, 6, f, @6)\n"
 						+ "  @2(@6, i, @7, null, null)\n" + "   @6(7, g, 8, h, @7)\n"
 						+ "   @7(9, i, null, null, null)",
-				toString(tree3.root(), 1, tree3.degree(), m3));
+				toString(tree3.root(), 1, m3));
 
 		InMemoryBPlusTree<String, Integer> tree4 = new InMemoryBPlusTree<String, Integer>(
 				4);
@@ -158,36 +181,985 @@ public class UnitTests {
 		tree4.insert("f", 3);
 		tree4.delete("d");
 		assertEquals(" @0(1, c, 3, f, null, null, null)",
-				toString(tree4.root(), 1, tree4.degree(), m4));
+				toString(tree4.root(), 1, m4));
 		tree4.delete("f");
 		assertEquals(" @0(1, c, null, null, null, null, null)",
-				toString(tree4.root(), 1, tree4.degree(), m4));
+				toString(tree4.root(), 1, m4));
 
 		tree4.insert("a", 5);
 		tree4.insert("b", 6);
 		tree4.insert("i", 7);
 		tree4.delete("b");
-		assertEquals(" @0(5, a, 1, c, 7, i, null)",
-				toString(tree4.root(), 1, tree4.degree(), m4));
+		assertEquals(" @1(@0, i, @2, null, null, null, null)\n" + "  @0(5, a, 1, c, null, null, @2)\n"
+				+ "  @2(7, i, null, null, null, null, null)", toString(tree4.root(), 1, m4));
 
 		tree4.insert("g", 8);
 		tree4.insert("h", 9);
 		tree4.delete("c");
 		assertEquals(
-				" @1(@0, h, @2, null, null, null, null)\n"
-						+ "  @0(5, a, 8, g, null, null, @2)\n"
-						+ "  @2(9, h, 7, i, null, null, null)",
-				toString(tree4.root(), 1, tree4.degree(), m4));
+				" @1(@0, i, @2, null, null, null, null)\n"
+						+ "  @0(5, a, 8, g, 9, h, @2)\n"
+						+ "  @2(7, i, null, null, null, null, null)",
+				toString(tree4.root(), 1, m4));
 	}
 
-	protected String toString(Node<String> node, int level, int degree,
-			HashMap<Object, Integer> m) throws IOException {
+	/**
+	 * Tests the descending and range scans.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testDescendingScan() throws Exception {
+		InMemoryBPlusTree<String, Integer> tree5 = new InMemoryBPlusTree<String, Integer>(3);
+		for (String k : new String[] { "c", "d", "f", "a", "b", "g", "h", "e" })
+			tree5.insert(k, k.charAt(0) - 'a');
+		tree5.delete("d");
+		assertEquals("[h, g, f, e, c, b, a]", keys(tree5.descendingIterator()).toString());
+		assertEquals("[f, e, c]", keys(tree5.descendingScan("f", "c")).toString());
+		assertEquals("[g, f, e]", keys(tree5.descendingScan("g", "d")).toString());
+		assertEquals("[b, c, e]", keys(tree5.scan("b", "e")).toString());
+		assertEquals("[]", keys(tree5.descendingScan("0", null)).toString());
+	}
+
+	/**
+	 * Tests the rank, select and count operations.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testOrderStatistics() throws Exception {
+		OrderStatisticBPlusTree<String, Integer> tree6 = new OrderStatisticBPlusTree<String, Integer>(3);
+		for (String k : new String[] { "c", "d", "f", "a", "b", "g", "h", "e", "i" })
+			tree6.insert(k, k.charAt(0) - 'a');
+		tree6.delete("a");
+		tree6.delete("g");
+		assertEquals(7, tree6.size());
+		assertEquals(0, tree6.rank("b"));
+		assertEquals(4, tree6.rank("f"));
+		assertEquals(5, tree6.rank("ff"));
+		assertEquals("e", tree6.select(3));
+		assertEquals("i", tree6.select(6));
+		assertEquals(5, tree6.count("c", "h"));
+		assertEquals(0, tree6.count("g", "g"));
+		assertThrows(IndexOutOfBoundsException.class, () -> tree6.select(7));
+	}
+
+	/**
+	 * Tests the range aggregation.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testAggregates() throws Exception {
+		AggregateBPlusTree<String, Integer, Double> tree7 = new AggregateBPlusTree<String, Integer, Double>(3,
+				AggregateBPlusTree.sum());
+		AggregateBPlusTree<String, Integer, Integer> tree8 = new AggregateBPlusTree<String, Integer, Integer>(4,
+				AggregateBPlusTree.max());
+		for (String k : new String[] { "c", "d", "f", "a", "b", "g", "h", "e", "i" }) {
+			tree7.insert(k, k.charAt(0) - 'a');
+			tree8.insert(k, k.charAt(0) - 'a');
+		}
+		tree7.delete("d");
+		tree8.delete("h");
+		assertEquals(33.0, tree7.aggregate(), 0);
+		assertEquals(7.0, tree7.aggregate("b", "e"), 0);
+		assertEquals(17.0, tree7.aggregate("bb", "g"), 0);
+		assertEquals(0.0, tree7.aggregate("e", "b"), 0);
+		assertEquals(Integer.valueOf(6), tree8.aggregate("a", "h"));
+		assertEquals(Integer.valueOf(8), tree8.aggregate(null, null));
+	}
+
+	/**
+	 * Tests the {@code OffHeapBPlusTree}.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testOffHeap() throws Exception {
+		try (OffHeapBPlusTree tree9 = new OffHeapBPlusTree(3)) {
+			for (long k = 0; k < 100; k++)
+				tree9.insert(k, k * k);
+			assertThrows(BPlusTree.InvalidInsertionException.class, () -> tree9.insert(5L, 0L));
+			for (long k = 0; k < 100; k += 2)
+				tree9.delete(k);
+			assertEquals(50, tree9.size());
+			assertEquals(81, tree9.get(9, -1));
+			assertEquals(-1, tree9.get(10, -1));
+			assertEquals(Long.valueOf(81), tree9.search(9L));
+			assertNull(tree9.search(10L));
+			long reserved = tree9.reservedBytes();
+			for (long k = 0; k < 100; k += 2)
+				tree9.insert(k, k); // reuses the slots released by merges
+			assertEquals(reserved, tree9.reservedBytes());
+			Iterator<Map.Entry<Long, Long>> i = tree9.descendingScan(12L, 9L);
+			assertEquals(Long.valueOf(12), i.next().getKey());
+			assertEquals(Long.valueOf(121), i.next().getValue());
+			assertEquals(Long.valueOf(10), i.next().getKey());
+			assertEquals(Long.valueOf(81), i.next().getValue());
+			assertFalse(i.hasNext());
+			tree9.close(); // frees the memory, after which the tree starts over empty
+			assertEquals(0, tree9.reservedBytes());
+			assertNull(tree9.search(9L));
+			tree9.insert(9L, 1L);
+			assertEquals(1, tree9.get(9, -1));
+		}
+	}
+
+	/**
+	 * Tests the {@code BufferedBPlusTree}.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testBufferedUpdates() throws Exception {
+		BufferedBPlusTree<String, Integer> tree10 = new BufferedBPlusTree<String, Integer>(3, 4);
+		for (String k : new String[] { "c", "d", "f", "a", "b", "g", "h", "e", "i" })
+			tree10.insert(k, k.charAt(0) - 'a');
+		tree10.delete("d");
+		tree10.upsert("e", 40);
+		tree10.upsert("j", 9);
+		tree10.flush();
+		tree10.insert("b", 0); // blind, so discarded once it reaches the LeafNode containing "b"
+		assertEquals(1, tree10.pendingMessages());
+		assertThrows(BPlusTree.InvalidInsertionException.class, () -> tree10.insert("b", 0));
+		tree10.delete("k"); // blind, so discarded once it reaches the LeafNode responsible for "k"
+		assertThrows(BPlusTree.InvalidDeletionException.class, () -> tree10.delete("k"));
+		assertEquals(Integer.valueOf(1), tree10.search("b"));
+		assertNull(tree10.search("d"));
+		assertEquals(Integer.valueOf(40), tree10.search("e"));
+		assertEquals(Integer.valueOf(9), tree10.search("j"));
+		assertEquals(List.of("a", "b", "c", "e", "f", "g", "h", "i", "j"), keys(tree10.scan(null, null)));
+		assertEquals(0, tree10.pendingMessages());
+		assertEquals(Integer.valueOf(1), tree10.search("b"));
+		assertEquals(Integer.valueOf(40), tree10.search("e"));
+
+		BufferedBPlusTree<Integer, Integer> tree11 = new BufferedBPlusTree<Integer, Integer>(4, 3);
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		for (int i = 0; i < 2000; i++) { // the messages for a key are combined as they move down
+			int k = i * 37 % 101;
+			if (i % 3 == 2 && expected.containsKey(k)) {
+				tree11.delete(k);
+				expected.remove(k);
+			} else {
+				tree11.upsert(k, i);
+				expected.put(k, i);
+			}
+			assertEquals(expected.get(k), tree11.search(k));
+		}
+		tree11.flush();
+		assertEquals(0, tree11.pendingMessages());
+		for (int k = 0; k < 101; k++)
+			assertEquals(expected.get(k), tree11.search(k));
+	}
+
+	/**
+	 * Tests the {@code LogStructuredBPlusTree}.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testLogStructured() throws Exception {
+		try (LogStructuredBPlusTree<String, Integer> tree11 = new LogStructuredBPlusTree<String, Integer>(
+				new InMemoryBPlusTree<String, Integer>(3), 2)) {
+			for (String k : new String[] { "c", "d", "f", "a", "b", "g", "h", "e", "i" })
+				tree11.insert(k, k.charAt(0) - 'a');
+			tree11.delete("d");
+			tree11.upsert("e", 40);
+			assertThrows(BPlusTree.InvalidInsertionException.class, () -> tree11.insert("b", 0));
+			assertThrows(BPlusTree.InvalidDeletionException.class, () -> tree11.delete("d"));
+			assertNull(tree11.search("d"));
+			assertEquals(Integer.valueOf(40), tree11.search("e"));
+			assertEquals(List.of("a", "b", "c", "e", "f", "g", "h", "i"), keys(tree11.scan(null, null)));
+			tree11.insert("d", 3);
+			tree11.flush();
+			assertEquals(Integer.valueOf(3), tree11.search("d"));
+			assertEquals(List.of("i", "h", "g"), keys(tree11.descendingScan("i", "g")));
+		}
+
+		int[] failures = { 1 };
+		try (LogStructuredBPlusTree<String, Integer> tree12 = new LogStructuredBPlusTree<String, Integer>(
+				new InMemoryBPlusTree<String, Integer>(3) {
+					@Override
+					protected void update(MessageBuffer<String> messages) throws IOException {
+						if (failures[0]-- > 0)
+							throw new IOException("failure injected");
+						super.update(messages);
+					}
+				}, 2)) {
+			tree12.insert("a", 0);
+			tree12.insert("b", 1); // the merge of the first memtable fails
+			assertEquals(Integer.valueOf(1), tree12.search("b")); // the memtable is kept until merged
+			assertThrows(IOException.class, () -> tree12.flush()); // merges the memtable again
+			tree12.flush(); // the failure has been reported once
+			assertEquals(List.of("a", "b"), keys(tree12.scan(null, null)));
+		}
+
+		InMemoryBPlusTree<Integer, Integer> base = new InMemoryBPlusTree<Integer, Integer>(6);
+		base.setFingerSearch(true); // lookups move the finger
+		try (LogStructuredBPlusTree<Integer, Integer> tree39 = new LogStructuredBPlusTree<Integer, Integer>(base, 64)) {
+			for (int k = 0; k < 5000; k++)
+				tree39.insert(2 * k, k);
+			tree39.flush();
+			int[] errors = new int[1];
+			ArrayList<Thread> readers = new ArrayList<Thread>();
+			for (int t = 0; t < 8; t++) {
+				int seed = t;
+				readers.add(new Thread(() -> {
+					try {
+						for (int i = 0; i < 20000; i++) {
+							int k = (i * 7919 + seed * 104729) % 5000; // the odd keys are upserted meanwhile
+							if (!Objects.equals(Integer.valueOf(k), tree39.search(2 * k)))
+								synchronized (errors) {
+									errors[0]++;
+								}
+						}
+					} catch (IOException | RuntimeException e) {
+						synchronized (errors) {
+							errors[0]++;
+						}
+					}
+				}));
+			}
+			for (Thread t : readers)
+				t.start();
+			Iterator<Map.Entry<Integer, Integer>> i = tree39.scan(null, null);
+			int previous = -1, even = 0;
+			for (int k = 0; i.hasNext(); k++) { // the merges of these updates must not disturb the scan
+				if (k < 5000)
+					tree39.upsert(2 * k + 1, k);
+				int key = i.next().getKey();
+				assertTrue(key > previous);
+				even += key % 2 == 0 ? 1 : 0;
+				previous = key;
+			}
+			assertEquals(5000, even);
+			for (Thread t : readers)
+				t.join();
+			assertEquals(0, errors[0]);
+		}
+	}
+
+	/**
+	 * Tests a {@code BPlusTree} whose {@code LeafNode}s and {@code NonLeafNode}s have different degrees.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testLeafDegree() throws Exception {
+		InMemoryBPlusTree<String, Integer> tree12 = new InMemoryBPlusTree<String, Integer>(3, 5);
+		for (String k : new String[] { "c", "d", "f", "a", "b", "g", "h", "e", "i" })
+			tree12.insert(k, k.charAt(0) - 'a');
+		HashMap<Object, Integer> m12 = new HashMap<Object, Integer>();
+		assertEquals(" @0(@1, d, @2, g, @3)\n" + "  @1(0, a, 1, b, 2, c, null, null, @2)\n"
+				+ "  @2(3, d, 4, e, 5, f, null, null, @3)\n" + "  @3(6, g, 7, h, 8, i, null, null, null)",
+				toString(tree12.root(), 1, m12));
+		tree12.delete("a");
+		tree12.delete("b");
+		m12.clear();
+		assertEquals(" @0(@1, g, @2, null, null)\n" + "  @1(2, c, 3, d, 4, e, 5, f, @2)\n"
+				+ "  @2(6, g, 7, h, 8, i, null, null, null)", toString(tree12.root(), 1, m12));
+	}
+
+	/**
+	 * Tests insertions of ascending keys, which must fill {@code LeafNode}s completely.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testAppend() throws Exception {
+		InMemoryBPlusTree<Integer, Integer> tree13 = new InMemoryBPlusTree<Integer, Integer>(5);
+		for (int k = 0; k < 100; k++)
+			tree13.insert(k, k);
+		int leaves = 0;
+		for (LeafNode<Integer, Integer> l = firstLeaf(tree13); l != null; l = tree13.successor(l)) {
+			assertEquals(4, l.keyCount());
+			leaves++;
+		}
+		assertEquals(25, leaves);
+		assertThrows(BPlusTree.InvalidInsertionException.class, () -> tree13.insert(99, 0));
+		tree13.insert(-1, -1);
+		assertEquals(Integer.valueOf(-1), tree13.search(-1));
+		assertEquals(Integer.valueOf(57), tree13.search(57));
+	}
+
+	/**
+	 * Tests finger search.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testFingerSearch() throws Exception {
+		InMemoryBPlusTree<Integer, Integer> tree14 = new InMemoryBPlusTree<Integer, Integer>(4);
+		tree14.setFingerSearch(true);
+		for (int k = 0; k < 200; k++)
+			tree14.insert((k * 37) % 200, k);
+		for (int k = 50; k < 150; k += 3)
+			tree14.delete(k);
+		for (int k = 0; k < 200; k++)
+			assertEquals(k >= 50 && k < 150 && (k - 50) % 3 == 0 ? null : Integer.valueOf((k * 173) % 200),
+					tree14.search(k));
+		assertThrows(BPlusTree.InvalidDeletionException.class, () -> tree14.delete(50));
+		assertThrows(BPlusTree.InvalidInsertionException.class, () -> tree14.insert(51, 0));
+	}
+
+	/**
+	 * Tests the key fingerprints of {@code LeafNode}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testLeafFingerprints() throws Exception {
+		InMemoryBPlusTree<String, Integer> tree15 = new InMemoryBPlusTree<String, Integer>(5);
+		String prefix = "a-long-common-prefix-shared-by-all-of-the-keys-";
+		for (int k = 0; k < 50; k += 2)
+			tree15.insert(prefix + k, k);
+		tree15.setLeafFingerprints(true); // existing LeafNodes compute their fingerprints
+		for (int k = 1; k < 50; k += 2)
+			tree15.insert(prefix + k, k);
+		assertThrows(BPlusTree.InvalidInsertionException.class, () -> tree15.insert(prefix + 7, 0));
+		for (int k = 0; k < 50; k += 3)
+			tree15.delete(prefix + k);
+		assertThrows(BPlusTree.InvalidDeletionException.class, () -> tree15.delete(prefix + 3));
+		for (int k = 0; k < 50; k++)
+			assertEquals(k % 3 == 0 ? null : Integer.valueOf(k), tree15.search(prefix + k));
+	}
+
+	/**
+	 * Tests the {@code KeySearch} strategies for searching the keys within {@code Node}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testKeySearch() throws Exception {
+		InMemoryBPlusTree<Long, Integer> tree16 = new InMemoryBPlusTree<Long, Integer>(4, 40);
+		for (int k = 0; k < 300; k += 2)
+			tree16.insert((long) k, k);
+		tree16.setKeySearch(new PackedKeySearch()); // existing Nodes adopt the strategy
+		for (int k = 1; k < 300; k += 2)
+			tree16.insert((long) k, k);
+		for (int k = 0; k < 300; k += 3)
+			tree16.delete((long) k);
+		assertThrows(BPlusTree.InvalidInsertionException.class, () -> tree16.insert(7L, 0));
+		assertThrows(BPlusTree.InvalidDeletionException.class, () -> tree16.delete(3L));
+		for (int k = -1; k <= 300; k++)
+			assertEquals(k < 0 || k == 300 || k % 3 == 0 ? null : Integer.valueOf(k), tree16.search((long) k));
+		LeafNode<String, Integer> l = new LeafNode<String, Integer>(5);
+		for (String k : new String[] { "b", "d", "d", "f" })
+			l.insert(k, 0);
+		for (KeySearch s : new KeySearch[] { new BinaryKeySearch(), new PackedKeySearch() }) { // non-numeric keys
+			assertEquals(1, s.lowerBound(l, "d"));
+			assertEquals(3, s.upperBound(l, "d"));
+			assertEquals(4, s.lowerBound(l, "g"));
+		}
+		LeafNode<Long, Integer> n = new LeafNode<Long, Integer>(100);
+		for (int i = 0; i < 99; i++)
+			n.insert(i, i * 3L, 0);
+		KeySearch b = new BinaryKeySearch(), v = PackedKeySearch.create(); // vectorized if the module is available
+		for (long k = -1; k < 300; k++) {
+			assertEquals(b.lowerBound(n, k), v.lowerBound(n, k));
+			assertEquals(b.upperBound(n, k), v.upperBound(n, k));
+		}
+	}
+
+	/**
+	 * Tests interpolation search within {@code Node}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testInterpolationKeySearch() throws Exception {
+		InMemoryBPlusTree<Long, Integer> tree17 = new InMemoryBPlusTree<Long, Integer>(16, 64);
+		tree17.setKeySearch(new InterpolationKeySearch());
+		for (int k = 0; k < 500; k += 2)
+			tree17.insert((long) k * k, k); // skewed keys
+		for (int k = 1; k < 500; k += 2)
+			tree17.insert((long) k * k, k);
+		for (int k = 0; k < 500; k += 5)
+			tree17.delete((long) k * k);
+		for (int k = 0; k < 500; k++) {
+			assertEquals(k % 5 == 0 ? null : Integer.valueOf(k), tree17.search((long) k * k));
+			assertEquals(null, tree17.search((long) (k + 1) * (k + 1) + 1)); // not a square
+		}
+		LeafNode<Long, Integer> l = new LeafNode<Long, Integer>(9);
+		for (long k : new long[] { Long.MIN_VALUE, -5, 0, 0, 7, 1000, Long.MAX_VALUE })
+			l.insert(k, 0);
+		KeySearch s = new InterpolationKeySearch();
+		assertEquals(0, s.lowerBound(l, Long.MIN_VALUE));
+		assertEquals(2, s.lowerBound(l, 0L));
+		assertEquals(4, s.upperBound(l, 0L));
+		assertEquals(5, s.lowerBound(l, 8L));
+		assertEquals(7, s.upperBound(l, Long.MAX_VALUE));
+	}
+
+	/**
+	 * Tests the frame-of-reference encoding of keys in {@code DeltaLeafNode}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testDeltaLeafNode() throws Exception {
+		DeltaBPlusTree<Integer> tree18 = new DeltaBPlusTree<Integer>(4, 9);
+		long t = 1700000000000L; // closely spaced timestamps
+		for (int k = 0; k < 100; k += 2)
+			tree18.insert(t + k, k);
+		for (int k = 1; k < 100; k += 2)
+			tree18.insert(t + k, k);
+		for (int k = 0; k < 100; k += 4)
+			tree18.delete(t + k);
+		assertThrows(BPlusTree.InvalidInsertionException.class, () -> tree18.insert(t + 1, 0));
+		assertThrows(BPlusTree.InvalidDeletionException.class, () -> tree18.delete(t + 4));
+		for (int k = -1; k <= 100; k++)
+			assertEquals(k < 0 || k == 100 || k % 4 == 0 ? null : Integer.valueOf(k), tree18.search(t + k));
+		DeltaLeafNode<Integer> l = new DeltaLeafNode<Integer>(5);
+		l.insert(0, 1000L, 0);
+		l.insert(1, 1003L, 1);
+		assertEquals(2, l.width()); // the differences 0 and 3 fit in 2 bits
+		l.insert(0, Long.MIN_VALUE, 2);
+		l.insert(3, Long.MAX_VALUE, 3);
+		assertEquals(64, l.width());
+		assertEquals(Long.valueOf(1003L), l.key(2));
+		assertEquals(2, l.indexOf(1003L));
+		assertEquals(-1, l.indexOf(1002L));
+		l.delete(0);
+		l.delete(2);
+		assertEquals(2, l.width());
+		assertEquals(Long.valueOf(1000L), l.key(0));
+	}
+
+	/**
+	 * Tests the freezing of cold {@code LeafNode}s in {@code TieredBPlusTree}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testTieredLeaves() throws Exception {
+		long[] now = { 0 };
+		TieredBPlusTree<Integer, String> tree19 = new TieredBPlusTree<Integer, String>(4, 9, 1000, Long.MAX_VALUE);
+		tree19.setClock(() -> now[0]);
+		for (int k = 0; k < 200; k++)
+			tree19.insert(k, "v" + k);
+		tree19.sweep(); // every LeafNode has been accessed since creation
+		assertEquals(0, tree19.frozenLeafCount());
+		now[0] = 1000;
+		tree19.search(7); // keeps one LeafNode hot
+		tree19.sweep();
+		int frozen = tree19.frozenLeafCount();
+		assertTrue(frozen > 0);
+		long resident = tree19.residentBytes();
+		assertEquals("v150", tree19.search(150)); // thaws a LeafNode
+		assertEquals(frozen - 1, tree19.frozenLeafCount());
+		assertTrue(tree19.residentBytes() > resident);
+		for (int k = 0; k < 200; k += 3)
+			tree19.delete(k);
+		for (int k = 0; k < 200; k++)
+			assertEquals(k % 3 == 0 ? null : "v" + k, tree19.search(k));
+		TieredBPlusTree<Integer, String> tree20 = new TieredBPlusTree<Integer, String>(4, 33, Long.MAX_VALUE, 50000);
+		for (int k = 0; k < 2000; k++)
+			tree20.insert(k, "v" + k);
+		assertTrue(tree20.residentBytes() <= 50000); // the memory budget is enforced
+		assertTrue(tree20.frozenLeafCount() > 0);
+		for (int k = 0; k < 2000; k++)
+			assertEquals("v" + k, tree20.search(k));
+		TieredBPlusTree<String, Long> tree34 = new TieredBPlusTree<String, Long>(4, 33, Long.MAX_VALUE, 20000);
+		for (long k = -1000; k < 1000; k++)
+			tree34.insert("key\u00e9" + (k * 7919 + 5000000), k << 40);
+		assertTrue(tree34.frozenLeafCount() > 0);
+		for (long k = -1000; k < 1000; k++)
+			assertEquals(Long.valueOf(k << 40), tree34.search("key\u00e9" + (k * 7919 + 5000000)));
+		TieredBPlusTree<Long, Integer> tree35 = new TieredBPlusTree<Long, Integer>(4, 33, Long.MAX_VALUE, 20000);
+		for (int k = -1000; k < 1000; k++)
+			tree35.insert(k * (Long.MAX_VALUE / 1000), -k);
+		assertTrue(tree35.frozenLeafCount() > 0);
+		for (int k = -1000; k < 1000; k++)
+			assertEquals(Integer.valueOf(-k), tree35.search(k * (Long.MAX_VALUE / 1000)));
+		TieredBPlusTree<Integer, Double> tree36 = new TieredBPlusTree<Integer, Double>(4, 33, Long.MAX_VALUE, 20000);
+		for (int k = 0; k < 2000; k++)
+			tree36.insert(k, 0.5 * k); // Doubles have no compact encoding
+		assertEquals(0, tree36.frozenLeafCount());
+		for (int k = 0; k < 2000; k++)
+			assertEquals(Double.valueOf(0.5 * k), tree36.search(k));
+	}
+
+	/**
+	 * Tests balanced redistribution, which evens out sibling {@code Node}s in one bulk move.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testBalancedRedistribution() throws Exception {
+		int[] redistributions = new int[2];
+		for (int b = 0; b < 2; b++) {
+			int i = b;
+			InMemoryBPlusTree<Integer, Integer> tree21 = new InMemoryBPlusTree<Integer, Integer>(5, 17) {
+
+				@Override
+				protected int redistributionCount(Node<Integer> from, Node<Integer> to) {
+					redistributions[i]++;
+					return super.redistributionCount(from, to);
+				}
+
+			};
+			tree21.setBalancedRedistribution(b == 1);
+			for (int k = 0; k < 1000; k++)
+				tree21.insert((k * 389) % 1000, (k * 389) % 1000);
+			for (int k = 0; k < 1000; k++)
+				if (k % 16 != 0 && k % 5 != 0)
+					tree21.delete(k);
+			for (int k = 0; k < 1000; k++)
+				assertEquals(k % 16 != 0 && k % 5 != 0 ? null : Integer.valueOf(k), tree21.search(k));
+		}
+		assertTrue(redistributions[1] < redistributions[0]);
+	}
+
+	/**
+	 * Tests the relaxed deletion of {@code InMemoryBPlusTree}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testRelaxedDeletion() throws Exception {
+		int[] rebalances = new int[1];
+		InMemoryBPlusTree<Integer, Integer> tree22 = new InMemoryBPlusTree<Integer, Integer>(5, 9) {
+
+			@Override
+			protected void rebalance(Node<Integer> n, Map<Node<Integer>, NonLeafNode<Integer>> node2parent)
+					throws InvalidDeletionException, IOException {
+				rebalances[0]++;
+				super.rebalance(n, node2parent);
+			}
+
+		};
+		tree22.setRelaxedDeletion(true, 0.5);
+		for (int k = 0; k < 1000; k++)
+			tree22.insert(k, k);
+		for (int r = 0; r < 10; r++) // deletions and insertions around the same keys
+			for (int k = 0; k < 1000; k += 8) {
+				tree22.delete(k);
+				tree22.insert(k, k);
+			}
+		for (int k = 0; k < 1000; k++)
+			if (k % 8 != 0)
+				tree22.delete(k);
+		assertEquals(0, rebalances[0]);
+		tree22.rebalance();
+		assertTrue(rebalances[0] > 0);
+		for (LeafNode<Integer, Integer> l = firstLeaf(tree22); l != null; l = l.successor())
+			assertFalse(l.isUnderUtilized());
+		for (int k = 0; k < 1000; k++)
+			assertEquals(k % 8 == 0 ? Integer.valueOf(k) : null, tree22.search(k));
+		tree22.setRelaxedDeletion(false, 0.5);
+		for (int k = 0; k < 1000; k += 8)
+			tree22.delete(k);
+		assertNull(tree22.root());
+	}
+
+	/**
+	 * Tests the sibling overflow (B*-tree style splitting) of {@code InMemoryBPlusTree}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testSiblingOverflow() throws Exception {
+		int[] leaves = new int[2];
+		for (int b = 0; b < 2; b++) {
+			InMemoryBPlusTree<Integer, Integer> tree23 = new InMemoryBPlusTree<Integer, Integer>(5, 17);
+			tree23.setSiblingOverflow(b == 1);
+			for (int k = 0; k < 10000; k++)
+				tree23.insert((k * 7919) % 10000, k);
+			for (int k = 0; k < 10000; k++)
+				assertEquals(Integer.valueOf((k * 7679) % 10000), tree23.search(k)); // 7679 * 7919 = 1 (mod 10000)
+			for (LeafNode<Integer, Integer> l = firstLeaf(tree23); l != null; l = l.successor())
+				leaves[b]++;
+		}
+		assertTrue(10000.0 / (leaves[0] * 16) < 0.75);
+		assertTrue(10000.0 / (leaves[1] * 16) > 0.75);
+	}
+
+	/**
+	 * Tests the incremental compaction of {@code InMemoryBPlusTree}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testCompaction() throws Exception {
+		InMemoryBPlusTree<Integer, Integer> tree24 = new InMemoryBPlusTree<Integer, Integer>(4, 9);
+		for (int k = 0; k < 10000; k++)
+			tree24.insert(k, k);
+		for (int k = 0; k < 10000; k++)
+			if (k % 5 < 3)
+				tree24.delete(k);
+		int[] before = shape(tree24);
+		int steps = 0;
+		while (!tree24.compact(0.9, 10)) {
+			steps++;
+			tree24.insert(10000 + steps, 0); // other operations may be interleaved
+		}
+		int[] after = shape(tree24);
+		assertTrue(steps > 1);
+		assertTrue(after[0] <= before[0]); // height
+		assertTrue(after[1] * 4 < before[1] * 3); // number of LeafNodes
+		while (!tree24.compact(0.9, 100))
+			;
+		assertTrue(shape(tree24)[0] < before[0]);
+		for (int k = 0; k < 10000; k++)
+			assertEquals(k % 5 < 3 ? null : Integer.valueOf(k), tree24.search(k));
+		for (int k = 1; k <= steps; k++)
+			assertEquals(Integer.valueOf(0), tree24.search(10000 + k));
+	}
+
+	/**
+	 * Tests the {@code CachingBPlusTree}.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testCaching() throws Exception {
+		CachingBPlusTree<Integer, Integer> tree25 = new CachingBPlusTree<Integer, Integer>(
+				new BufferedBPlusTree<Integer, Integer>(4, 3), 8, CachingBPlusTree.Policy.TINY_LFU);
+		for (int k = 0; k < 1000; k++)
+			tree25.insert(k, k);
+		for (int r = 0; r < 100; r++) {
+			for (int k = 0; k < 8; k++) // hot keys
+				assertEquals(Integer.valueOf(k), tree25.search(k));
+			assertEquals(Integer.valueOf(100 + r), tree25.search(100 + r)); // one-off keys
+		}
+		assertEquals(8, tree25.cacheSize());
+		assertTrue(tree25.hitRate() > 0.8);
+		tree25.upsert(3, 30);
+		tree25.delete(5);
+		assertEquals(Integer.valueOf(30), tree25.search(3));
+		assertNull(tree25.search(5));
+		tree25.insert(5, 50);
+		assertEquals(Integer.valueOf(50), tree25.search(5));
+		assertNull(tree25.search(1000));
+		assertTrue(tree25.cacheSize() <= tree25.cacheCapacity());
+		CachingBPlusTree<Integer, Integer> tree26 = new CachingBPlusTree<Integer, Integer>(
+				new InMemoryBPlusTree<Integer, Integer>(4), 2, CachingBPlusTree.Policy.LRU);
+		for (int k = 0; k < 3; k++)
+			tree26.insert(k, k);
+		for (int k = 0; k < 3; k++)
+			tree26.search(k);
+		assertEquals(2, tree26.cacheSize());
+		assertEquals(Integer.valueOf(2), tree26.search(2));
+		assertEquals(1, tree26.hits());
+		assertEquals(3, tree26.misses());
+	}
+
+	/**
+	 * Tests the {@code LearnedBPlusTree}.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testLearnedSearch() throws Exception {
+		LearnedBPlusTree<Long, Integer> tree27 = new LearnedBPlusTree<Long, Integer>(4, 4);
+		for (int k = 0; k < 3000; k++)
+			tree27.insert((long) k * k, k); // keys that are not evenly spaced
+		assertFalse(tree27.isTrained());
+		tree27.train();
+		assertTrue(tree27.isTrained());
+		assertTrue(tree27.modelCount() > 1 && tree27.modelLevels() > 1);
+		for (long k = -1; k < 9000000; k += 997)
+			assertEquals(k >= 0 && (long) Math.sqrt(k) * (long) Math.sqrt(k) == k ? Integer.valueOf((int) Math.sqrt(k))
+					: null, tree27.search(k));
+		for (int k = 0; k < 3000; k++)
+			assertEquals(Integer.valueOf(k), tree27.search((long) k * k));
+		Iterator<Map.Entry<Long, Integer>> i = tree27.scan(10L, 50L);
+		assertEquals(Long.valueOf(16), i.next().getKey());
+		for (int k = 0; k < 3000; k += 2)
+			tree27.delete((long) k * k);
+		assertFalse(tree27.isTrained()); // searches descend from the root until the models are retrained
+		for (int k = 0; k < 3000; k++)
+			assertEquals(k % 2 == 0 ? null : Integer.valueOf(k), tree27.search((long) k * k));
+		while (!tree27.compact(0.9, 100))
+			;
+		assertTrue(tree27.isTrained());
+		for (int k = 0; k < 3000; k++)
+			assertEquals(k % 2 == 0 ? null : Integer.valueOf(k), tree27.search((long) k * k));
+		LearnedBPlusTree<Long, Integer> tree37 = new LearnedBPlusTree<Long, Integer>(4, 2);
+		for (int k = 0; k < 3000; k++)
+			tree37.insert((1L << 60) + k, k); // keys that doubles cannot tell apart
+		tree37.train();
+		for (int k = -1; k <= 3000; k++)
+			assertEquals(k < 0 || k == 3000 ? null : Integer.valueOf(k), tree37.search((1L << 60) + k));
+	}
+
+	/**
+	 * Tests the searches of frozen {@code InMemoryBPlusTree}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testFreeze() throws Exception {
+		InMemoryBPlusTree<Long, Integer> tree28 = new InMemoryBPlusTree<Long, Integer>(4, 6);
+		for (int k = 0; k < 5000; k++)
+			tree28.insert(2L * k, k);
+		tree28.freeze();
+		assertTrue(tree28.isFrozen());
+		for (long k = -1; k <= 10000; k++)
+			assertEquals(k >= 0 && k % 2 == 0 && k < 10000 ? Integer.valueOf((int) (k / 2)) : null, tree28.search(k));
+		assertEquals(Long.valueOf(100), tree28.scan(99L, null).next().getKey());
+		tree28.delete(0L);
+		tree28.insert(-1L, -1); // neither changes the structure
+		assertTrue(tree28.isFrozen());
+		assertEquals(Integer.valueOf(-1), tree28.search(-1L));
+		tree28.upsert(0L, 0);
+		for (int k = 0; k < 5000; k++)
+			tree28.upsert(2L * k + 1, k);
+		assertFalse(tree28.isFrozen()); // searches descend from the root until frozen again
+		for (long k = 0; k < 10000; k++)
+			assertEquals(Integer.valueOf((int) (k / 2)), tree28.search(k));
+		InMemoryBPlusTree<String, Integer> tree29 = new InMemoryBPlusTree<String, Integer>(3);
+		for (int k = 0; k < 500; k++)
+			tree29.insert("k" + k, k);
+		tree29.freeze();
+		for (int k = 0; k < 500; k++) {
+			assertEquals(Integer.valueOf(k), tree29.search("k" + k));
+			assertNull(tree29.search("k" + k + "a"));
+		}
+		assertNull(tree29.search("a"));
+		assertNull(tree29.search("z"));
+		tree29 = new InMemoryBPlusTree<String, Integer>(3);
+		tree29.freeze();
+		assertNull(tree29.search("a"));
+	}
+
+	/**
+	 * Tests the {@code BloomFilter} of {@code InMemoryBPlusTree}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testBloomFilter() throws Exception {
+		int[] descents = new int[1];
+		InMemoryBPlusTree<Integer, Integer> tree30 = new InMemoryBPlusTree<Integer, Integer>(4) {
+
+			@Override
+			protected LeafNode<Integer, Integer> findLeaf(Integer k) throws IOException {
+				descents[0]++;
+				return super.findLeaf(k);
+			}
+
+		};
+		for (int k = 0; k < 1000; k++)
+			tree30.insert(2 * k, k);
+		tree30.setBloomFilter(true, 0.01);
+		for (int k = 1000; k < 5000; k++) // the filter is rebuilt as it fills up
+			tree30.insert(2 * k, k);
+		assertThrows(BPlusTree.InvalidInsertionException.class, () -> tree30.insert(4000, 0));
+		for (int k = 0; k < 10000; k++)
+			assertEquals(k % 2 == 0 ? Integer.valueOf(k / 2) : null, tree30.search(k));
+		assertTrue(descents[0] < 5000 + 200); // most of the keys not in the tree need no descent
+		for (int k = 0; k < 5000; k++)
+			if (k % 4 != 0)
+				tree30.delete(2 * k);
+		assertThrows(BPlusTree.InvalidDeletionException.class, () -> tree30.delete(2));
+		assertThrows(BPlusTree.InvalidDeletionException.class, () -> tree30.delete(1));
+		for (int k = 0; k < 10000; k++)
+			assertEquals(k % 8 == 0 ? Integer.valueOf(k / 2) : null, tree30.search(k));
+		descents[0] = 0;
+		for (int k = 0; k < 10000; k++)
+			tree30.search(k);
+		assertTrue(descents[0] < 2500 + 200); // the filter has been rebuilt without the deleted keys
+		BufferedBPlusTree<Integer, Integer> tree38 = new BufferedBPlusTree<Integer, Integer>(4, 16);
+		for (int k = 0; k < 2000; k++) {
+			if (k == 1000)
+				tree38.setBloomFilter(true, 0.01); // covers the keys of the pending messages as well
+			tree38.insert(2 * k, k);
+		}
+		assertTrue(tree38.pendingMessages() > 0);
+		for (int k = 0; k < 4000; k++)
+			assertEquals(k % 2 == 0 ? Integer.valueOf(k / 2) : null, tree38.search(k));
+		int rejected = 0;
+		for (int k = 0; k < 2000; k++)
+			try {
+				tree38.delete(2 * k + 1);
+			} catch (BPlusTree.InvalidDeletionException e) {
+				rejected++;
+			}
+		assertTrue(rejected > 1900); // most deletes of keys not in the tree are rejected right away
+		for (int k = 0; k < 2000; k++)
+			if (k % 4 != 0)
+				tree38.delete(2 * k);
+		for (int k = 0; k < 4000; k++)
+			assertEquals(k % 8 == 0 ? Integer.valueOf(k / 2) : null, tree38.search(k));
+		tree38.flush();
+		for (int k = 0; k < 4000; k++)
+			assertEquals(k % 8 == 0 ? Integer.valueOf(k / 2) : null, tree38.search(k));
+	}
+
+	/**
+	 * Tests the {@code NavigableMap} view of {@code BPlusTree}s.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testNavigableMap() throws Exception {
+		InMemoryBPlusTree<Integer, Integer> tree31 = new InMemoryBPlusTree<Integer, Integer>(4);
+		NavigableMap<Integer, Integer> map = tree31.asMap();
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		for (int k = 0; k < 300; k++) {
+			int key = (k * 37) % 600;
+			assertEquals(expected.put(key, k), map.put(key, k));
+		}
+		assertEquals(expected, map);
+		for (NavigableMap<Integer, Integer> m : List.of(map, map.descendingMap(), map.subMap(100, true, 400, false),
+				map.headMap(250, true).descendingMap(), map.tailMap(300, false),
+				map.descendingMap().subMap(500, false, 50, true).headMap(200, false))) {
+			NavigableMap<Integer, Integer> e = expected;
+			if (m != map)
+				e = expected.subMap(m.firstKey() > m.lastKey() ? m.lastKey() : m.firstKey(), true,
+						m.firstKey() > m.lastKey() ? m.firstKey() : m.lastKey(), true);
+			if (m.comparator() != null)
+				e = e.descendingMap();
+			assertEquals(List.copyOf(e.keySet()), List.copyOf(m.keySet()));
+			assertEquals(e.size(), m.size());
+			for (int k = -5; k < 610; k += 3) {
+				assertEquals(e.floorKey(k), m.floorKey(k));
+				assertEquals(e.ceilingKey(k), m.ceilingKey(k));
+				assertEquals(e.lowerKey(k), m.lowerKey(k));
+				assertEquals(e.higherKey(k), m.higherKey(k));
+			}
+			assertEquals(e.firstEntry(), m.firstEntry());
+			assertEquals(e.lastEntry(), m.lastEntry());
+		}
+		assertThrows(IllegalArgumentException.class, () -> map.headMap(100).put(100, 0));
+		assertThrows(IllegalArgumentException.class, () -> map.tailMap(7, false).subMap(7, true, 10, false));
+		assertThrows(IllegalArgumentException.class, () -> map.headMap(10, false).subMap(0, true, 10, true));
+		assertEquals(expected.tailMap(7, false).subMap(7, false, 10, false),
+				map.tailMap(7, false).subMap(7, false, 10, false));
+		assertEquals(expected.headMap(10, true).subMap(0, true, 10, true),
+				map.headMap(10, true).subMap(0, true, 10, true));
+		assertEquals(expected.pollFirstEntry(), map.pollFirstEntry());
+		assertEquals(expected.descendingMap().pollFirstEntry(), map.descendingMap().pollFirstEntry());
+		map.subMap(200, 300).entrySet().removeIf(e -> e.getKey() % 2 == 0);
+		expected.subMap(200, 300).entrySet().removeIf(e -> e.getKey() % 2 == 0);
+		assertEquals(expected, map);
+		assertEquals(expected.remove(201), map.remove(201));
+		assertNull(map.remove(201));
+		assertEquals(expected, map);
+		map.tailMap(500).clear();
+		expected.tailMap(500).clear();
+		assertEquals(expected, map);
+		assertEquals(List.copyOf(expected.navigableKeySet().headSet(100, false).descendingSet()),
+				List.copyOf(map.navigableKeySet().headSet(100, false).descendingSet()));
+	}
+
+	/**
+	 * Tests prefix scans over {@code BPlusTree}s with {@code String} keys.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@Test
+	public void testPrefixScan() throws Exception {
+		int[] successors = new int[1];
+		InMemoryBPlusTree<String, Integer> tree32 = new InMemoryBPlusTree<String, Integer>(4) {
+
+			@Override
+			public LeafNode<String, Integer> successor(LeafNode<String, Integer> node) throws IOException {
+				successors[0]++;
+				return super.successor(node);
+			}
+
+		};
+		for (int t = 0; t < 100; t++)
+			for (int k = 0; k < 20; k++)
+				tree32.insert(String.format("tenant%02d/%02d", t, k), k);
+		tree32.insert("tenant42\uffff", -1);
+		tree32.insert("tenant43", -2);
+		successors[0] = 0;
+		List<String> l = keys(BPlusTree.prefixScan(tree32, "tenant42/"));
+		assertEquals(20, l.size());
+		assertEquals("tenant42/00", l.get(0));
+		assertEquals("tenant42/19", l.get(19));
+		assertTrue(successors[0] < 12); // only the LeafNodes with matching keys (and the next one) are visited
+		assertEquals(List.of("tenant42\uffff"), keys(BPlusTree.prefixScan(tree32, "tenant42\uffff")));
+		assertEquals(21, keys(BPlusTree.prefixScan(tree32, "tenant43")).size());
+		assertEquals(0, keys(BPlusTree.prefixScan(tree32, "tenant7/")).size());
+		assertEquals(2002, keys(BPlusTree.prefixScan(tree32, "")).size());
+	}
+
+	/**
+	 * Returns the height and the number of {@code LeafNode}s of the specified {@code InMemoryBPlusTree}.
+	 * 
+	 * @param tree
+	 *            an {@code InMemoryBPlusTree}
+	 * @return the height and the number of {@code LeafNode}s of the specified {@code InMemoryBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected int[] shape(InMemoryBPlusTree<Integer, Integer> tree) throws IOException {
+		int[] shape = new int[2];
+		for (Node<Integer> n = tree.root(); n instanceof NonLeafNode; n = n.pointer(0))
+			shape[0]++;
+		for (LeafNode<Integer, Integer> l = firstLeaf(tree); l != null; l = l.successor())
+			shape[1]++;
+		return shape;
+	}
+
+	/**
+	 * Returns the first {@code LeafNode} of the specified {@code InMemoryBPlusTree}.
+	 * 
+	 * @param tree
+	 *            an {@code InMemoryBPlusTree}
+	 * @return the first {@code LeafNode} of the specified {@code InMemoryBPlusTree}; {@code null} if the
+	 *         {@code InMemoryBPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<Integer, Integer> firstLeaf(InMemoryBPlusTree<Integer, Integer> tree) throws IOException {
+		Node<Integer> n = tree.root();
+		while (n instanceof NonLeafNode)
+			n = n.pointer(0);
+		return (LeafNode<Integer, Integer>) n;
+	}
+
+	/**
+	 * Returns the keys returned by the specified {@code Iterator}.
+	 * 
+	 * @param i
+	 *            an {@code Iterator}
+	 * @return the keys returned by the specified {@code Iterator}
+	 */
+	protected List<String> keys(Iterator<Map.Entry<String, Integer>> i) {
+		List<String> l = new ArrayList<String>();
+		while (i.hasNext())
+			l.add(i.next().getKey());
+		return l;
+	}
+
+	protected String toString(Node<String> node, int level, HashMap<Object, Integer> m) throws IOException {
 		String s = String.format("%" + level + "s", "") + node.toString(m);
 		if (node instanceof NonLeafNode) {
-			for (int i = 0; i < degree; i++) {
+			for (int i = 0; i < node.degree(); i++) {
 				Node<String> child = tree.child((NonLeafNode<String>) node, i);
 				if (child != null)
-					s += "\n" + toString(child, level + 1, degree, m);
+					s += "\n" + toString(child, level + 1, m);
 			}
 		}
 		return s;
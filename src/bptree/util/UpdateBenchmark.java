@@ -0,0 +1,94 @@
+package bptree.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import bptree.BufferedBPlusTree;
+import bptree.InMemoryBPlusTree;
+
+/**
+ * The {@code UpdateBenchmark} class measures the throughput of random insertions into {@code InMemoryBPlusTree}s and
+ * into {@code BufferedBPlusTree}s of the same degree whose buffers hold 4 and 16 times as many messages as the degree.
+ * Each configuration is run several times on the same keys (generated from a fixed seed) after warm-up runs, and the
+ * median throughput is reported. The number of keys and the degrees can be given as program arguments.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class UpdateBenchmark {
+
+	/**
+	 * The number of warm-up runs of each configuration.
+	 */
+	static final int WARMUPS = 3;
+
+	/**
+	 * The number of measured runs of each configuration.
+	 */
+	static final int RUNS = 7;
+
+	/**
+	 * The main program.
+	 * 
+	 * @param args
+	 *            the program arguments: the number of keys (default 1000000) followed by the degrees (default 16, 64,
+	 *            and 256)
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int[] degrees = args.length > 1 ? new int[args.length - 1] : new int[] { 16, 64, 256 };
+		for (int i = 1; i < args.length; i++)
+			degrees[i - 1] = Integer.parseInt(args[i]);
+		Integer[] keys = new Integer[n];
+		int seed = new Random(n).nextInt();
+		for (int i = 0; i < n; i++)
+			keys[i] = (i + seed) * 0x9E3779B1; // distinct keys in pseudo-random order
+		for (int degree : degrees) {
+			double base = run("InMemoryBPlusTree(" + degree + ")",
+					() -> new InMemoryBPlusTree<Integer, Integer>(degree), keys);
+			for (int capacity : new int[] { degree * 4, degree * 16 }) {
+				double t = run("BufferedBPlusTree(" + degree + ", " + capacity + ")",
+						() -> new BufferedBPlusTree<Integer, Integer>(degree, capacity), keys);
+				System.out.printf("  %.2fx the throughput of InMemoryBPlusTree(%d)%n", t / base, degree);
+			}
+		}
+	}
+
+	/**
+	 * Measures the median throughput of inserting the specified keys into the {@code InMemoryBPlusTree}s created by
+	 * the specified {@code Supplier}.
+	 *
+	 * @param name
+	 *            the name of the configuration
+	 * @param trees
+	 *            a {@code Supplier} that creates an empty {@code InMemoryBPlusTree} for each run
+	 * @param keys
+	 *            the keys to insert
+	 * @return the median number of insertions per second
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static double run(String name, Supplier<InMemoryBPlusTree<Integer, Integer>> trees, Integer[] keys)
+			throws Exception {
+		double[] throughputs = new double[RUNS];
+		for (int r = -WARMUPS; r < RUNS; r++) {
+			InMemoryBPlusTree<Integer, Integer> tree = trees.get();
+			long start = System.nanoTime();
+			for (Integer k : keys)
+				tree.insert(k, k);
+			if (tree instanceof BufferedBPlusTree)
+				((BufferedBPlusTree<Integer, Integer>) tree).flush(); // count the pending messages as well
+			long elapsed = System.nanoTime() - start;
+			if (r >= 0)
+				throughputs[r] = keys.length * 1e9 / elapsed;
+		}
+		Arrays.sort(throughputs);
+		double median = throughputs[RUNS / 2];
+		System.out.printf("%-32s %10.0f inserts/s (min %.0f, max %.0f)%n", name, median, throughputs[0],
+				throughputs[RUNS - 1]);
+		return median;
+	}
+
+}